@@ -0,0 +1,226 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.Arrays;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/4
+ * @description 不可预订日期的索引：每一天一个bit，按64天一个long保存（bit为1表示这一晚不可预订）。
+ *              查找连续N晚都可预订的窗口时按long跳过整段的空闲或占用，不逐天判断，多年的范围也只需要扫描几十个long。
+ *              索引范围以外的日期都可预订。所有方法都是线程安全的
+ */
+public final class BlockedDays {
+
+    public static final int NO_WINDOW = Integer.MIN_VALUE;                                 //找不到窗口
+
+    private static final int WORD_SHIFT = 6;                                                //64天一个long
+    private static final int WORD_MASK = 63;
+
+    private long[] mWords = new long[0];
+    private int mBaseEpochDay;                                                              //mWords[0]第0位对应的纪元日，64的倍数
+
+    public BlockedDays() {
+    }
+
+    /**
+     * 设置一段日期不可预订
+     * @param startEpochDay
+     * @param endEpochDay   不包含
+     */
+    public synchronized void block(int startEpochDay, int endEpochDay) {
+        if (endEpochDay <= startEpochDay) {
+            return;
+        }
+        ensureCapacity(startEpochDay, endEpochDay);
+        setRange(startEpochDay - mBaseEpochDay, endEpochDay - mBaseEpochDay, true);
+    }
+
+    /**
+     * 恢复一段日期可预订
+     * @param startEpochDay
+     * @param endEpochDay   不包含
+     */
+    public synchronized void unblock(int startEpochDay, int endEpochDay) {
+        final int start = Math.max(startEpochDay - mBaseEpochDay, 0);
+        final int end = Math.min(endEpochDay - mBaseEpochDay, mWords.length << WORD_SHIFT);
+        if (end > start) {
+            setRange(start, end, false);
+        }
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(mWords, 0L);
+    }
+
+    public synchronized boolean isBlocked(int epochDay) {
+        final int index = epochDay - mBaseEpochDay;
+        if (index < 0 || index >= mWords.length << WORD_SHIFT) {
+            return false;
+        }
+        return (mWords[index >>> WORD_SHIFT] & (1L << (index & WORD_MASK))) != 0;
+    }
+
+    /**
+     * 查找第一个连续nights晚都可预订的窗口
+     * @param fromEpochDay  最早的入住日
+     * @param nights        晚数，至少1晚
+     * @param endEpochDay   最晚的离店日（包含），窗口的最后一晚在这一天之前
+     * @return              入住日的纪元日，离店日为返回值 + nights；找不到时为NO_WINDOW
+     */
+    public synchronized int findNextWindow(int fromEpochDay, int nights, int endEpochDay) {
+        if (nights < 1) {
+            throw new IllegalArgumentException("nights must be at least 1");
+        }
+        return findWindowLocked(fromEpochDay, nights, endEpochDay);
+    }
+
+    /**
+     * 从fromEpochDay开始按时间顺序查找最多out.length个互不重叠的窗口，每个窗口连续nights晚都可预订
+     * @param out       写入每个窗口的入住日
+     * @return          找到的窗口数量
+     */
+    public synchronized int findWindows(int fromEpochDay, int nights, int endEpochDay, int[] out) {
+        if (nights < 1) {
+            throw new IllegalArgumentException("nights must be at least 1");
+        }
+        int count = 0;
+        int from = fromEpochDay;
+        while (count < out.length) {
+            final int checkIn = findWindowLocked(from, nights, endEpochDay);
+            if (checkIn == NO_WINDOW) {
+                break;
+            }
+            out[count++] = checkIn;
+            from = checkIn + nights;
+        }
+        return count;
+    }
+
+    /**
+     * 先跳到下一个可预订的日期，再检查后面nights晚中第一个不可预订的日期：
+     * 没有则找到窗口，有则从那一天之后继续。每次至少跳过一整段，所以循环次数是占用段的数量
+     */
+    private int findWindowLocked(int fromEpochDay, int nights, int endEpochDay) {
+        int day = fromEpochDay;
+        while ((long) day + nights <= endEpochDay) {
+            final int free = nextFreeDay(day, endEpochDay);
+            if ((long) free + nights > endEpochDay) {
+                return NO_WINDOW;
+            }
+            final int blocked = nextBlockedDay(free, free + nights);
+            if (blocked == free + nights) {
+                return free;
+            }
+            day = blocked + 1;
+        }
+        return NO_WINDOW;
+    }
+
+    /**
+     * [fromEpochDay, limitEpochDay)中第一个不可预订的日期，没有时返回limitEpochDay
+     */
+    private int nextBlockedDay(int fromEpochDay, int limitEpochDay) {
+        final int size = mWords.length << WORD_SHIFT;
+        int index = Math.max(fromEpochDay - mBaseEpochDay, 0);
+        final int limit = (int) Math.min((long) limitEpochDay - mBaseEpochDay, size);
+        if (index >= limit) {
+            return limitEpochDay;
+        }
+        int wordIndex = index >>> WORD_SHIFT;
+        long word = mWords[wordIndex] & (-1L << (index & WORD_MASK));                       //去掉index之前的位
+        while (true) {
+            if (word != 0) {
+                final int found = (wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+                return found < limit ? found + mBaseEpochDay : limitEpochDay;
+            }
+            if (++wordIndex << WORD_SHIFT >= limit) {
+                return limitEpochDay;
+            }
+            word = mWords[wordIndex];
+        }
+    }
+
+    /**
+     * [fromEpochDay, limitEpochDay)中第一个可预订的日期，没有时返回limitEpochDay
+     */
+    private int nextFreeDay(int fromEpochDay, int limitEpochDay) {
+        final int size = mWords.length << WORD_SHIFT;
+        final int index = fromEpochDay - mBaseEpochDay;
+        if (index < 0 || index >= size) {
+            return fromEpochDay;
+        }
+        int wordIndex = index >>> WORD_SHIFT;
+        long word = ~mWords[wordIndex] & (-1L << (index & WORD_MASK));
+        while (word == 0) {
+            if (++wordIndex == mWords.length) {
+                //索引之后的日期都可预订
+                return Math.min(size + mBaseEpochDay, limitEpochDay);
+            }
+            word = ~mWords[wordIndex];
+        }
+        return Math.min((wordIndex << WORD_SHIFT) + Long.numberOfTrailingZeros(word) + mBaseEpochDay, limitEpochDay);
+    }
+
+    /**
+     * 设置[start, end)的位，参数是相对mBaseEpochDay的下标，按整个long处理中间的部分
+     */
+    private void setRange(int start, int end, boolean value) {
+        final int firstWord = start >>> WORD_SHIFT;
+        final int lastWord = (end - 1) >>> WORD_SHIFT;
+        final long firstMask = -1L << (start & WORD_MASK);
+        final long lastMask = -1L >>> (63 - ((end - 1) & WORD_MASK));
+        for (int i = firstWord; i <= lastWord; i++) {
+            long mask = -1L;
+            if (i == firstWord) {
+                mask &= firstMask;
+            }
+            if (i == lastWord) {
+                mask &= lastMask;
+            }
+            mWords[i] = value ? mWords[i] | mask : mWords[i] & ~mask;
+        }
+    }
+
+    /**
+     * 扩大索引，使它包含[startEpochDay, endEpochDay)
+     */
+    private void ensureCapacity(int startEpochDay, int endEpochDay) {
+        final int newBase = startEpochDay >> WORD_SHIFT << WORD_SHIFT;                      //向下取整到64的倍数（负数也是）
+        if (mWords.length == 0) {
+            mBaseEpochDay = newBase;
+        }
+        final int base = Math.min(mBaseEpochDay, newBase);
+        final int end = Math.max(mBaseEpochDay + (mWords.length << WORD_SHIFT), endEpochDay);
+        final int wordCount = (end - base + WORD_MASK) >>> WORD_SHIFT;
+        if (base == mBaseEpochDay && wordCount <= mWords.length) {
+            return;
+        }
+        final long[] words = new long[Math.max(wordCount, mWords.length * 2)];
+        System.arraycopy(mWords, 0, words, (mBaseEpochDay - base) >>> WORD_SHIFT, mWords.length);
+        mWords = words;
+        mBaseEpochDay = base;
+    }
+}
@@ -0,0 +1,158 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/1
+ * @description 按估算字节数限制大小的LRU缓存，所有方法都是线程安全的。
+ *              值可以为null（表示计算过但没有结果），用containsKey区分
+ */
+public final class BoundedCache<K, V> implements BudgetedCache {
+
+    /**
+     * 估算一个条目占用的字节数（包含key和Map条目本身）
+     */
+    public interface Sizer<K, V> {
+        int sizeOf(K key, V value);
+    }
+
+    public static final int ENTRY_OVERHEAD = 48;                                            //LinkedHashMap条目加上Integer key的大概大小
+
+    private final LinkedHashMap<K, V> mMap = new LinkedHashMap<>(16, 0.75f, true);
+    private final Sizer<K, V> mSizer;
+    private long mMaxBytes;
+    private long mSizeBytes = 0;
+    private long mHitCount = 0;
+    private long mMissCount = 0;
+    private long mEvictionCount = 0;
+
+    public BoundedCache(long maxBytes, Sizer<K, V> sizer) {
+        mMaxBytes = maxBytes;
+        mSizer = sizer;
+    }
+
+    /**
+     * @return  没有缓存或者缓存的值为null时都返回null
+     */
+    public synchronized V get(K key) {
+        V value = mMap.get(key);
+        if (value != null || mMap.containsKey(key)) {
+            mHitCount++;
+        } else {
+            mMissCount++;
+        }
+        return value;
+    }
+
+    public synchronized boolean containsKey(K key) {
+        return mMap.containsKey(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        if (mMap.containsKey(key)) {
+            mSizeBytes -= mSizer.sizeOf(key, mMap.get(key));
+        }
+        mMap.put(key, value);
+        mSizeBytes += mSizer.sizeOf(key, value);
+        evictTo(mMaxBytes);
+    }
+
+    public synchronized void remove(K key) {
+        if (mMap.containsKey(key)) {
+            mSizeBytes -= mSizer.sizeOf(key, mMap.remove(key));
+        }
+    }
+
+    /**
+     * 当前所有key的副本，按最久未使用到最近使用排列
+     */
+    public synchronized List<K> keys() {
+        return new ArrayList<>(mMap.keySet());
+    }
+
+    public synchronized int size() {
+        return mMap.size();
+    }
+
+    /**
+     * 数据失效时清空，不计入淘汰次数
+     */
+    public synchronized void clear() {
+        mMap.clear();
+        mSizeBytes = 0;
+    }
+
+    @Override
+    public synchronized long getSizeBytes() {
+        return mSizeBytes;
+    }
+
+    @Override
+    public synchronized long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    @Override
+    public synchronized void setMaxBytes(long maxBytes) {
+        mMaxBytes = maxBytes;
+        evictTo(maxBytes);
+    }
+
+    @Override
+    public synchronized void trimToBytes(long bytes) {
+        evictTo(bytes);
+    }
+
+    @Override
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    @Override
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    @Override
+    public synchronized long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    private void evictTo(long bytes) {
+        Iterator<Map.Entry<K, V>> iterator = mMap.entrySet().iterator();
+        while (mSizeBytes > bytes && iterator.hasNext()) {
+            Map.Entry<K, V> eldest = iterator.next();
+            mSizeBytes -= mSizer.sizeOf(eldest.getKey(), eldest.getValue());
+            iterator.remove();
+            mEvictionCount++;
+        }
+    }
+}
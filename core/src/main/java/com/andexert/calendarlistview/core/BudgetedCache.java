@@ -0,0 +1,52 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/1
+ * @description 可以由CacheRegistry分配内存预算的缓存。大小是估算的字节数
+ */
+public interface BudgetedCache {
+
+    long getSizeBytes();
+
+    long getMaxBytes();
+
+    /**
+     * 设置上限，超过时立即按最久未使用的顺序淘汰
+     */
+    void setMaxBytes(long maxBytes);
+
+    /**
+     * 淘汰到不超过bytes，不改变上限
+     */
+    void trimToBytes(long bytes);
+
+    long getHitCount();
+
+    long getMissCount();
+
+    long getEvictionCount();
+}
@@ -0,0 +1,163 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/1
+ * @description 所有缓存共用的内存预算。按权重把总预算分给登记的缓存，内存紧张时按优先级从低到高淘汰，
+ *              并提供每个缓存的命中、未命中、淘汰次数和大小。所有方法都是线程安全的
+ */
+public final class CacheRegistry {
+
+    public static final long DEFAULT_BUDGET_BYTES = 1024 * 1024;
+
+    private static final CacheRegistry sDefault = new CacheRegistry(DEFAULT_BUDGET_BYTES);
+
+    private final List<Entry> mEntries = new ArrayList<>();                                 //按优先级从低到高
+    private long mBudgetBytes;
+
+    public CacheRegistry(long budgetBytes) {
+        mBudgetBytes = budgetBytes;
+    }
+
+    /**
+     * 进程内共用的登记，MonthGeometry、LunarCalendar等静态缓存登记在这里
+     */
+    public static CacheRegistry getDefault() {
+        return sDefault;
+    }
+
+    /**
+     * 登记一个缓存，重新分配所有缓存的上限
+     * @param name      统计中显示的名字
+     * @param priority  内存紧张时数值小的先淘汰（重建代价低的用小的值）
+     * @param weight    分配预算的权重
+     */
+    public synchronized void register(String name, BudgetedCache cache, int priority, int weight) {
+        removeEntry(cache);
+        int index = 0;
+        while (index < mEntries.size() && mEntries.get(index).priority <= priority) {
+            index++;
+        }
+        mEntries.add(index, new Entry(name, cache, priority, weight));
+        distribute();
+    }
+
+    public synchronized boolean unregister(BudgetedCache cache) {
+        if (!removeEntry(cache)) {
+            return false;
+        }
+        distribute();
+        return true;
+    }
+
+    public synchronized void setBudgetBytes(long budgetBytes) {
+        mBudgetBytes = budgetBytes;
+        distribute();
+    }
+
+    public synchronized long getBudgetBytes() {
+        return mBudgetBytes;
+    }
+
+    public synchronized long getSizeBytes() {
+        long size = 0;
+        for (Entry entry : mEntries) {
+            size += entry.cache.getSizeBytes();
+        }
+        return size;
+    }
+
+    /**
+     * 淘汰到总大小不超过预算的keepFraction，优先级低的缓存先淘汰，够了就停止
+     * @param keepFraction  0 - 1，0表示清空所有缓存
+     */
+    public synchronized void trim(float keepFraction) {
+        final long target = (long) (mBudgetBytes * Math.max(0f, Math.min(1f, keepFraction)));
+        long excess = getSizeBytes() - target;
+        for (int i = 0; i < mEntries.size() && excess > 0; i++) {
+            final BudgetedCache cache = mEntries.get(i).cache;
+            final long before = cache.getSizeBytes();
+            cache.trimToBytes(Math.max(0, before - excess));
+            excess -= before - cache.getSizeBytes();
+        }
+    }
+
+    /**
+     * 每个缓存一行，按优先级排列，方便记录日志或者比较
+     */
+    public synchronized String dumpStats() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(Locale.US, "budget=%d size=%d\n", mBudgetBytes, getSizeBytes()));
+        for (Entry entry : mEntries) {
+            final BudgetedCache cache = entry.cache;
+            builder.append(String.format(Locale.US, "%s size=%d max=%d hits=%d misses=%d evictions=%d\n",
+                    entry.name, cache.getSizeBytes(), cache.getMaxBytes(), cache.getHitCount(),
+                    cache.getMissCount(), cache.getEvictionCount()));
+        }
+        return builder.toString();
+    }
+
+    private void distribute() {
+        long totalWeight = 0;
+        for (Entry entry : mEntries) {
+            totalWeight += entry.weight;
+        }
+        if (totalWeight <= 0) {
+            return;
+        }
+        for (Entry entry : mEntries) {
+            entry.cache.setMaxBytes(mBudgetBytes * entry.weight / totalWeight);
+        }
+    }
+
+    private boolean removeEntry(BudgetedCache cache) {
+        for (int i = 0; i < mEntries.size(); i++) {
+            if (mEntries.get(i).cache == cache) {
+                mEntries.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Entry {
+        final String name;
+        final BudgetedCache cache;
+        final int priority;
+        final int weight;
+
+        Entry(String name, BudgetedCache cache, int priority, int weight) {
+            this.name = name;
+            this.cache = cache;
+            this.priority = priority;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.Calendar;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/23
+ * @description 与平台无关的日期计算（天数、星期、纪元日），客户端和服务端共用同一套规则
+ */
+public final class CalendarDates {
+
+    public static final int EPOCH_DAY_DAY_OF_WEEK = Calendar.THURSDAY;                      //1970-01-01是星期四
+
+    private CalendarDates() {
+    }
+
+    /**
+     * 某个月有多少天
+     * @param month     0 - 11
+     * @param year
+     * @return
+     */
+    public static int getDaysInMonth(int month, int year) {
+        switch (month) {
+            case Calendar.JANUARY:
+            case Calendar.MARCH:
+            case Calendar.MAY:
+            case Calendar.JULY:
+            case Calendar.AUGUST:
+            case Calendar.OCTOBER:
+            case Calendar.DECEMBER:
+                return 31;
+            case Calendar.APRIL:
+            case Calendar.JUNE:
+            case Calendar.SEPTEMBER:
+            case Calendar.NOVEMBER:
+                return 30;
+            case Calendar.FEBRUARY:
+                return isLeapYear(year) ? 29 : 28;
+            default:
+                throw new IllegalArgumentException("Invalid Month");
+        }
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || (year % 400 == 0);
+    }
+
+    /**
+     * 获取某一天是星期几，不需要创建Calendar
+     * @param year
+     * @param month     0 - 11
+     * @param day
+     * @return  Calendar.SUNDAY - Calendar.SATURDAY
+     */
+    public static int getDayOfWeek(int year, int month, int day) {
+        int m = month + 1;
+        if (m < 3) {
+            m += 12;
+            year -= 1;
+        }
+        int k = year % 100;
+        int j = year / 100;
+        //Zeller公式 h = 0 代表周六
+        int h = (day + (13 * (m + 1)) / 5 + k + k / 4 + j / 4 + 5 * j) % 7;
+        return ((h + 6) % 7) + Calendar.SUNDAY;
+    }
+
+    /**
+     * 纪元日是星期几
+     * @param epochDay
+     * @return  Calendar.SUNDAY - Calendar.SATURDAY
+     */
+    public static int getDayOfWeek(int epochDay) {
+        int offset = (epochDay + EPOCH_DAY_DAY_OF_WEEK - Calendar.SUNDAY) % 7;
+        return (offset < 0 ? offset + 7 : offset) + Calendar.SUNDAY;
+    }
+
+    /**
+     * 从1970-01-01开始的天数，和时区无关
+     * @param year
+     * @param month     0 - 11
+     * @param day
+     * @return
+     */
+    public static int getEpochDay(int year, int month, int day) {
+        int m = month + 1;
+        int y = m <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (m + (m > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * 纪元日转换成 year * 10000 + month * 100 + day（month为0 - 11）
+     * @param epochDay
+     * @return
+     */
+    public static int toDateKey(int epochDay) {
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 2 : mp - 10;
+        int year = yearOfEra + era * 400 + (month < 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+}
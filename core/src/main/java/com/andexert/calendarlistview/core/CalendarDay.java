@@ -0,0 +1,145 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.io.Serializable;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/23
+ * @description 日历中的一天（年、月、日），月份为0 - 11
+ */
+public class CalendarDay implements Serializable {
+    private static final long serialVersionUID = -2178409381296412745L;
+    private Calendar calendar;
+    private TimeZone timeZone;
+
+    protected int day;
+    protected int month;
+    protected int year;
+
+    public CalendarDay(TimeZone timeZone) {
+        setTime(System.currentTimeMillis(), timeZone);
+    }
+
+    public CalendarDay(int year, int month, int day, TimeZone timeZone) {
+        setDay(year, month, day, timeZone);
+    }
+
+    public CalendarDay(long timeInMillis, TimeZone timeZone) {
+        setTime(timeInMillis, timeZone);
+    }
+
+    public CalendarDay(Calendar calendar, TimeZone timeZone) {
+        this.timeZone = timeZone;
+        year = calendar.get(Calendar.YEAR);
+        month = calendar.get(Calendar.MONTH);
+        day = calendar.get(Calendar.DAY_OF_MONTH);
+    }
+
+    private void setTime(long timeInMillis, TimeZone timeZone) {
+        this.timeZone = timeZone;
+        if (calendar == null) {
+            calendar = Calendar.getInstance(timeZone);
+        }
+        calendar.setTimeInMillis(timeInMillis);
+        month = this.calendar.get(Calendar.MONTH);
+        year = this.calendar.get(Calendar.YEAR);
+        day = this.calendar.get(Calendar.DAY_OF_MONTH);
+    }
+
+    public void set(CalendarDay calendarDay) {
+        year = calendarDay.year;
+        month = calendarDay.month;
+        day = calendarDay.day;
+    }
+
+    public void setDay(int year, int month, int day, TimeZone timeZone) {
+        this.timeZone = timeZone;
+        this.year = year;
+        this.month = month;
+        this.day = day;
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    /**
+     * @return  0 - 11
+     */
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public TimeZone getTimeZone() {
+        return timeZone;
+    }
+
+    /**
+     * 从1970-01-01开始的天数
+     * @return
+     */
+    public int getEpochDay() {
+        return CalendarDates.getEpochDay(year, month, day);
+    }
+
+    public Date getDate() {
+        if (calendar == null) {
+            calendar = Calendar.getInstance(timeZone);
+        }
+        calendar.set(year, month, day);
+        return calendar.getTime();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("{ year: ");
+        stringBuilder.append(year);
+        stringBuilder.append(", month: ");
+        stringBuilder.append(month);
+        stringBuilder.append(", day: ");
+        stringBuilder.append(day);
+        stringBuilder.append(" }");
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * 到另一天相差的天数（按日期计算，不受夏令时影响）
+     * @param calendarDay
+     * @return
+     */
+    public int computeDays(CalendarDay calendarDay) {
+        return calendarDay.getEpochDay() - getEpochDay();
+    }
+}
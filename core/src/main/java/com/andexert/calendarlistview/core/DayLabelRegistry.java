@@ -0,0 +1,227 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/28
+ * @description 按优先级分层的标签来源：同一天有多个来源的标签时显示优先级最高的一个
+ *              每个月合并成一个下标为日期的数组并缓存，某个来源变化时只需要让它涉及的月份重新合并
+ *              所有方法都是线程安全的
+ */
+public final class DayLabelRegistry {
+
+    private static final String[] NO_LABELS = new String[0];                                //缓存中表示这个月没有标签
+
+    private static final int DEFAULT_MAX_BYTES = 64 * 1024;                                 //没有登记到CacheRegistry时的上限
+    private static final int MONTH_BYTES = BoundedCache.ENTRY_OVERHEAD + 16 + 4 * HolidayIndex.MONTH_LABELS_SIZE;  //标签字符串由来源持有，只算数组
+
+    private final List<Layer> mLayers = new ArrayList<>();                                  //按优先级从高到低，相同优先级先注册的在前
+    private final BoundedCache<Integer, String[]> mMergedMonths = new BoundedCache<>(DEFAULT_MAX_BYTES,
+            new BoundedCache.Sizer<Integer, String[]>() {
+                @Override
+                public int sizeOf(Integer key, String[] value) {
+                    return value == NO_LABELS ? BoundedCache.ENTRY_OVERHEAD : MONTH_BYTES;
+                }
+            });                                                                             //year * 12 + month -> 合并后的标签
+
+    /**
+     * 注册一个来源，已经注册过时更新优先级。所有月份都会重新合并
+     * @param source
+     * @param priority  数值越大越优先
+     */
+    public synchronized void register(DayLabelSource source, int priority) {
+        removeLayer(source);
+        int index = 0;
+        while (index < mLayers.size() && mLayers.get(index).priority >= priority) {
+            index++;
+        }
+        mLayers.add(index, new Layer(source, priority));
+        mMergedMonths.clear();
+    }
+
+    /**
+     * @param source
+     * @return  是否注册过
+     */
+    public synchronized boolean unregister(DayLabelSource source) {
+        if (!removeLayer(source)) {
+            return false;
+        }
+        mMergedMonths.clear();
+        return true;
+    }
+
+    public synchronized boolean isRegistered(DayLabelSource source) {
+        for (Layer layer : mLayers) {
+            if (layer.source == source) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 把另一个登记中有、这里没有（或优先级不同）的来源注册进来，已有的合并结果只在确实有新来源时丢弃
+     * @param other
+     */
+    public void registerAll(DayLabelRegistry other) {
+        final List<Layer> layers;
+        synchronized (other) {
+            layers = new ArrayList<>(other.mLayers);
+        }
+        synchronized (this) {
+            for (Layer layer : layers) {
+                final Integer priority = findPriority(layer.source);
+                if (priority == null || priority != layer.priority) {
+                    register(layer.source, layer.priority);
+                }
+            }
+        }
+    }
+
+    /**
+     * 某个来源在这些日期上的标签变化了，只丢弃这些日期所在月份的合并结果
+     * @param startEpochDay
+     * @param endEpochDay   不包含
+     */
+    public synchronized void invalidate(int startEpochDay, int endEpochDay) {
+        int first = CalendarDates.toDateKey(startEpochDay);
+        int last = CalendarDates.toDateKey(Math.max(endEpochDay - 1, startEpochDay));
+        int firstMonth = first / 10000 * 12 + first / 100 % 100;
+        int lastMonth = last / 10000 * 12 + last / 100 % 100;
+        if (lastMonth - firstMonth >= mMergedMonths.size()) {
+            //范围比缓存的月份还多时直接遍历缓存
+            for (Integer month : mMergedMonths.keys()) {
+                if (month >= firstMonth && month <= lastMonth) {
+                    mMergedMonths.remove(month);
+                }
+            }
+            return;
+        }
+        for (int month = firstMonth; month <= lastMonth; month++) {
+            mMergedMonths.remove(month);
+        }
+    }
+
+    /**
+     * 丢弃某个月的合并结果
+     * @param year
+     * @param month     0 - 11
+     */
+    public synchronized void invalidateMonth(int year, int month) {
+        mMergedMonths.remove(year * 12 + month);
+    }
+
+    public synchronized void invalidateAll() {
+        mMergedMonths.clear();
+    }
+
+    /**
+     * 合并结果的缓存，可以登记到CacheRegistry统一分配内存
+     */
+    public BudgetedCache getCache() {
+        return mMergedMonths;
+    }
+
+    /**
+     * 合并后的一个月的标签，第一次读取时合并
+     * @param year
+     * @param month     0 - 11
+     * @return  下标为日期的数组，这个月没有标签时返回null，不要修改返回的数组
+     */
+    public synchronized String[] getMonthLabels(int year, int month) {
+        final Integer key = year * 12 + month;
+        String[] merged = mMergedMonths.get(key);
+        if (merged == null) {
+            merged = merge(year, month);
+            mMergedMonths.put(key, merged == null ? NO_LABELS : merged);
+        }
+        return merged == NO_LABELS ? null : merged;
+    }
+
+    /**
+     * 按优先级逐天合并。只有一个来源有标签时直接使用它的数组，不复制
+     */
+    private String[] merge(int year, int month) {
+        String[] single = null;
+        String[] merged = null;
+        for (Layer layer : mLayers) {
+            String[] labels = layer.source.getMonthLabels(year, month);
+            if (labels == null) {
+                continue;
+            }
+            if (single == null && merged == null) {
+                single = labels;
+                continue;
+            }
+            if (merged == null) {
+                merged = new String[HolidayIndex.MONTH_LABELS_SIZE];
+                copyMissing(single, merged);
+            }
+            copyMissing(labels, merged);
+        }
+        return merged != null ? merged : single;
+    }
+
+    private static void copyMissing(String[] from, String[] to) {
+        for (int day = 1; day < to.length && day < from.length; day++) {
+            if (to[day] == null && from[day] != null && from[day].length() > 0) {
+                to[day] = from[day];
+            }
+        }
+    }
+
+    private Integer findPriority(DayLabelSource source) {
+        for (Layer layer : mLayers) {
+            if (layer.source == source) {
+                return layer.priority;
+            }
+        }
+        return null;
+    }
+
+    private boolean removeLayer(DayLabelSource source) {
+        for (int i = 0; i < mLayers.size(); i++) {
+            if (mLayers.get(i).source == source) {
+                mLayers.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Layer {
+        final DayLabelSource source;
+        final int priority;
+
+        Layer(DayLabelSource source, int priority) {
+            this.source = source;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/2
+ * @description 每天一个整数的数据（价格、库存等），按月分组保存。每个月有版本号，
+ *              月份控件记住读取时的版本，版本变化后才重新读取。所有方法都是线程安全的
+ */
+public final class DayValueStore {
+
+    public static final int NO_VALUE = Integer.MIN_VALUE;                                   //这一天没有数据
+
+    private final Map<Integer, Month> mMonths = new HashMap<>();                            //year * 12 + month -> 这个月的数据
+    private int mVersion = 0;
+
+    /**
+     * @param epochDay
+     * @param value     NO_VALUE表示删除
+     */
+    public synchronized void put(int epochDay, int value) {
+        final int key = CalendarDates.toDateKey(epochDay);
+        final Integer monthIndex = key / 10000 * 12 + key / 100 % 100;
+        Month month = mMonths.get(monthIndex);
+        if (month == null) {
+            if (value == NO_VALUE) {
+                return;
+            }
+            month = new Month();
+            mMonths.put(monthIndex, month);
+        }
+        final int day = key % 100;
+        if (month.values[day] == value) {
+            return;
+        }
+        month.count += (value == NO_VALUE ? 0 : 1) - (month.values[day] == NO_VALUE ? 0 : 1);
+        month.values[day] = value;
+        month.version = ++mVersion;
+        if (month.count == 0) {
+            mMonths.remove(monthIndex);
+        }
+    }
+
+    public synchronized int get(int epochDay) {
+        final int key = CalendarDates.toDateKey(epochDay);
+        final Month month = mMonths.get(key / 10000 * 12 + key / 100 % 100);
+        return month == null ? NO_VALUE : month.values[key % 100];
+    }
+
+    /**
+     * 读取一个月每天的数据
+     * @param year
+     * @param month     0 - 11
+     * @param values    长度至少32，下标为日期，没有数据的日期为NO_VALUE
+     * @return  这个月是否有数据
+     */
+    public synchronized boolean getMonthValues(int year, int month, int[] values) {
+        final Month m = mMonths.get(year * 12 + month);
+        if (m == null) {
+            Arrays.fill(values, NO_VALUE);
+            return false;
+        }
+        System.arraycopy(m.values, 0, values, 0, m.values.length);
+        return true;
+    }
+
+    /**
+     * 一个月的版本号，这个月的数据变化后改变。没有数据的月份为0
+     */
+    public synchronized int getMonthVersion(int year, int month) {
+        final Month m = mMonths.get(year * 12 + month);
+        return m == null ? 0 : m.version;
+    }
+
+    public synchronized void clear() {
+        mMonths.clear();
+    }
+
+    private static final class Month {
+        final int[] values = new int[HolidayIndex.MONTH_LABELS_SIZE];
+        int count = 0;                                                                      //有数据的天数
+        int version;
+
+        Month() {
+            Arrays.fill(values, NO_VALUE);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/25
+ * @description 事件标记索引：按年月分桶，每个月一个下标为日期的int数组保存事件数量
+ *              大量事件用build在后台线程一次建立，单个事件可以增量add、remove，读取一个月是O(天数)
+ *              所有方法都是线程安全的
+ */
+public final class EventIndex implements MonthEventSource {
+
+    private final Map<Integer, int[]> mMonths = new HashMap<>();                            //year * 12 + month -> 每天的数量
+
+    public EventIndex() {
+    }
+
+    /**
+     * 批量建立索引，适合在后台线程调用
+     * @param startEpochDays    事件开始的纪元日
+     * @param endEpochDays      事件结束的纪元日（不包含），为null时每个事件只占开始那一天
+     * @return
+     */
+    public static EventIndex build(int[] startEpochDays, int[] endEpochDays) {
+        if (endEpochDays != null && endEpochDays.length != startEpochDays.length) {
+            throw new IllegalArgumentException("startEpochDays and endEpochDays must have the same length");
+        }
+        EventIndex index = new EventIndex();
+        for (int i = 0; i < startEpochDays.length; i++) {
+            int start = startEpochDays[i];
+            int end = endEpochDays == null ? start + 1 : Math.max(endEpochDays[i], start + 1);
+            index.addLocked(start, end, 1);
+        }
+        return index;
+    }
+
+    /**
+     * 增加一个事件
+     * @param startEpochDay
+     * @param endEpochDay   不包含，小于等于startEpochDay时只占开始那一天
+     */
+    public synchronized void add(int startEpochDay, int endEpochDay) {
+        addLocked(startEpochDay, Math.max(endEpochDay, startEpochDay + 1), 1);
+    }
+
+    /**
+     * 删除一个之前增加过的事件，参数需要和add时一致
+     * @param startEpochDay
+     * @param endEpochDay
+     */
+    public synchronized void remove(int startEpochDay, int endEpochDay) {
+        addLocked(startEpochDay, Math.max(endEpochDay, startEpochDay + 1), -1);
+    }
+
+    public synchronized void clear() {
+        mMonths.clear();
+    }
+
+    /**
+     * 某一天的事件数量
+     * @param epochDay
+     * @return
+     */
+    public synchronized int getCount(int epochDay) {
+        int key = CalendarDates.toDateKey(epochDay);
+        int[] counts = mMonths.get(key / 10000 * 12 + key / 100 % 100);
+        return counts == null ? 0 : counts[key % 100];
+    }
+
+    @Override
+    public synchronized boolean getMonthCounts(int year, int month, int[] counts) {
+        int[] source = mMonths.get(year * 12 + month);
+        if (source == null) {
+            Arrays.fill(counts, 0);
+            return false;
+        }
+        System.arraycopy(source, 0, counts, 0, source.length);
+        return true;
+    }
+
+    /**
+     * 按月逐段累加，每个月只查一次桶
+     */
+    private void addLocked(int start, int end, int delta) {
+        int epochDay = start;
+        while (epochDay < end) {
+            int key = CalendarDates.toDateKey(epochDay);
+            int year = key / 10000;
+            int month = key / 100 % 100;
+            int day = key % 100;
+            int monthKey = year * 12 + month;
+            int[] counts = mMonths.get(monthKey);
+            if (counts == null) {
+                if (delta < 0) {
+                    epochDay += CalendarDates.getDaysInMonth(month, year) - day + 1;
+                    continue;
+                }
+                counts = new int[HolidayIndex.MONTH_LABELS_SIZE];
+                mMonths.put(monthKey, counts);
+            }
+            int lastDay = Math.min(CalendarDates.getDaysInMonth(month, year), day + (end - epochDay) - 1);
+            for (int d = day; d <= lastDay; d++) {
+                counts[d] = Math.max(0, counts[d] + delta);
+            }
+            if (delta < 0) {
+                //这个月已经没有事件时删除桶
+                boolean empty = true;
+                for (int d = 1; d < counts.length && empty; d++) {
+                    empty = counts[d] == 0;
+                }
+                if (empty) {
+                    mMonths.remove(monthKey);
+                }
+            }
+            epochDay += lastDay - day + 1;
+        }
+    }
+}
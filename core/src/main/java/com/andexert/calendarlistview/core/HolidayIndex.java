@@ -0,0 +1,121 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/21
+ * @description 节假日索引：把 "yyyyMMdd" -> 名称 的Map按年月拆分成每月一个数组（下标为日期），绘制时不需要再拼接Key查询
+ */
+public final class HolidayIndex implements DayLabelSource {
+
+    public static final int MONTH_LABELS_SIZE = 32;                                         //下标 1 - 31
+
+    private final Map<Integer, String[]> mMonths = new HashMap<>();
+    private int[] mEpochDays = new int[0];                                                  //所有节假日的纪元日，升序
+
+    public HolidayIndex(Map<String, String> holidays) {
+        if (holidays == null) {
+            return;
+        }
+        int[] epochDays = new int[holidays.size()];
+        int count = 0;
+        for (Map.Entry<String, String> entry : holidays.entrySet()) {
+            int date;
+            try {
+                date = Integer.parseInt(entry.getKey().trim());
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            int year = date / 10000;
+            int month = date / 100 % 100 - 1;
+            int day = date % 100;
+            if (month < 0 || month > 11 || day < 1 || day > CalendarDates.getDaysInMonth(month, year) || entry.getValue() == null || entry.getValue().length() == 0) {
+                continue;
+            }
+            Integer key = year * 12 + month;
+            String[] labels = mMonths.get(key);
+            if (labels == null) {
+                labels = new String[MONTH_LABELS_SIZE];
+                mMonths.put(key, labels);
+            }
+            if (labels[day] == null) {
+                epochDays[count++] = CalendarDates.getEpochDay(year, month, day);
+            }
+            labels[day] = entry.getValue();
+        }
+        mEpochDays = Arrays.copyOf(epochDays, count);
+        Arrays.sort(mEpochDays);
+    }
+
+    /**
+     * 获取某个月的节假日
+     * @param year
+     * @param month     0 - 11
+     * @return  下标为日期的数组，这个月没有节假日时返回null
+     */
+    @Override
+    public String[] getMonthLabels(int year, int month) {
+        return mMonths.get(year * 12 + month);
+    }
+
+    /**
+     * 所有节假日的纪元日（CalendarDates.getEpochDay），升序，不要修改返回的数组
+     * @return
+     */
+    public int[] getEpochDays() {
+        return mEpochDays;
+    }
+
+    /**
+     * 两份节假日之间标签有变化的月份，用于只刷新这些月份
+     * @param oldIndex  可以为null
+     * @param newIndex  可以为null
+     * @return  year * 12 + month，升序
+     */
+    public static int[] getChangedMonths(HolidayIndex oldIndex, HolidayIndex newIndex) {
+        TreeSet<Integer> months = new TreeSet<>();
+        if (oldIndex != null) {
+            months.addAll(oldIndex.mMonths.keySet());
+        }
+        if (newIndex != null) {
+            months.addAll(newIndex.mMonths.keySet());
+        }
+        int[] changed = new int[months.size()];
+        int count = 0;
+        for (Integer month : months) {
+            String[] oldLabels = oldIndex == null ? null : oldIndex.mMonths.get(month);
+            String[] newLabels = newIndex == null ? null : newIndex.mMonths.get(month);
+            if (!Arrays.equals(oldLabels, newLabels)) {
+                changed[count++] = month;
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+}
@@ -0,0 +1,418 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/26
+ * @description 从 .ics（iCalendar）文件导入的事件，作为 MonthEventSource 叠加到日历上
+ *              解析是流式的，逐行读取、展开折行，文件内容不会整体放进内存；普通事件直接记入按月分桶的 EventIndex，
+ *              重复事件（RRULE）只保存压缩的规则，月份绑定时才展开这个月，展开结果放在有上限的LRU缓存里
+ *              日期按文件中写的年月日处理，不做时区换算
+ */
+public final class IcsCalendar implements MonthEventSource {
+
+    public static final int DEFAULT_MAX_EXPANDED_MONTHS = 24;                               //默认缓存展开结果的月份数
+    private static final int MONTH_BYTES = BoundedCache.ENTRY_OVERHEAD + 16 + 4 * HolidayIndex.MONTH_LABELS_SIZE;  //一个月展开结果的大概字节数
+
+    private final EventIndex mSingleEvents;                                                 //不重复的事件
+    private final RecurrenceRule[] mRules;                                                  //重复事件的规则
+    private final int mEventCount;
+    private final BoundedCache<Integer, int[]> mExpandedMonths;                             //year * 12 + month -> 重复事件展开后每天的数量
+
+    private IcsCalendar(EventIndex singleEvents, RecurrenceRule[] rules, int eventCount, int maxExpandedMonths) {
+        mSingleEvents = singleEvents;
+        mRules = rules;
+        mEventCount = eventCount;
+        mExpandedMonths = new BoundedCache<>((long) maxExpandedMonths * MONTH_BYTES, new BoundedCache.Sizer<Integer, int[]>() {
+            @Override
+            public int sizeOf(Integer key, int[] value) {
+                return value == null ? BoundedCache.ENTRY_OVERHEAD : MONTH_BYTES;
+            }
+        });
+    }
+
+    /**
+     * 解析 .ics，适合在后台线程调用。解析完成后不会关闭reader
+     * @param reader
+     * @return
+     * @throws IOException
+     */
+    public static IcsCalendar parse(Reader reader) throws IOException {
+        return parse(reader, DEFAULT_MAX_EXPANDED_MONTHS);
+    }
+
+    /**
+     * @param reader
+     * @param maxExpandedMonths 最多缓存几个月的展开结果
+     * @return
+     * @throws IOException
+     */
+    public static IcsCalendar parse(Reader reader, int maxExpandedMonths) throws IOException {
+        if (maxExpandedMonths < 1) {
+            throw new IllegalArgumentException("maxExpandedMonths must be at least 1");
+        }
+        Parser parser = new Parser();
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        StringBuilder logicalLine = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null) {
+            //以空格或Tab开头的行是上一行的折行
+            if (line.length() > 0 && (line.charAt(0) == ' ' || line.charAt(0) == '\t')) {
+                logicalLine.append(line, 1, line.length());
+                continue;
+            }
+            if (logicalLine.length() > 0) {
+                parser.onLine(logicalLine.toString());
+            }
+            logicalLine.setLength(0);
+            logicalLine.append(line);
+        }
+        if (logicalLine.length() > 0) {
+            parser.onLine(logicalLine.toString());
+        }
+        return parser.finish(maxExpandedMonths);
+    }
+
+    /**
+     * @return  导入的事件数量，一个重复事件只算一个
+     */
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    /**
+     * @return  其中重复事件的数量
+     */
+    public int getRecurringEventCount() {
+        return mRules.length;
+    }
+
+    /**
+     * 重复事件展开结果的缓存，可以登记到CacheRegistry统一分配内存
+     */
+    public BudgetedCache getExpandedMonthCache() {
+        return mExpandedMonths;
+    }
+
+    @Override
+    public boolean getMonthCounts(int year, int month, int[] counts) {
+        boolean hasEvents = mSingleEvents.getMonthCounts(year, month, counts);
+        if (mRules.length == 0) {
+            return hasEvents;
+        }
+        int[] expanded = getExpandedMonth(year, month);
+        if (expanded == null) {
+            return hasEvents;
+        }
+        for (int day = 1; day < expanded.length; day++) {
+            counts[day] += expanded[day];
+        }
+        return true;
+    }
+
+    /**
+     * 展开一个月的重复事件，结果放进LRU缓存
+     * @return  这个月没有重复事件时返回null
+     */
+    private int[] getExpandedMonth(int year, int month) {
+        final Integer key = year * 12 + month;
+        final int[] cached = mExpandedMonths.get(key);
+        if (cached != null || mExpandedMonths.containsKey(key)) {
+            return cached;
+        }
+        final int numDays = CalendarDates.getDaysInMonth(month, year);
+        final int firstDay = CalendarDates.getEpochDay(year, month, 1);
+        int[] days = new int[numDays];
+        boolean hasEvents = false;
+        for (RecurrenceRule rule : mRules) {
+            if (rule.startEpochDay <= firstDay + numDays - 1) {
+                rule.addCounts(firstDay, days, numDays);
+            }
+        }
+        int[] expanded = new int[HolidayIndex.MONTH_LABELS_SIZE];
+        for (int i = 0; i < numDays; i++) {
+            expanded[i + 1] = days[i];
+            hasEvents |= days[i] != 0;
+        }
+        if (!hasEvents) {
+            expanded = null;
+        }
+        mExpandedMonths.put(key, expanded);
+        return expanded;
+    }
+
+    /**
+     * 逐行解析的状态，只认VEVENT，VALARM等嵌套组件和VTIMEZONE里的属性都忽略
+     */
+    private static final class Parser {
+
+        private static final int NONE = -1;
+        private static final String[] PROPERTIES = {"DTSTART", "DTEND", "DURATION", "RRULE", "EXDATE", "UID", "RECURRENCE-ID", "STATUS"};
+
+        private final EventIndex mSingleEvents = new EventIndex();
+        private final List<RecurrenceRule> mRules = new ArrayList<>();
+        private final List<String> mRuleUids = new ArrayList<>();
+        private final Map<String, List<Integer>> mOverriddenDays = new HashMap<>();        //UID -> 单独修改过的那次（RECURRENCE-ID）
+        private int mEventCount;
+
+        private boolean mInEvent;
+        private int mNestedDepth;                                                           //VEVENT里嵌套的组件层数
+        private int mStart;
+        private boolean mStartIsDate;
+        private int mStartSeconds;
+        private int mEnd;
+        private int mDurationSeconds;
+        private String mRule;
+        private String mUid;
+        private int mRecurrenceId;
+        private boolean mCancelled;
+        private int[] mExDates = new int[8];
+        private int mExDateCount;
+
+        void onLine(String line) {
+            int colon = findValueSeparator(line);
+            if (colon == -1) {
+                return;
+            }
+            int semicolon = line.indexOf(';');
+            int nameEnd = semicolon != -1 && semicolon < colon ? semicolon : colon;
+
+            if (isName(line, nameEnd, "BEGIN")) {
+                if (mInEvent) {
+                    mNestedDepth++;
+                } else if (isValue(line, colon, "VEVENT")) {
+                    startEvent();
+                }
+                return;
+            }
+            if (isName(line, nameEnd, "END")) {
+                if (mInEvent) {
+                    if (mNestedDepth > 0) {
+                        mNestedDepth--;
+                    } else if (isValue(line, colon, "VEVENT")) {
+                        endEvent();
+                    }
+                }
+                return;
+            }
+            //SUMMARY、DESCRIPTION等大多数行在这里就跳过，不产生任何字符串
+            if (!mInEvent || mNestedDepth > 0 || !isInterestingName(line, nameEnd)) {
+                return;
+            }
+            String name = line.substring(0, nameEnd).toUpperCase();
+            String params = nameEnd < colon ? line.substring(nameEnd + 1, colon).toUpperCase() : "";
+            String value = line.substring(colon + 1).trim();
+            try {
+                if ("DTSTART".equals(name)) {
+                    mStart = RecurrenceRule.parseDate(value);
+                    mStartIsDate = params.contains("VALUE=DATE") && !params.contains("VALUE=DATE-TIME") || value.length() == 8;
+                    mStartSeconds = parseTimeSeconds(value);
+                } else if ("DTEND".equals(name)) {
+                    mEnd = RecurrenceRule.parseDate(value);
+                    //带时间的结束日期：结束在当天0点之后才算占用这一天
+                    if (parseTimeSeconds(value) > 0) {
+                        mEnd++;
+                    }
+                } else if ("DURATION".equals(name)) {
+                    mDurationSeconds = parseDurationSeconds(value);
+                } else if ("RRULE".equals(name)) {
+                    mRule = value;
+                } else if ("EXDATE".equals(name)) {
+                    for (String date : value.split(",")) {
+                        if (mExDateCount == mExDates.length) {
+                            mExDates = Arrays.copyOf(mExDates, mExDateCount * 2);
+                        }
+                        mExDates[mExDateCount++] = RecurrenceRule.parseDate(date.trim());
+                    }
+                } else if ("UID".equals(name)) {
+                    mUid = value;
+                } else if ("RECURRENCE-ID".equals(name)) {
+                    mRecurrenceId = RecurrenceRule.parseDate(value);
+                } else if ("STATUS".equals(name)) {
+                    mCancelled = "CANCELLED".equalsIgnoreCase(value);
+                }
+            } catch (NumberFormatException e) {
+                //无法解析的属性忽略，缺少DTSTART的事件在endEvent里丢弃
+            }
+        }
+
+        private void startEvent() {
+            mInEvent = true;
+            mNestedDepth = 0;
+            mStart = NONE;
+            mStartIsDate = false;
+            mStartSeconds = 0;
+            mEnd = NONE;
+            mDurationSeconds = NONE;
+            mRule = null;
+            mUid = null;
+            mRecurrenceId = NONE;
+            mCancelled = false;
+            mExDateCount = 0;
+        }
+
+        private void endEvent() {
+            mInEvent = false;
+            if (mRecurrenceId != NONE && mUid != null) {
+                //单独修改过的一次：原规则里的这一天要去掉
+                List<Integer> days = mOverriddenDays.get(mUid);
+                if (days == null) {
+                    days = new ArrayList<>();
+                    mOverriddenDays.put(mUid, days);
+                }
+                days.add(mRecurrenceId);
+            }
+            if (mStart == NONE || mCancelled) {
+                return;
+            }
+            int end;
+            if (mEnd != NONE) {
+                end = mEnd;
+            } else if (mDurationSeconds != NONE) {
+                end = mStartIsDate ? mStart + mDurationSeconds / 86400
+                        : mStart + Math.max(0, mStartSeconds + mDurationSeconds - 1) / 86400 + 1;
+            } else {
+                end = mStart + 1;
+            }
+            int durationDays = Math.max(1, end - mStart);
+            mEventCount++;
+            RecurrenceRule rule = mRule != null && mRecurrenceId == NONE
+                    ? RecurrenceRule.parse(mRule, mStart, durationDays) : null;
+            if (rule == null) {
+                mSingleEvents.add(mStart, mStart + durationDays);
+                return;
+            }
+            rule.setExDates(Arrays.copyOf(mExDates, mExDateCount));
+            mRules.add(rule);
+            mRuleUids.add(mUid);
+        }
+
+        IcsCalendar finish(int maxExpandedMonths) {
+            RecurrenceRule[] rules = mRules.toArray(new RecurrenceRule[mRules.size()]);
+            for (int i = 0; i < rules.length; i++) {
+                List<Integer> overridden = mRuleUids.get(i) == null ? null : mOverriddenDays.get(mRuleUids.get(i));
+                if (overridden != null) {
+                    rules[i].addExDates(overridden);
+                }
+                rules[i].resolveCount();
+            }
+            return new IcsCalendar(mSingleEvents, rules, mEventCount, maxExpandedMonths);
+        }
+
+        private static boolean isName(String line, int nameEnd, String name) {
+            return nameEnd == name.length() && line.regionMatches(true, 0, name, 0, nameEnd);
+        }
+
+        private static boolean isValue(String line, int colon, String value) {
+            return line.regionMatches(true, colon + 1, value, 0, value.length());
+        }
+
+        private static boolean isInterestingName(String line, int nameEnd) {
+            for (String name : PROPERTIES) {
+                if (isName(line, nameEnd, name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 属性名、参数和值之间的冒号，参数值里引号内的冒号不算
+         */
+        private static int findValueSeparator(String line) {
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == ':' && !quoted) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * yyyyMMddTHHmmss 中的时间部分
+         * @return  纯日期返回0
+         */
+        private static int parseTimeSeconds(String value) {
+            if (value.length() < 15 || value.charAt(8) != 'T') {
+                return 0;
+            }
+            return Integer.parseInt(value.substring(9, 11)) * 3600
+                    + Integer.parseInt(value.substring(11, 13)) * 60
+                    + Integer.parseInt(value.substring(13, 15));
+        }
+
+        /**
+         * 解析 P1W、P2D、PT1H30M、P1DT12H 这样的时长
+         */
+        private static int parseDurationSeconds(String value) {
+            int seconds = 0;
+            int number = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    number = number * 10 + (c - '0');
+                    continue;
+                }
+                switch (c) {
+                    case 'W':
+                        seconds += number * 7 * 86400;
+                        break;
+                    case 'D':
+                        seconds += number * 86400;
+                        break;
+                    case 'H':
+                        seconds += number * 3600;
+                        break;
+                    case 'M':
+                        seconds += number * 60;
+                        break;
+                    case 'S':
+                        seconds += number;
+                        break;
+                    default:
+                        break;
+                }
+                number = 0;
+            }
+            if (value.startsWith("-")) {
+                return 0;
+            }
+            return seconds;
+        }
+    }
+}
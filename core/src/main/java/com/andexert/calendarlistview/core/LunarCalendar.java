@@ -0,0 +1,263 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/22
+ * @description 农历和节气：按年存放的农历月份位表（1900 - 2100），一次线性遍历算出一个公历月份每一天的农历文字，结果按年月缓存
+ */
+public final class LunarCalendar {
+
+    public static final int MIN_YEAR = 1900;
+    public static final int MAX_YEAR = 2100;
+    private static final int MAX_CACHE_SIZE = 240;                                          //没有登记到CacheRegistry之前最多缓存20年
+
+    /**
+     * 每年一个值：
+     * 0 - 3位   闰几月，0为没有闰月
+     * 4 - 15位  1 - 12月是否大月（30天），第15位为正月
+     * 16位      闰月是否大月
+     */
+    private static final int[] LUNAR_INFO = {
+            0x04bd8, 0x04ae0, 0x0a570, 0x054d5, 0x0d260, 0x0d950, 0x16554, 0x056a0, 0x09ad0, 0x055d2,    //1900 - 1909
+            0x04ae0, 0x0a5b6, 0x0a4d0, 0x0d250, 0x1d255, 0x0b540, 0x0d6a0, 0x0ada2, 0x095b0, 0x14977,    //1910 - 1919
+            0x04970, 0x0a4b0, 0x0b4b5, 0x06a50, 0x06d40, 0x1ab54, 0x02b60, 0x09570, 0x052f2, 0x04970,    //1920 - 1929
+            0x06566, 0x0d4a0, 0x0ea50, 0x16a95, 0x05ad0, 0x02b60, 0x186e3, 0x092e0, 0x1c8d7, 0x0c950,    //1930 - 1939
+            0x0d4a0, 0x1d8a6, 0x0b550, 0x056a0, 0x1a5b4, 0x025d0, 0x092d0, 0x0d2b2, 0x0a950, 0x0b557,    //1940 - 1949
+            0x06ca0, 0x0b550, 0x15355, 0x04da0, 0x0a5b0, 0x14573, 0x052b0, 0x0a9a8, 0x0e950, 0x06aa0,    //1950 - 1959
+            0x0aea6, 0x0ab50, 0x04b60, 0x0aae4, 0x0a570, 0x05260, 0x0f263, 0x0d950, 0x05b57, 0x056a0,    //1960 - 1969
+            0x096d0, 0x04dd5, 0x04ad0, 0x0a4d0, 0x0d4d4, 0x0d250, 0x0d558, 0x0b540, 0x0b6a0, 0x195a6,    //1970 - 1979
+            0x095b0, 0x049b0, 0x0a974, 0x0a4b0, 0x0b27a, 0x06a50, 0x06d40, 0x0af46, 0x0ab60, 0x09570,    //1980 - 1989
+            0x04af5, 0x04970, 0x064b0, 0x074a3, 0x0ea50, 0x06b58, 0x05ac0, 0x0ab60, 0x096d5, 0x092e0,    //1990 - 1999
+            0x0c960, 0x0d954, 0x0d4a0, 0x0da50, 0x07552, 0x056a0, 0x0abb7, 0x025d0, 0x092d0, 0x0cab5,    //2000 - 2009
+            0x0a950, 0x0b4a0, 0x0baa4, 0x0ad50, 0x055d9, 0x04ba0, 0x0a5b0, 0x15176, 0x052b0, 0x0a930,    //2010 - 2019
+            0x07954, 0x06aa0, 0x0ad50, 0x05b52, 0x04b60, 0x0a6e6, 0x0a4e0, 0x0d260, 0x0ea65, 0x0d530,    //2020 - 2029
+            0x05aa0, 0x076a3, 0x096d0, 0x04afb, 0x04ad0, 0x0a4d0, 0x1d0b6, 0x0d250, 0x0d520, 0x0dd45,    //2030 - 2039
+            0x0b5a0, 0x056d0, 0x055b2, 0x049b0, 0x0a577, 0x0a4b0, 0x0aa50, 0x1b255, 0x06d20, 0x0ada0,    //2040 - 2049
+            0x14b63, 0x09370, 0x049f8, 0x04970, 0x064b0, 0x168a6, 0x0ea50, 0x06b20, 0x1a6c4, 0x0aae0,    //2050 - 2059
+            0x092e0, 0x0d2e3, 0x0c960, 0x0d557, 0x0d4a0, 0x0da50, 0x05d55, 0x056a0, 0x0a6d0, 0x055d4,    //2060 - 2069
+            0x052d0, 0x0a9b8, 0x0a950, 0x0b4a0, 0x0b6a6, 0x0ad50, 0x055a0, 0x0aba4, 0x0a5b0, 0x052b0,    //2070 - 2079
+            0x0b273, 0x06930, 0x07337, 0x06aa0, 0x0ad50, 0x14b55, 0x04b60, 0x0a570, 0x054e4, 0x0d160,    //2080 - 2089
+            0x0e968, 0x0d520, 0x0daa0, 0x16aa6, 0x056d0, 0x04ae0, 0x0a9d4, 0x0a2d0, 0x0d150, 0x0f252,    //2090 - 2099
+            0x0d520     //2100
+    };
+
+    private static final String[] MONTH_NAMES = {"正", "二", "三", "四", "五", "六", "七", "八", "九", "十", "冬", "腊"};
+    private static final String[] DAY_NAMES = new String[31];                               //下标 1 - 30
+    private static final String[] SOLAR_TERMS = {"小寒", "大寒", "立春", "雨水", "惊蛰", "春分", "清明", "谷雨", "立夏", "小满", "芒种", "夏至",
+            "小暑", "大暑", "立秋", "处暑", "白露", "秋分", "寒露", "霜降", "立冬", "小雪", "大雪", "冬至"};
+    private static final double[] SOLAR_TERM_C = {5.4055, 20.12, 3.87, 18.73, 5.63, 20.646, 4.81, 20.1, 5.52, 21.04, 5.678, 21.37,
+            7.108, 22.83, 7.5, 23.13, 7.646, 23.042, 8.318, 23.438, 7.438, 22.36, 7.18, 21.94};     //21世纪节气公式的C值
+    private static final int[][] SOLAR_TERM_EXCEPTIONS = {                                  //公式的例外 {年, 节气, 修正天数}
+            {2002, 14, 1}, {2008, 9, 1}, {2016, 12, 1}, {2019, 0, -1}, {2021, 23, -1}, {2026, 3, -1},
+            {2082, 1, 1}, {2084, 5, 1}, {2089, 19, 1}, {2089, 20, 1}
+    };
+    private static final int SOLAR_TERM_MIN_YEAR = 2000;
+    private static final int SOLAR_TERM_MAX_YEAR = 2099;
+
+    private static final int BASE_EPOCH_DAY = CalendarDates.getEpochDay(1900, 0, 31);      //农历1900年正月初一
+    private static final int[] YEAR_START = new int[MAX_YEAR - MIN_YEAR + 2];               //每个农历年正月初一距离BASE_EPOCH_DAY的天数
+
+    private static final BoundedCache<Integer, MonthLabels> sCache = new BoundedCache<>(MAX_CACHE_SIZE * 1024L,
+            new BoundedCache.Sizer<Integer, MonthLabels>() {
+                @Override
+                public int sizeOf(Integer key, MonthLabels value) {
+                    int size = BoundedCache.ENTRY_OVERHEAD + 16 + 4 * value.labels.length;
+                    for (String label : value.labels) {
+                        if (label != null) {
+                            size += 40 + 2 * label.length();                                //农历日名大多是共用的，按独立字符串估算偏大
+                        }
+                    }
+                    return size;
+                }
+            });
+
+    static {
+        CacheRegistry.getDefault().register("lunar_labels", sCache, 30, 3);
+        String[] tens = {"初", "十", "廿", "三"};
+        String[] units = {"十", "一", "二", "三", "四", "五", "六", "七", "八", "九"};
+        for (int day = 1; day <= 30; day++) {
+            if (day == 10) {
+                DAY_NAMES[day] = "初十";
+            } else if (day == 20) {
+                DAY_NAMES[day] = "二十";
+            } else if (day == 30) {
+                DAY_NAMES[day] = "三十";
+            } else {
+                DAY_NAMES[day] = tens[day / 10] + units[day % 10];
+            }
+        }
+        for (int year = MIN_YEAR; year <= MAX_YEAR; year++) {
+            YEAR_START[year - MIN_YEAR + 1] = YEAR_START[year - MIN_YEAR] + getYearDays(year);
+        }
+    }
+
+    private LunarCalendar() {
+    }
+
+    /**
+     * 一个公历月份的农历文字
+     */
+    public static final class MonthLabels {
+        public final String[] labels;                                                       //下标为日期：节气、初一显示月份、其他显示农历日
+        public final int solarTermDays;                                                     //第day位为1表示这一天是节气
+
+        private MonthLabels(String[] labels, int solarTermDays) {
+            this.labels = labels;
+            this.solarTermDays = solarTermDays;
+        }
+
+        public boolean isSolarTerm(int day) {
+            return (solarTermDays & (1 << day)) != 0;
+        }
+    }
+
+    /**
+     * 获取一个公历月份每一天的农历文字
+     * @param year
+     * @param month     0 - 11
+     * @return  超出农历表范围时返回null
+     */
+    public static MonthLabels getMonthLabels(int year, int month) {
+        if (year < MIN_YEAR || year > MAX_YEAR || (year == MIN_YEAR && month == 0)) {
+            return null;
+        }
+        Integer key = year * 12 + month;
+        MonthLabels labels = sCache.get(key);
+        if (labels == null) {
+            labels = computeMonthLabels(year, month);
+            sCache.put(key, labels);
+        }
+        return labels;
+    }
+
+    private static MonthLabels computeMonthLabels(int year, int month) {
+        final int numDays = CalendarDates.getDaysInMonth(month, year);
+        final String[] labels = new String[HolidayIndex.MONTH_LABELS_SIZE];
+
+        //找到1号对应的农历年、月、日
+        int offset = CalendarDates.getEpochDay(year, month, 1) - BASE_EPOCH_DAY;
+        int lunarYear = year;
+        while (YEAR_START[lunarYear - MIN_YEAR] > offset) {
+            lunarYear--;
+        }
+        offset -= YEAR_START[lunarYear - MIN_YEAR];
+        int lunarMonth = 1;
+        boolean isLeap = false;
+        int monthDays = getMonthDays(lunarYear, lunarMonth);
+        while (offset >= monthDays) {
+            offset -= monthDays;
+            if (!isLeap && getLeapMonth(lunarYear) == lunarMonth) {
+                isLeap = true;
+                monthDays = getLeapDays(lunarYear);
+            } else {
+                isLeap = false;
+                lunarMonth++;
+                monthDays = getMonthDays(lunarYear, lunarMonth);
+            }
+        }
+        int lunarDay = offset + 1;
+
+        for (int day = 1; day <= numDays; day++) {
+            labels[day] = lunarDay == 1 ? getMonthName(lunarMonth, isLeap) : DAY_NAMES[lunarDay];
+            if (++lunarDay > monthDays) {
+                lunarDay = 1;
+                if (!isLeap && getLeapMonth(lunarYear) == lunarMonth) {
+                    isLeap = true;
+                    monthDays = getLeapDays(lunarYear);
+                } else {
+                    isLeap = false;
+                    if (++lunarMonth > 12) {
+                        lunarMonth = 1;
+                        if (++lunarYear > MAX_YEAR) {
+                            break;
+                        }
+                    }
+                    monthDays = getMonthDays(lunarYear, lunarMonth);
+                }
+            }
+        }
+
+        //节气覆盖农历日
+        int solarTermDays = 0;
+        if (year >= SOLAR_TERM_MIN_YEAR && year <= SOLAR_TERM_MAX_YEAR) {
+            for (int term = month * 2; term <= month * 2 + 1; term++) {
+                int day = getSolarTermDay(year, term);
+                labels[day] = SOLAR_TERMS[term];
+                solarTermDays |= 1 << day;
+            }
+        }
+        return new MonthLabels(labels, solarTermDays);
+    }
+
+    /**
+     * 节气的日期（寿星公式）：[Y * D + C] - L
+     * @param year  2000 - 2099
+     * @param term  0 - 23，从小寒开始
+     * @return
+     */
+    private static int getSolarTermDay(int year, int term) {
+        int y = year - SOLAR_TERM_MIN_YEAR;
+        //小寒、大寒、立春、雨水的闰年修正按上一年计算
+        int leapDays = term < 4 ? (y + 3) / 4 - 1 : y / 4;
+        int day = (int) Math.floor(y * 0.2422 + SOLAR_TERM_C[term]) - leapDays;
+        for (int[] exception : SOLAR_TERM_EXCEPTIONS) {
+            if (exception[0] == year && exception[1] == term) {
+                day += exception[2];
+            }
+        }
+        return day;
+    }
+
+    private static String getMonthName(int lunarMonth, boolean isLeap) {
+        return (isLeap ? "闰" : "") + MONTH_NAMES[lunarMonth - 1] + "月";
+    }
+
+    private static int getYearDays(int lunarYear) {
+        int days = 348;
+        int info = LUNAR_INFO[lunarYear - MIN_YEAR];
+        for (int mask = 0x8000; mask > 0x8; mask >>= 1) {
+            if ((info & mask) != 0) {
+                days++;
+            }
+        }
+        return days + getLeapDays(lunarYear);
+    }
+
+    private static int getLeapMonth(int lunarYear) {
+        return LUNAR_INFO[lunarYear - MIN_YEAR] & 0xf;
+    }
+
+    private static int getLeapDays(int lunarYear) {
+        if (getLeapMonth(lunarYear) == 0) {
+            return 0;
+        }
+        return (LUNAR_INFO[lunarYear - MIN_YEAR] & 0x10000) != 0 ? 30 : 29;
+    }
+
+    private static int getMonthDays(int lunarYear, int lunarMonth) {
+        return (LUNAR_INFO[lunarYear - MIN_YEAR] & (0x10000 >> lunarMonth)) != 0 ? 30 : 29;
+    }
+}
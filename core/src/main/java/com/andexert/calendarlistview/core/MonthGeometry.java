@@ -0,0 +1,105 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/20
+ * @description 一个月的网格信息（第一天星期几、偏移列、天数、行数），只和年月以及一周的开始有关，计算一次后缓存
+ */
+public final class MonthGeometry {
+
+    public static final int NUM_DAYS = 7;                                                   //一列显示多少天
+    public static final int MAX_NUM_ROWS = 6;
+    private static final int ENTRY_BYTES = BoundedCache.ENTRY_OVERHEAD + 48;                //对象头加7个int
+    private static final int MAX_CACHE_SIZE = 240;                                          //没有登记到CacheRegistry之前最多缓存20年
+
+    private static final BoundedCache<Integer, MonthGeometry> sCache = new BoundedCache<>(MAX_CACHE_SIZE * ENTRY_BYTES,
+            new BoundedCache.Sizer<Integer, MonthGeometry>() {
+                @Override
+                public int sizeOf(Integer key, MonthGeometry value) {
+                    return ENTRY_BYTES;
+                }
+            });
+
+    static {
+        //重建代价最低，内存紧张时最先淘汰
+        CacheRegistry.getDefault().register("month_geometry", sCache, 10, 1);
+    }
+
+    public final int year;
+    public final int month;                                                                 //0 - 11
+    public final int weekStart;                                                             //一周是从星期几开始（Calendar.SUNDAY = 1）
+    public final int dayOfWeekStart;                                                        //这个月是星期几开始
+    public final int dayOffset;                                                             //第一天在第几列
+    public final int numCells;                                                              //这个月有多少天
+    public final int numRows;                                                               //这个月需要几行
+
+    private MonthGeometry(int year, int month, int weekStart) {
+        this.year = year;
+        this.month = month;
+        this.weekStart = weekStart;
+        dayOfWeekStart = CalendarDates.getDayOfWeek(year, month, 1);
+        dayOffset = (dayOfWeekStart < weekStart ? (dayOfWeekStart + NUM_DAYS) : dayOfWeekStart) - weekStart;
+        numCells = CalendarDates.getDaysInMonth(month, year);
+        int dividend = (dayOffset + numCells) / NUM_DAYS;
+        int remainder = (dayOffset + numCells) % NUM_DAYS;
+        numRows = dividend + (remainder > 0 ? 1 : 0);
+    }
+
+    /**
+     * 获取某个月的网格信息
+     * @param year
+     * @param month         0 - 11
+     * @param weekStart     一周从星期几开始（Calendar.SUNDAY = 1）
+     * @return
+     */
+    public static MonthGeometry get(int year, int month, int weekStart) {
+        Integer key = (year * 12 + month) * 8 + weekStart;
+        MonthGeometry geometry = sCache.get(key);
+        if (geometry == null) {
+            geometry = new MonthGeometry(year, month, weekStart);
+            sCache.put(key, geometry);
+        }
+        return geometry;
+    }
+
+    /**
+     * 某一天所在的行
+     * @param day
+     * @return
+     */
+    public int getRow(int day) {
+        return (dayOffset + day - 1) / NUM_DAYS;
+    }
+
+    /**
+     * 某一天所在的列
+     * @param day
+     * @return
+     */
+    public int getColumn(int day) {
+        return (dayOffset + day - 1) % NUM_DAYS;
+    }
+}
@@ -0,0 +1,219 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.Calendar;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/23
+ * @description 入住范围的统计（间夜数、周末间夜数、节假日间夜数），日期使用纪元日（CalendarDates.getEpochDay），入住当天算一晚，离店当天不算
+ *              每个范围的计算都是O(1)，大量范围可以用evaluateParallel在ForkJoinPool里并行计算
+ */
+public final class RangeEvaluator {
+
+    public static final int DEFAULT_WEEKEND_NIGHTS = (1 << Calendar.FRIDAY) | (1 << Calendar.SATURDAY);  //周五、周六晚算周末
+    private static final int DAYS_OF_WEEK_MASK = ((1 << (Calendar.SATURDAY + 1)) - 1) & ~((1 << Calendar.SUNDAY) - 1);
+    private static final int PARALLEL_THRESHOLD = 8192;                                     //每个任务最少计算多少个范围
+
+    private final int mWeekendMask;                                                         //第Calendar.DAY_OF_WEEK位为1表示这天晚上算周末
+    private final int mWeekendNightsPerWeek;
+    private final int mHolidayBase;                                                         //mHolidayPrefix[0]对应的纪元日
+    private final int[] mHolidayPrefix;                                                     //mHolidayPrefix[i]为mHolidayBase + i之前的节假日数量
+
+    public RangeEvaluator(HolidayIndex holidays) {
+        this(holidays, DEFAULT_WEEKEND_NIGHTS);
+    }
+
+    /**
+     * @param holidays      节假日，可以为null
+     * @param weekendMask   哪些天的晚上算周末，第Calendar.DAY_OF_WEEK位为1
+     */
+    public RangeEvaluator(HolidayIndex holidays, int weekendMask) {
+        mWeekendMask = weekendMask;
+        mWeekendNightsPerWeek = Integer.bitCount(weekendMask & DAYS_OF_WEEK_MASK);
+
+        int[] epochDays = holidays == null ? new int[0] : holidays.getEpochDays();
+        if (epochDays.length == 0) {
+            mHolidayBase = 0;
+            mHolidayPrefix = new int[1];
+            return;
+        }
+        mHolidayBase = epochDays[0];
+        mHolidayPrefix = new int[epochDays[epochDays.length - 1] - mHolidayBase + 2];
+        int index = 0;
+        for (int i = 1; i < mHolidayPrefix.length; i++) {
+            int count = mHolidayPrefix[i - 1];
+            if (index < epochDays.length && epochDays[index] == mHolidayBase + i - 1) {
+                count++;
+                index++;
+            }
+            mHolidayPrefix[i] = count;
+        }
+    }
+
+    /**
+     * 间夜数
+     * @param checkIn   入住的纪元日
+     * @param checkOut  离店的纪元日
+     * @return
+     */
+    public static int getNights(int checkIn, int checkOut) {
+        return checkOut > checkIn ? checkOut - checkIn : 0;
+    }
+
+    /**
+     * 周末间夜数
+     * @param checkIn
+     * @param checkOut
+     * @return
+     */
+    public int getWeekendNights(int checkIn, int checkOut) {
+        if (checkOut <= checkIn) {
+            return 0;
+        }
+        int nights = checkOut - checkIn;
+        int count = nights / 7 * mWeekendNightsPerWeek;
+        //不足一周的部分最多6天，逐天判断
+        int dayOfWeek = CalendarDates.getDayOfWeek(checkIn);
+        for (int i = nights % 7; i > 0; i--) {
+            if ((mWeekendMask & (1 << dayOfWeek)) != 0) {
+                count++;
+            }
+            dayOfWeek = dayOfWeek == Calendar.SATURDAY ? Calendar.SUNDAY : dayOfWeek + 1;
+        }
+        return count;
+    }
+
+    /**
+     * 节假日间夜数
+     * @param checkIn
+     * @param checkOut
+     * @return
+     */
+    public int getHolidayNights(int checkIn, int checkOut) {
+        if (checkOut <= checkIn) {
+            return 0;
+        }
+        return countHolidaysBefore(checkOut) - countHolidaysBefore(checkIn);
+    }
+
+    private int countHolidaysBefore(int epochDay) {
+        int index = epochDay - mHolidayBase;
+        if (index <= 0) {
+            return 0;
+        }
+        if (index >= mHolidayPrefix.length) {
+            return mHolidayPrefix[mHolidayPrefix.length - 1];
+        }
+        return mHolidayPrefix[index];
+    }
+
+    /**
+     * 批量计算，结果数组为null时不计算这一项
+     * @param checkIns          入住的纪元日
+     * @param checkOuts         离店的纪元日
+     * @param nights            间夜数
+     * @param weekendNights     周末间夜数
+     * @param holidayNights     节假日间夜数
+     */
+    public void evaluate(int[] checkIns, int[] checkOuts, int[] nights, int[] weekendNights, int[] holidayNights) {
+        checkArrays(checkIns, checkOuts, nights, weekendNights, holidayNights);
+        evaluate(checkIns, checkOuts, nights, weekendNights, holidayNights, 0, checkIns.length);
+    }
+
+    /**
+     * 在ForkJoinPool里并行批量计算，结果和evaluate完全一致（Android上需要API 21）
+     * @param pool
+     */
+    public void evaluateParallel(int[] checkIns, int[] checkOuts, int[] nights, int[] weekendNights, int[] holidayNights, ForkJoinPool pool) {
+        checkArrays(checkIns, checkOuts, nights, weekendNights, holidayNights);
+        if (checkIns.length <= PARALLEL_THRESHOLD) {
+            evaluate(checkIns, checkOuts, nights, weekendNights, holidayNights, 0, checkIns.length);
+            return;
+        }
+        pool.invoke(new EvaluateTask(checkIns, checkOuts, nights, weekendNights, holidayNights, 0, checkIns.length));
+    }
+
+    private void evaluate(int[] checkIns, int[] checkOuts, int[] nights, int[] weekendNights, int[] holidayNights, int from, int to) {
+        for (int i = from; i < to; i++) {
+            final int checkIn = checkIns[i];
+            final int checkOut = checkOuts[i];
+            if (nights != null) {
+                nights[i] = getNights(checkIn, checkOut);
+            }
+            if (weekendNights != null) {
+                weekendNights[i] = getWeekendNights(checkIn, checkOut);
+            }
+            if (holidayNights != null) {
+                holidayNights[i] = getHolidayNights(checkIn, checkOut);
+            }
+        }
+    }
+
+    private static void checkArrays(int[] checkIns, int[] checkOuts, int[]... results) {
+        if (checkIns.length != checkOuts.length) {
+            throw new IllegalArgumentException("checkIns and checkOuts must have the same length");
+        }
+        for (int[] result : results) {
+            if (result != null && result.length < checkIns.length) {
+                throw new IllegalArgumentException("Result array is shorter than checkIns");
+            }
+        }
+    }
+
+    private final class EvaluateTask extends RecursiveAction {
+        private static final long serialVersionUID = 4581652373004951311L;
+        private final int[] mCheckIns;
+        private final int[] mCheckOuts;
+        private final int[] mNights;
+        private final int[] mWeekendNights;
+        private final int[] mHolidayNights;
+        private final int mFrom;
+        private final int mTo;
+
+        EvaluateTask(int[] checkIns, int[] checkOuts, int[] nights, int[] weekendNights, int[] holidayNights, int from, int to) {
+            mCheckIns = checkIns;
+            mCheckOuts = checkOuts;
+            mNights = nights;
+            mWeekendNights = weekendNights;
+            mHolidayNights = holidayNights;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= PARALLEL_THRESHOLD) {
+                evaluate(mCheckIns, mCheckOuts, mNights, mWeekendNights, mHolidayNights, mFrom, mTo);
+                return;
+            }
+            int middle = (mFrom + mTo) >>> 1;
+            invokeAll(new EvaluateTask(mCheckIns, mCheckOuts, mNights, mWeekendNights, mHolidayNights, mFrom, middle),
+                    new EvaluateTask(mCheckIns, mCheckOuts, mNights, mWeekendNights, mHolidayNights, middle, mTo));
+        }
+    }
+}
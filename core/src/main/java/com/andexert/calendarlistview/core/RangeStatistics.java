@@ -0,0 +1,252 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.Calendar;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/24
+ * @description 按天的数值（价格、是否周末、是否节假日等）的区间统计。每年一段前缀和，区间求和、计数都是O(1)
+ *              修改某一天只需要更新那一年的前缀和（最多366个）以及之后每年的累计值
+ *              不是线程安全的，修改和查询需要在同一个线程或者由调用者同步
+ */
+public final class RangeStatistics {
+
+    private final int mFirstYear;
+    private final int[] mYearStarts;                                                        //每年1月1日的纪元日，最后一个为结束年的下一年
+    private final long[][] mValues;                                                         //每年每天的数值，下标为一年中的第几天
+    private final long[][] mSums;                                                           //每年的前缀和，mSums[y][i]为这一年前i天的和
+    private final int[][] mCounts;                                                          //每年的前缀计数，mCounts[y][i]为这一年前i天中数值不为0的天数
+    private final long[] mYearSums;                                                         //mYearSums[y]为第y年之前所有年份的和
+    private final int[] mYearCounts;
+
+    /**
+     * @param firstYear     统计的第一年
+     * @param lastYear      统计的最后一年（包含）
+     */
+    public RangeStatistics(int firstYear, int lastYear) {
+        if (lastYear < firstYear) {
+            throw new IllegalArgumentException("lastYear must not be before firstYear");
+        }
+        int years = lastYear - firstYear + 1;
+        mFirstYear = firstYear;
+        mYearStarts = new int[years + 1];
+        mValues = new long[years][];
+        mSums = new long[years][];
+        mCounts = new int[years][];
+        mYearSums = new long[years + 1];
+        mYearCounts = new int[years + 1];
+        for (int y = 0; y <= years; y++) {
+            mYearStarts[y] = CalendarDates.getEpochDay(firstYear + y, Calendar.JANUARY, 1);
+        }
+        for (int y = 0; y < years; y++) {
+            int days = mYearStarts[y + 1] - mYearStarts[y];
+            mValues[y] = new long[days];
+            mSums[y] = new long[days + 1];
+            mCounts[y] = new int[days + 1];
+        }
+    }
+
+    /**
+     * 周末统计：周末的晚上数值为1
+     * @param weekendMask   哪些天的晚上算周末，第Calendar.DAY_OF_WEEK位为1，例如RangeEvaluator.DEFAULT_WEEKEND_NIGHTS
+     */
+    public static RangeStatistics weekends(int firstYear, int lastYear, int weekendMask) {
+        RangeStatistics statistics = new RangeStatistics(firstYear, lastYear);
+        for (int y = 0; y < statistics.mValues.length; y++) {
+            final long[] values = statistics.mValues[y];
+            int dayOfWeek = CalendarDates.getDayOfWeek(statistics.mYearStarts[y]);
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (weekendMask & (1 << dayOfWeek)) != 0 ? 1 : 0;
+                dayOfWeek = dayOfWeek == Calendar.SATURDAY ? Calendar.SUNDAY : dayOfWeek + 1;
+            }
+        }
+        statistics.rebuild(0);
+        return statistics;
+    }
+
+    /**
+     * 节假日统计：节假日数值为1
+     * @param holidays
+     */
+    public static RangeStatistics holidays(int firstYear, int lastYear, HolidayIndex holidays) {
+        RangeStatistics statistics = new RangeStatistics(firstYear, lastYear);
+        for (int epochDay : holidays.getEpochDays()) {
+            int y = statistics.findYear(epochDay);
+            if (y != -1) {
+                statistics.mValues[y][epochDay - statistics.mYearStarts[y]] = 1;
+            }
+        }
+        statistics.rebuild(0);
+        return statistics;
+    }
+
+    /**
+     * 修改某一天的数值，超出统计年份时忽略
+     * @param epochDay
+     * @param value
+     */
+    public void setValue(int epochDay, long value) {
+        int y = findYear(epochDay);
+        if (y == -1) {
+            return;
+        }
+        final int index = epochDay - mYearStarts[y];
+        final long[] values = mValues[y];
+        if (values[index] == value) {
+            return;
+        }
+        values[index] = value;
+        rebuildYear(y, index);
+        rebuildYearTotals(y);
+    }
+
+    /**
+     * 批量修改连续多天的数值，只重新计算一次
+     * @param fromEpochDay  values[0]对应的纪元日
+     * @param values
+     */
+    public void setValues(int fromEpochDay, long[] values) {
+        int firstChanged = -1;
+        for (int i = 0; i < values.length; i++) {
+            int y = findYear(fromEpochDay + i);
+            if (y == -1) {
+                continue;
+            }
+            mValues[y][fromEpochDay + i - mYearStarts[y]] = values[i];
+            if (firstChanged == -1) {
+                firstChanged = y;
+            }
+        }
+        if (firstChanged != -1) {
+            rebuild(firstChanged);
+        }
+    }
+
+    public long getValue(int epochDay) {
+        int y = findYear(epochDay);
+        return y == -1 ? 0 : mValues[y][epochDay - mYearStarts[y]];
+    }
+
+    /**
+     * 区间 [fromEpochDay, toEpochDay) 的数值之和，例如入住到离店之间每晚的价格总和
+     * @param fromEpochDay
+     * @param toEpochDay
+     * @return
+     */
+    public long sum(int fromEpochDay, int toEpochDay) {
+        if (toEpochDay <= fromEpochDay) {
+            return 0;
+        }
+        return sumBefore(toEpochDay) - sumBefore(fromEpochDay);
+    }
+
+    /**
+     * 区间 [fromEpochDay, toEpochDay) 中数值不为0的天数，例如周末间夜数、节假日间夜数
+     * @param fromEpochDay
+     * @param toEpochDay
+     * @return
+     */
+    public int count(int fromEpochDay, int toEpochDay) {
+        if (toEpochDay <= fromEpochDay) {
+            return 0;
+        }
+        return countBefore(toEpochDay) - countBefore(fromEpochDay);
+    }
+
+    private long sumBefore(int epochDay) {
+        final int years = mValues.length;
+        if (epochDay <= mYearStarts[0]) {
+            return 0;
+        }
+        if (epochDay >= mYearStarts[years]) {
+            return mYearSums[years];
+        }
+        int y = findYear(epochDay);
+        return mYearSums[y] + mSums[y][epochDay - mYearStarts[y]];
+    }
+
+    private int countBefore(int epochDay) {
+        final int years = mValues.length;
+        if (epochDay <= mYearStarts[0]) {
+            return 0;
+        }
+        if (epochDay >= mYearStarts[years]) {
+            return mYearCounts[years];
+        }
+        int y = findYear(epochDay);
+        return mYearCounts[y] + mCounts[y][epochDay - mYearStarts[y]];
+    }
+
+    /**
+     * 纪元日所在的年份下标
+     * @param epochDay
+     * @return  超出统计年份时返回-1
+     */
+    private int findYear(int epochDay) {
+        if (epochDay < mYearStarts[0] || epochDay >= mYearStarts[mValues.length]) {
+            return -1;
+        }
+        int y = (int) ((epochDay - mYearStarts[0]) / 365.2425);
+        if (y >= mValues.length) {
+            y = mValues.length - 1;
+        }
+        while (epochDay < mYearStarts[y]) {
+            y--;
+        }
+        while (epochDay >= mYearStarts[y + 1]) {
+            y++;
+        }
+        return y;
+    }
+
+    private void rebuild(int fromYear) {
+        for (int y = fromYear; y < mValues.length; y++) {
+            rebuildYear(y, 0);
+        }
+        rebuildYearTotals(fromYear);
+    }
+
+    private void rebuildYear(int y, int fromIndex) {
+        final long[] values = mValues[y];
+        final long[] sums = mSums[y];
+        final int[] counts = mCounts[y];
+        for (int i = fromIndex; i < values.length; i++) {
+            sums[i + 1] = sums[i] + values[i];
+            counts[i + 1] = counts[i] + (values[i] != 0 ? 1 : 0);
+        }
+    }
+
+    private void rebuildYearTotals(int fromYear) {
+        for (int y = fromYear; y < mValues.length; y++) {
+            mYearSums[y + 1] = mYearSums[y] + mSums[y][mValues[y].length];
+            mYearCounts[y + 1] = mYearCounts[y] + mCounts[y][mValues[y].length];
+        }
+    }
+
+    public int getFirstYear() {
+        return mFirstYear;
+    }
+}
@@ -0,0 +1,412 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/26
+ * @description 压缩保存的重复规则（iCalendar RRULE），只保存几个int和位掩码，需要时按日期窗口展开
+ *              支持 FREQ=DAILY/WEEKLY/MONTHLY/YEARLY、INTERVAL、COUNT、UNTIL、BYDAY（含序号，如1MO、-1FR）、BYMONTHDAY、BYMONTH、WKST
+ *              YEARLY没有BYMONTH时，BYMONTHDAY和BYDAY在全年的每个月展开，BYDAY的序号按全年计算（20MO为当年第20个星期一）；
+ *              有BYMONTH时只在这些月份展开，序号按月计算
+ */
+final class RecurrenceRule {
+
+    static final int DAILY = 0;
+    static final int WEEKLY = 1;
+    static final int MONTHLY = 2;
+    static final int YEARLY = 3;
+
+    private static final int MAX_COUNT_SEARCH_MONTHS = 12 * 200;                            //COUNT换算成UNTIL时最多向后查找200年
+    private static final int ALL_MONTHS = (1 << 12) - 1;
+    private static final String[] WEEKDAY_CODES = {"SU", "MO", "TU", "WE", "TH", "FR", "SA"};  //下标 + 1 = Calendar.DAY_OF_WEEK
+
+    final int startEpochDay;
+    final int durationDays;                                                                 //每次持续几天，至少1
+    private int mFreq = DAILY;
+    private int mInterval = 1;
+    private int mUntilEpochDay = Integer.MAX_VALUE;                                         //包含
+    private int mCount = 0;                                                                 //0为不限
+    private int mWeekStart = Calendar.MONDAY;
+    private int mByDayMask;                                                                 //第Calendar.DAY_OF_WEEK位为1，不带序号的BYDAY
+    private int[] mByDayOrdinals;                                                           //带序号的BYDAY：序号 * 8 + 星期
+    private int mByMonthDayMask;                                                            //第n位为1表示n号
+    private int mByMonthDayNegativeMask;                                                    //第n位为1表示倒数第n天
+    private int mByMonthMask;                                                               //第n位为1表示n月（0 - 11）
+    private int[] mExDates = new int[0];                                                    //排除的日期（纪元日），升序
+
+    RecurrenceRule(int startEpochDay, int durationDays) {
+        this.startEpochDay = startEpochDay;
+        this.durationDays = Math.max(1, durationDays);
+    }
+
+    /**
+     * 解析RRULE的值，例如 FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,WE
+     * @param value
+     * @return  不支持的FREQ（SECONDLY等）返回null
+     */
+    static RecurrenceRule parse(String value, int startEpochDay, int durationDays) {
+        RecurrenceRule rule = new RecurrenceRule(startEpochDay, durationDays);
+        for (String part : value.split(";")) {
+            int equals = part.indexOf('=');
+            if (equals <= 0) {
+                continue;
+            }
+            String name = part.substring(0, equals).trim().toUpperCase();
+            String v = part.substring(equals + 1).trim().toUpperCase();
+            try {
+                if ("FREQ".equals(name)) {
+                    if ("DAILY".equals(v)) {
+                        rule.mFreq = DAILY;
+                    } else if ("WEEKLY".equals(v)) {
+                        rule.mFreq = WEEKLY;
+                    } else if ("MONTHLY".equals(v)) {
+                        rule.mFreq = MONTHLY;
+                    } else if ("YEARLY".equals(v)) {
+                        rule.mFreq = YEARLY;
+                    } else {
+                        return null;
+                    }
+                } else if ("INTERVAL".equals(name)) {
+                    rule.mInterval = Math.max(1, Integer.parseInt(v));
+                } else if ("COUNT".equals(name)) {
+                    rule.mCount = Math.max(0, Integer.parseInt(v));
+                } else if ("UNTIL".equals(name)) {
+                    rule.mUntilEpochDay = parseDate(v);
+                } else if ("WKST".equals(name)) {
+                    int weekday = parseWeekday(v);
+                    if (weekday != -1) {
+                        rule.mWeekStart = weekday;
+                    }
+                } else if ("BYDAY".equals(name)) {
+                    rule.parseByDay(v);
+                } else if ("BYMONTHDAY".equals(name)) {
+                    for (String day : v.split(",")) {
+                        int d = Integer.parseInt(day.trim());
+                        if (d > 0 && d <= 31) {
+                            rule.mByMonthDayMask |= 1 << d;
+                        } else if (d < 0 && d >= -31) {
+                            rule.mByMonthDayNegativeMask |= 1 << -d;
+                        }
+                    }
+                } else if ("BYMONTH".equals(name)) {
+                    for (String month : v.split(",")) {
+                        int m = Integer.parseInt(month.trim());
+                        if (m >= 1 && m <= 12) {
+                            rule.mByMonthMask |= 1 << (m - 1);
+                        }
+                    }
+                }
+            } catch (NumberFormatException e) {
+                //忽略无法解析的部分，按默认值处理
+            }
+        }
+        return rule;
+    }
+
+    private void parseByDay(String value) {
+        int[] ordinals = new int[0];
+        for (String day : value.split(",")) {
+            day = day.trim();
+            if (day.length() < 2) {
+                continue;
+            }
+            int weekday = parseWeekday(day.substring(day.length() - 2));
+            if (weekday == -1) {
+                continue;
+            }
+            String ordinal = day.substring(0, day.length() - 2);
+            if (ordinal.length() == 0 || "+".equals(ordinal)) {
+                mByDayMask |= 1 << weekday;
+            } else {
+                int n = Integer.parseInt(ordinal.startsWith("+") ? ordinal.substring(1) : ordinal);
+                ordinals = Arrays.copyOf(ordinals, ordinals.length + 1);
+                ordinals[ordinals.length - 1] = n * 8 + (n < 0 ? -weekday : weekday);
+            }
+        }
+        mByDayOrdinals = ordinals.length == 0 ? null : ordinals;
+    }
+
+    private static int parseWeekday(String code) {
+        for (int i = 0; i < WEEKDAY_CODES.length; i++) {
+            if (WEEKDAY_CODES[i].equals(code)) {
+                return i + Calendar.SUNDAY;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 解析 yyyyMMdd 开头的日期（忽略时间部分）
+     * @param value
+     * @return  纪元日
+     */
+    static int parseDate(String value) {
+        if (value.length() < 8) {
+            throw new NumberFormatException("Invalid date: " + value);
+        }
+        int year = Integer.parseInt(value.substring(0, 4));
+        int month = Integer.parseInt(value.substring(4, 6)) - 1;
+        int day = Integer.parseInt(value.substring(6, 8));
+        if (month < 0 || month > 11 || day < 1 || day > CalendarDates.getDaysInMonth(month, year)) {
+            throw new NumberFormatException("Invalid date: " + value);
+        }
+        return CalendarDates.getEpochDay(year, month, day);
+    }
+
+    void setExDates(int[] exDates) {
+        mExDates = exDates;
+        Arrays.sort(mExDates);
+    }
+
+    /**
+     * 追加排除的日期，用于同一个UID里单独修改过的那几次（RECURRENCE-ID）
+     * @param exDates
+     */
+    void addExDates(List<Integer> exDates) {
+        int[] merged = Arrays.copyOf(mExDates, mExDates.length + exDates.size());
+        for (int i = 0; i < exDates.size(); i++) {
+            merged[mExDates.length + i] = exDates.get(i);
+        }
+        setExDates(merged);
+    }
+
+    /**
+     * 解析完成后调用：COUNT换算成UNTIL，之后展开任意月份都不需要从头计数
+     */
+    void resolveCount() {
+        if (mCount <= 0) {
+            return;
+        }
+        int remaining = mCount;
+        int key = CalendarDates.toDateKey(startEpochDay);
+        int monthIndex = key / 10000 * 12 + key / 100 % 100;
+        int[] buffer = new int[31];
+        for (int i = 0; i < MAX_COUNT_SEARCH_MONTHS && remaining > 0; i++, monthIndex++) {
+            int year = monthIndex / 12;
+            int month = monthIndex % 12;
+            int from = CalendarDates.getEpochDay(year, month, 1);
+            int to = from + CalendarDates.getDaysInMonth(month, year) - 1;
+            //COUNT包含被EXDATE排除的日期
+            int found = collectStarts(from, to, false, buffer);
+            if (found >= remaining) {
+                mUntilEpochDay = Math.min(mUntilEpochDay, buffer[remaining - 1]);
+                remaining = 0;
+            } else {
+                remaining -= found;
+            }
+        }
+        mCount = 0;
+    }
+
+    /**
+     * 把窗口内的每一天按事件数量累加到counts，持续多天的事件从窗口之前开始的也会计入
+     * @param fromEpochDay  窗口第一天
+     * @param counts        counts[0]对应fromEpochDay
+     * @param days          窗口天数
+     */
+    void addCounts(int fromEpochDay, int[] counts, int days) {
+        final int searchFrom = fromEpochDay - (durationDays - 1);
+        final int toEpochDay = fromEpochDay + days - 1;
+        int[] starts = new int[toEpochDay - searchFrom + 1];
+        int found = collectStarts(searchFrom, toEpochDay, true, starts);
+        for (int i = 0; i < found; i++) {
+            int first = Math.max(starts[i], fromEpochDay);
+            int last = Math.min(starts[i] + durationDays - 1, toEpochDay);
+            for (int d = first; d <= last; d++) {
+                counts[d - fromEpochDay]++;
+            }
+        }
+    }
+
+    /**
+     * 找出 [from, to] 内的每次开始日期，升序
+     * @param applyExDates  是否排除EXDATE
+     * @param out
+     * @return  数量
+     */
+    private int collectStarts(int from, int to, boolean applyExDates, int[] out) {
+        from = Math.max(from, startEpochDay);
+        to = Math.min(to, mUntilEpochDay);
+        int count = 0;
+        int maskMonth = Integer.MIN_VALUE;
+        int monthDayMask = 0;
+        for (int epochDay = from; epochDay <= to; epochDay++) {
+            boolean match;
+            switch (mFreq) {
+                case DAILY:
+                    match = (epochDay - startEpochDay) % mInterval == 0 && matchesFilters(epochDay);
+                    break;
+                case WEEKLY:
+                    match = matchesWeekly(epochDay);
+                    break;
+                default:
+                    int key = CalendarDates.toDateKey(epochDay);
+                    int monthIndex = key / 10000 * 12 + key / 100 % 100;
+                    if (monthIndex != maskMonth) {
+                        maskMonth = monthIndex;
+                        monthDayMask = getMonthDayMask(monthIndex / 12, monthIndex % 12);
+                    }
+                    match = (monthDayMask & (1 << (key % 100))) != 0;
+                    break;
+            }
+            if (match && (!applyExDates || Arrays.binarySearch(mExDates, epochDay) < 0)) {
+                out[count++] = epochDay;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * DAILY的BYDAY、BYMONTH、BYMONTHDAY过滤
+     */
+    private boolean matchesFilters(int epochDay) {
+        if (mByDayMask != 0 && (mByDayMask & (1 << CalendarDates.getDayOfWeek(epochDay))) == 0) {
+            return false;
+        }
+        if (mByMonthMask != 0 || mByMonthDayMask != 0 || mByMonthDayNegativeMask != 0) {
+            int key = CalendarDates.toDateKey(epochDay);
+            int year = key / 10000;
+            int month = key / 100 % 100;
+            int day = key % 100;
+            if (mByMonthMask != 0 && (mByMonthMask & (1 << month)) == 0) {
+                return false;
+            }
+            if ((mByMonthDayMask != 0 || mByMonthDayNegativeMask != 0) && !matchesMonthDay(year, month, day)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matchesWeekly(int epochDay) {
+        int dayOfWeek = CalendarDates.getDayOfWeek(epochDay);
+        int mask = mByDayMask != 0 ? mByDayMask : 1 << CalendarDates.getDayOfWeek(startEpochDay);
+        if ((mask & (1 << dayOfWeek)) == 0) {
+            return false;
+        }
+        if (mByMonthMask != 0) {
+            int key = CalendarDates.toDateKey(epochDay);
+            if ((mByMonthMask & (1 << (key / 100 % 100))) == 0) {
+                return false;
+            }
+        }
+        //按WKST划分周，间隔INTERVAL周
+        int weekIndex = floorDiv(weekStartOf(epochDay) - weekStartOf(startEpochDay), 7);
+        return weekIndex % mInterval == 0;
+    }
+
+    private int weekStartOf(int epochDay) {
+        int offset = (CalendarDates.getDayOfWeek(epochDay) - mWeekStart + 7) % 7;
+        return epochDay - offset;
+    }
+
+    /**
+     * MONTHLY、YEARLY在某个月中的日期
+     * @return  第n位为1表示n号
+     */
+    private int getMonthDayMask(int year, int month) {
+        int startKey = CalendarDates.toDateKey(startEpochDay);
+        int startYear = startKey / 10000;
+        int startMonth = startKey / 100 % 100;
+        boolean hasMonthDays = mByMonthDayMask != 0 || mByMonthDayNegativeMask != 0;
+        boolean hasDays = mByDayMask != 0 || mByDayOrdinals != null;
+        if (mFreq == MONTHLY) {
+            int months = (year * 12 + month) - (startYear * 12 + startMonth);
+            if (months < 0 || months % mInterval != 0 || (mByMonthMask != 0 && (mByMonthMask & (1 << month)) == 0)) {
+                return 0;
+            }
+        } else {
+            int years = year - startYear;
+            //没有BYMONTH时，BYMONTHDAY、BYDAY在每个月展开，都没有时只在DTSTART的月份
+            int monthMask = mByMonthMask != 0 ? mByMonthMask : hasMonthDays || hasDays ? ALL_MONTHS : 1 << startMonth;
+            if (years < 0 || years % mInterval != 0 || (monthMask & (1 << month)) == 0) {
+                return 0;
+            }
+        }
+
+        int numDays = CalendarDates.getDaysInMonth(month, year);
+        int mask = 0;
+        if (!hasMonthDays && !hasDays) {
+            int day = startKey % 100;
+            return day <= numDays ? 1 << day : 0;
+        }
+        //BYDAY的序号在这个范围内计算：YEARLY没有BYMONTH时是全年，否则是这个月
+        int periodOffset = 0;
+        int periodDays = numDays;
+        if (mFreq == YEARLY && mByMonthMask == 0) {
+            int yearStart = CalendarDates.getEpochDay(year, Calendar.JANUARY, 1);
+            periodOffset = CalendarDates.getEpochDay(year, month, 1) - yearStart;
+            periodDays = CalendarDates.getEpochDay(year + 1, Calendar.JANUARY, 1) - yearStart;
+        }
+        for (int day = 1; day <= numDays; day++) {
+            boolean match = !hasMonthDays || matchesMonthDay(year, month, day);
+            if (match && hasDays) {
+                match = matchesByDay(CalendarDates.getDayOfWeek(year, month, day), periodOffset + day - 1, periodDays);
+            }
+            if (match) {
+                mask |= 1 << day;
+            }
+        }
+        return mask;
+    }
+
+    private boolean matchesMonthDay(int year, int month, int day) {
+        if ((mByMonthDayMask & (1 << day)) != 0) {
+            return true;
+        }
+        int fromEnd = CalendarDates.getDaysInMonth(month, year) - day + 1;
+        return (mByMonthDayNegativeMask & (1 << fromEnd)) != 0;
+    }
+
+    /**
+     * @param index         在序号范围（月或年）中是第几天，从0开始
+     * @param periodDays    序号范围的天数
+     */
+    private boolean matchesByDay(int dayOfWeek, int index, int periodDays) {
+        if ((mByDayMask & (1 << dayOfWeek)) != 0) {
+            return true;
+        }
+        if (mByDayOrdinals == null) {
+            return false;
+        }
+        int nth = index / 7 + 1;                                                            //范围内的第几个
+        int nthFromEnd = -((periodDays - 1 - index) / 7 + 1);                               //范围内的倒数第几个
+        for (int packed : mByDayOrdinals) {
+            if (packed == nth * 8 + dayOfWeek || packed == nthFromEnd * 8 - dayOfWeek) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int floorDiv(int x, int y) {
+        int q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+}
@@ -0,0 +1,193 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/4
+ * @description BlockedDays的窗口查找：几段具体的已订日期，以及随机的block、unblock序列和逐天扫描的对比，
+ *              包含负的纪元日、索引向前扩展和索引范围以外的查询
+ */
+public class BlockedDaysTest {
+
+    private static final int DAYS = 2000;
+
+    @Test
+    public void matchesBruteForceAroundEpoch() {
+        //索引范围跨过纪元日0，一半是负数
+        runRandom(new Random(1), -DAYS / 2, 3000);
+    }
+
+    @Test
+    public void matchesBruteForceInPresentDays() {
+        runRandom(new Random(2), CalendarDates.getEpochDay(2016, 0, 1) - 37, 1000);
+    }
+
+    @Test
+    public void growsAtStart() {
+        final Random random = new Random(3);
+        for (int iteration = 0; iteration < 300; iteration++) {
+            final int offset = -DAYS / 2 + random.nextInt(64);
+            final BlockedDays blockedDays = new BlockedDays();
+            final boolean[] expected = new boolean[DAYS];
+            //每次都在已有范围之前block，索引需要向前扩展并保留后面的数据
+            int end = DAYS;
+            while (end > 1) {
+                final int start = Math.max(0, end - 1 - random.nextInt(150));
+                final int blockEnd = Math.min(DAYS, start + 1 + random.nextInt(40));
+                blockedDays.block(start + offset, blockEnd + offset);
+                fill(expected, start, blockEnd, true);
+                end = start - random.nextInt(100);
+                assertState(random, blockedDays, expected, offset, 5);
+            }
+        }
+    }
+
+    @Test
+    public void knownBookings() {
+        final int july1 = CalendarDates.getEpochDay(2016, Calendar.JULY, 1);
+        final BlockedDays blockedDays = new BlockedDays();
+        blockedDays.block(july1, july1 + 3);                                                //7月1日 - 3日已订
+        blockedDays.block(july1 + 5, july1 + 9);                                            //7月6日 - 9日已订
+        blockedDays.block(july1 + 11, july1 + 12);                                          //7月12日已订
+
+        //7月4日、5日两晚空闲，3晚的窗口要等到7月10日之后，7月10日、11日也只有两晚
+        assertEquals(july1 + 3, blockedDays.findNextWindow(july1, 2, july1 + 31));
+        assertEquals(july1 + 12, blockedDays.findNextWindow(july1, 3, july1 + 31));
+        //最晚7月14日离店时放不下3晚
+        assertEquals(BlockedDays.NO_WINDOW, blockedDays.findNextWindow(july1, 3, july1 + 14));
+        assertEquals(july1 + 12, blockedDays.findNextWindow(july1, 3, july1 + 15));
+
+        final int[] out = new int[4];
+        assertEquals(3, blockedDays.findWindows(july1, 2, july1 + 15, out));
+        assertEquals(july1 + 3, out[0]);
+        assertEquals(july1 + 9, out[1]);
+        assertEquals(july1 + 12, out[2]);
+    }
+
+    @Test
+    public void unblockOutsideIndexIsIgnored() {
+        final BlockedDays blockedDays = new BlockedDays();
+        blockedDays.unblock(-500, 500);
+        blockedDays.block(10, 20);
+        blockedDays.unblock(-1000, 12);
+        blockedDays.unblock(19, 1000);
+        for (int day = -1000; day < 1000; day++) {
+            assertEquals(String.valueOf(day), day >= 12 && day < 19, blockedDays.isBlocked(day));
+        }
+        assertEquals(5, blockedDays.findNextWindow(5, 7, 12));
+        assertEquals(19, blockedDays.findNextWindow(6, 7, 100));
+        assertEquals(BlockedDays.NO_WINDOW, blockedDays.findNextWindow(6, 7, 25));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroNightsIsRejected() {
+        new BlockedDays().findNextWindow(0, 0, 10);
+    }
+
+    private void runRandom(Random random, int offset, int iterations) {
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            final BlockedDays blockedDays = new BlockedDays();
+            final boolean[] expected = new boolean[DAYS];
+            for (int operation = random.nextInt(30); operation > 0; operation--) {
+                final int start = random.nextInt(DAYS - 100);
+                final int end = start + random.nextInt(100);
+                final boolean block = random.nextInt(4) != 0;
+                if (block) {
+                    blockedDays.block(start + offset, end + offset);
+                } else {
+                    blockedDays.unblock(start + offset, end + offset);
+                }
+                fill(expected, start, end, block);
+            }
+            if (random.nextInt(20) == 0) {
+                blockedDays.clear();
+                fill(expected, 0, DAYS, false);
+            }
+            assertState(random, blockedDays, expected, offset, 20);
+        }
+    }
+
+    private static void assertState(Random random, BlockedDays blockedDays, boolean[] expected, int offset, int queries) {
+        for (int day = 0; day < DAYS; day++) {
+            assertEquals(String.valueOf(day + offset), expected[day], blockedDays.isBlocked(day + offset));
+        }
+        final int[] out = new int[5];
+        final int[] expectedOut = new int[out.length];
+        for (int query = 0; query < queries; query++) {
+            final int from = random.nextInt(DAYS);
+            final int nights = 1 + random.nextInt(40);
+            final int end = from + random.nextInt(DAYS - from);
+            final String message = "from " + (from + offset) + " nights " + nights + " end " + (end + offset);
+
+            final int window = findWindow(expected, from, nights, end);
+            assertEquals(message, window == BlockedDays.NO_WINDOW ? window : window + offset,
+                    blockedDays.findNextWindow(from + offset, nights, end + offset));
+
+            int count = 0;
+            int next = from;
+            while (count < expectedOut.length) {
+                final int checkIn = findWindow(expected, next, nights, end);
+                if (checkIn == BlockedDays.NO_WINDOW) {
+                    break;
+                }
+                expectedOut[count++] = checkIn + offset;
+                next = checkIn + nights;
+            }
+            assertEquals(message, count, blockedDays.findWindows(from + offset, nights, end + offset, out));
+            for (int i = 0; i < count; i++) {
+                assertEquals(message + " window " + i, expectedOut[i], out[i]);
+            }
+        }
+    }
+
+    /**
+     * 逐天检查：第一个checkIn使[checkIn, checkIn + nights)都可预订且checkIn + nights <= end
+     */
+    private static int findWindow(boolean[] blocked, int from, int nights, int end) {
+        for (int checkIn = from; checkIn + nights <= end; checkIn++) {
+            boolean free = true;
+            for (int night = checkIn; night < checkIn + nights && free; night++) {
+                free = !blocked[night];
+            }
+            if (free) {
+                return checkIn;
+            }
+        }
+        return BlockedDays.NO_WINDOW;
+    }
+
+    private static void fill(boolean[] days, int start, int end, boolean value) {
+        for (int day = start; day < end; day++) {
+            days[day] = value;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/1
+ * @description CacheRegistry的预算分配和淘汰顺序：trim按优先级从低到高淘汰，够了就停止，淘汰后不超过目标大小
+ */
+public class CacheRegistryTest {
+
+    private static final long BUDGET = 64 * 1024;
+
+    /**
+     * 值就是条目的字节数
+     */
+    private static final BoundedCache.Sizer<Integer, Integer> SIZER = new BoundedCache.Sizer<Integer, Integer>() {
+        @Override
+        public int sizeOf(Integer key, Integer value) {
+            return value;
+        }
+    };
+
+    @Test
+    public void budgetIsSplitByWeight() {
+        final CacheRegistry registry = new CacheRegistry(BUDGET);
+        final BoundedCache<Integer, Integer> a = new BoundedCache<>(0, SIZER);
+        final BoundedCache<Integer, Integer> b = new BoundedCache<>(0, SIZER);
+        registry.register("a", a, 10, 1);
+        registry.register("b", b, 20, 3);
+        assertEquals(BUDGET / 4, a.getMaxBytes());
+        assertEquals(BUDGET * 3 / 4, b.getMaxBytes());
+
+        registry.unregister(a);
+        assertEquals(BUDGET, b.getMaxBytes());
+    }
+
+    @Test
+    public void trimEvictsLowPriorityFirst() {
+        final CacheRegistry registry = new CacheRegistry(BUDGET);
+        final BoundedCache<Integer, Integer> high = new BoundedCache<>(0, SIZER);
+        final BoundedCache<Integer, Integer> low = new BoundedCache<>(0, SIZER);
+        final BoundedCache<Integer, Integer> middle = new BoundedCache<>(0, SIZER);
+        //登记顺序和优先级顺序不同
+        registry.register("high", high, 30, 1);
+        registry.register("low", low, 10, 1);
+        registry.register("middle", middle, 20, 1);
+        for (int i = 0; i < 20; i++) {
+            high.put(i, 1000);
+            low.put(i, 1000);
+            middle.put(i, 1000);
+        }
+        assertEquals(60000, registry.getSizeBytes());
+
+        //需要淘汰30000：low全部淘汰，middle淘汰10个，high不动
+        registry.trim(30000f / BUDGET);
+        assertEquals(0, low.getSizeBytes());
+        assertEquals(10000, middle.getSizeBytes());
+        assertEquals(20000, high.getSizeBytes());
+        assertEquals(0, high.getEvictionCount());
+
+        registry.trim(0);
+        assertEquals(0, registry.getSizeBytes());
+    }
+
+    @Test
+    public void randomTrimFollowsPriorityAndBudget() {
+        final Random random = new Random(1);
+        final int caches = 5;
+        final CacheRegistry registry = new CacheRegistry(BUDGET);
+        final List<Integer> priorities = new ArrayList<>();
+        final List<BoundedCache<Integer, Integer>> byPriority = new ArrayList<>();
+        for (int i = 0; i < caches; i++) {
+            final int priority = random.nextInt(100);
+            final BoundedCache<Integer, Integer> cache = new BoundedCache<>(0, SIZER);
+            registry.register("cache" + i, cache, priority, 1 + random.nextInt(4));
+            //按优先级排列的缓存，和登记的顺序无关，相同优先级排在后面
+            int index = 0;
+            while (index < priorities.size() && priorities.get(index) <= priority) {
+                index++;
+            }
+            priorities.add(index, priority);
+            byPriority.add(index, cache);
+        }
+
+        final long[] before = new long[caches];
+        for (int round = 0; round < 500; round++) {
+            for (int put = random.nextInt(200); put > 0; put--) {
+                final BoundedCache<Integer, Integer> cache = byPriority.get(random.nextInt(caches));
+                cache.put(random.nextInt(1000), 16 + random.nextInt(600));
+                assertTrue(cache.getSizeBytes() <= cache.getMaxBytes());
+            }
+            assertTrue(registry.getSizeBytes() <= BUDGET);
+
+            for (int i = 0; i < caches; i++) {
+                before[i] = byPriority.get(i).getSizeBytes();
+            }
+            final float keepFraction = random.nextFloat();
+            registry.trim(keepFraction);
+            assertTrue(registry.getSizeBytes() <= (long) (BUDGET * keepFraction));
+
+            //只有一个缓存被部分淘汰：在它之前的都清空，在它之后的都不变
+            int partial = 0;
+            while (partial < caches && byPriority.get(partial).getSizeBytes() == 0) {
+                partial++;
+            }
+            for (int i = partial + 1; i < caches; i++) {
+                assertEquals("round " + round + " cache " + i, before[i], byPriority.get(i).getSizeBytes());
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/25
+ * @description EventIndex的事件计数：几个互相重叠的具体事件，以及build、add、remove之后每一天的数量和每个月的getMonthCounts与逐天计数的对比
+ */
+public class EventIndexTest {
+
+    private static final int FIRST_YEAR = 2015;
+    private static final int YEARS = 3;
+
+    private final int mFirstDay = CalendarDates.getEpochDay(FIRST_YEAR, Calendar.JANUARY, 1);
+    private final int mEndDay = CalendarDates.getEpochDay(FIRST_YEAR + YEARS, Calendar.JANUARY, 1);
+    private final int[] mExpected = new int[mEndDay - mFirstDay];
+
+    @Test
+    public void overlappingEventsAcrossMonthEnd() {
+        final int jan30 = CalendarDates.getEpochDay(2016, Calendar.JANUARY, 30);
+        final EventIndex index = new EventIndex();
+        index.add(jan30, jan30 + 3);                                                        //1月30日 - 2月1日
+        index.add(jan30 + 1, jan30 + 2);                                                    //1月31日
+        index.add(jan30 + 2, jan30 + 2);                                                    //结束不晚于开始：只占2月1日
+        index.add(jan30 + 2, jan30 + 30);                                                   //2月1日 - 2月28日
+
+        final int[] counts = new int[HolidayIndex.MONTH_LABELS_SIZE];
+        index.getMonthCounts(2016, Calendar.JANUARY, counts);
+        assertEquals(0, counts[29]);
+        assertEquals(1, counts[30]);
+        assertEquals(2, counts[31]);
+        index.getMonthCounts(2016, Calendar.FEBRUARY, counts);
+        assertEquals(3, counts[1]);
+        assertEquals(1, counts[2]);
+        assertEquals(1, counts[28]);
+        assertEquals(0, counts[29]);
+
+        index.remove(jan30, jan30 + 3);
+        assertEquals(0, index.getCount(jan30));
+        assertEquals(1, index.getCount(jan30 + 1));
+        assertEquals(2, index.getCount(jan30 + 2));
+    }
+
+    @Test
+    public void buildMatchesDayByDayCount() {
+        final Random random = new Random(1);
+        final int[] starts = new int[5000];
+        final int[] ends = new int[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = randomStart(random);
+            ends[i] = randomEnd(random, starts[i]);
+            tally(starts[i], ends[i], 1);
+        }
+        assertIndex(EventIndex.build(starts, ends));
+    }
+
+    @Test
+    public void buildWithoutEndsTakesOneDay() {
+        final Random random = new Random(2);
+        final int[] starts = new int[3000];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = randomStart(random);
+            tally(starts[i], starts[i] + 1, 1);
+        }
+        assertIndex(EventIndex.build(starts, null));
+    }
+
+    @Test
+    public void addRemoveMatchesDayByDayCount() {
+        final Random random = new Random(3);
+        final EventIndex index = new EventIndex();
+        final List<int[]> events = new ArrayList<>();
+        for (int round = 0; round < 4000; round++) {
+            if (events.isEmpty() || random.nextInt(3) != 0) {
+                final int start = randomStart(random);
+                final int end = randomEnd(random, start);
+                index.add(start, end);
+                tally(start, end, 1);
+                events.add(new int[]{start, end});
+            } else {
+                final int[] event = events.remove(random.nextInt(events.size()));
+                index.remove(event[0], event[1]);
+                tally(event[0], event[1], -1);
+            }
+            if (round % 200 == 0) {
+                assertIndex(index);
+            }
+        }
+        assertIndex(index);
+
+        //全部删除之后每个月都没有桶
+        for (int[] event : events) {
+            index.remove(event[0], event[1]);
+            tally(event[0], event[1], -1);
+        }
+        assertIndex(index);
+        final int[] counts = new int[HolidayIndex.MONTH_LABELS_SIZE];
+        for (int monthIndex = FIRST_YEAR * 12; monthIndex < (FIRST_YEAR + YEARS) * 12; monthIndex++) {
+            assertFalse(index.getMonthCounts(monthIndex / 12, monthIndex % 12, counts));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedLengthsAreRejected() {
+        EventIndex.build(new int[2], new int[3]);
+    }
+
+    /**
+     * 事件都落在统计年份内，长度从一天到跨几个月，少量结束不晚于开始
+     */
+    private int randomStart(Random random) {
+        return mFirstDay + random.nextInt(mExpected.length - 120);
+    }
+
+    private int randomEnd(Random random, int start) {
+        if (random.nextInt(10) == 0) {
+            return start - random.nextInt(3);
+        }
+        return start + 1 + (random.nextInt(5) == 0 ? random.nextInt(110) : random.nextInt(6));
+    }
+
+    private void tally(int start, int end, int delta) {
+        for (int epochDay = start; epochDay < Math.max(end, start + 1); epochDay++) {
+            mExpected[epochDay - mFirstDay] += delta;
+        }
+    }
+
+    private void assertIndex(EventIndex index) {
+        for (int epochDay = mFirstDay; epochDay < mEndDay; epochDay++) {
+            assertEquals(String.valueOf(CalendarDates.toDateKey(epochDay)),
+                    mExpected[epochDay - mFirstDay], index.getCount(epochDay));
+        }
+        final int[] counts = new int[HolidayIndex.MONTH_LABELS_SIZE];
+        for (int year = FIRST_YEAR; year < FIRST_YEAR + YEARS; year++) {
+            for (int month = Calendar.JANUARY; month <= Calendar.DECEMBER; month++) {
+                index.getMonthCounts(year, month, counts);
+                final int days = CalendarDates.getDaysInMonth(month, year);
+                for (int day = 1; day <= days; day++) {
+                    final int epochDay = CalendarDates.getEpochDay(year, month, day);
+                    assertEquals(year + "/" + month + "/" + day, mExpected[epochDay - mFirstDay], counts[day]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/22
+ * @description 农历表核对：1949 - 2100年每年的春节日期（正月初一），公历yyyyMMdd。参考值由ICU4J的ChineseCalendar按东八区算出，
+ *              其中1954、2027、2030年ICU的结果比公布的春节日期晚或早一天，这三年按公布的日期填写（2月3日、2月6日、2月3日）
+ */
+public class LunarCalendarTest {
+
+    private static final int FIRST_YEAR = 1949;
+    private static final int[] SPRING_FESTIVALS = {
+            19490129,
+            19500217, 19510206, 19520127, 19530214, 19540203, 19550124, 19560212, 19570131, 19580218, 19590208,
+            19600128, 19610215, 19620205, 19630125, 19640213, 19650202, 19660121, 19670209, 19680130, 19690217,
+            19700206, 19710127, 19720215, 19730203, 19740123, 19750211, 19760131, 19770218, 19780207, 19790128,
+            19800216, 19810205, 19820125, 19830213, 19840202, 19850220, 19860209, 19870129, 19880217, 19890206,
+            19900127, 19910215, 19920204, 19930123, 19940210, 19950131, 19960219, 19970207, 19980128, 19990216,
+            20000205, 20010124, 20020212, 20030201, 20040122, 20050209, 20060129, 20070218, 20080207, 20090126,
+            20100214, 20110203, 20120123, 20130210, 20140131, 20150219, 20160208, 20170128, 20180216, 20190205,
+            20200125, 20210212, 20220201, 20230122, 20240210, 20250129, 20260217, 20270206, 20280126, 20290213,
+            20300203, 20310123, 20320211, 20330131, 20340219, 20350208, 20360128, 20370215, 20380204, 20390124,
+            20400212, 20410201, 20420122, 20430210, 20440130, 20450217, 20460206, 20470126, 20480214, 20490202,
+            20500123, 20510211, 20520201, 20530219, 20540208, 20550128, 20560215, 20570204, 20580124, 20590212,
+            20600202, 20610121, 20620209, 20630129, 20640217, 20650205, 20660126, 20670214, 20680203, 20690123,
+            20700211, 20710131, 20720219, 20730207, 20740127, 20750215, 20760205, 20770124, 20780212, 20790202,
+            20800122, 20810209, 20820129, 20830217, 20840206, 20850126, 20860214, 20870203, 20880124, 20890210,
+            20900130, 20910218, 20920207, 20930127, 20940215, 20950205, 20960125, 20970212, 20980201, 20990121,
+            21000209
+    };
+
+    private static final String FIRST_MONTH = "正月";
+
+    @Test
+    public void knownDays() {
+        assertEquals("廿二", getLabel(2016, Calendar.JANUARY, 1));                         //农历2015年冬月廿二
+        assertEquals(FIRST_MONTH, getLabel(2016, Calendar.FEBRUARY, 8));                  //2016年春节
+        assertEquals("十五", getLabel(2016, Calendar.SEPTEMBER, 15));                      //中秋
+        assertEquals("闰六月", getLabel(2017, Calendar.JULY, 23));                          //2017年闰六月初一
+        assertEquals("初二", getLabel(2017, Calendar.JULY, 24));
+        //节气覆盖农历日
+        assertEquals("立春", getLabel(2016, Calendar.FEBRUARY, 4));
+        assertTrue(LunarCalendar.getMonthLabels(2016, Calendar.FEBRUARY).isSolarTerm(4));
+    }
+
+    @Test
+    public void springFestivalIsFirstDayOfFirstMonth() {
+        assertEquals(LunarCalendar.MAX_YEAR - FIRST_YEAR + 1, SPRING_FESTIVALS.length);
+        for (int i = 0; i < SPRING_FESTIVALS.length; i++) {
+            final int year = FIRST_YEAR + i;
+            final int month = SPRING_FESTIVALS[i] / 100 % 100 - 1;
+            final int day = SPRING_FESTIVALS[i] % 100;
+            assertEquals(year, SPRING_FESTIVALS[i] / 10000);
+
+            //节气会覆盖农历日，覆盖时只核对前后两天
+            assertLabel(year + " spring festival", year, month, day, FIRST_MONTH);
+            assertLabel(year + " day after", year, month, day + 1, "初二");
+            if (!isSolarTerm(year, month, day - 1)) {
+                final String eve = getLabel(year, month, day - 1);
+                assertTrue(year + " eve is " + eve, "廿九".equals(eve) || "三十".equals(eve));
+            }
+        }
+    }
+
+    @Test
+    public void onlySpringFestivalShowsFirstMonth() {
+        for (int i = 0; i < SPRING_FESTIVALS.length; i++) {
+            final int year = FIRST_YEAR + i;
+            final int festivalMonth = SPRING_FESTIVALS[i] / 100 % 100 - 1;
+            final int festivalDay = SPRING_FESTIVALS[i] % 100;
+            for (int month = Calendar.JANUARY; month <= Calendar.FEBRUARY; month++) {
+                final String[] labels = LunarCalendar.getMonthLabels(year, month).labels;
+                for (int day = 1; day <= CalendarDates.getDaysInMonth(month, year); day++) {
+                    if (month != festivalMonth || day != festivalDay) {
+                        assertTrue(year + "/" + (month + 1) + "/" + day, !FIRST_MONTH.equals(labels[day]));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertLabel(String message, int year, int month, int day, String expected) {
+        if (!isSolarTerm(year, month, day)) {
+            assertEquals(message, expected, getLabel(year, month, day));
+        }
+    }
+
+    private static String getLabel(int year, int month, int day) {
+        final int[] date = normalize(year, month, day);
+        return LunarCalendar.getMonthLabels(year, date[0]).labels[date[1]];
+    }
+
+    private static boolean isSolarTerm(int year, int month, int day) {
+        final int[] date = normalize(year, month, day);
+        return LunarCalendar.getMonthLabels(year, date[0]).isSolarTerm(date[1]);
+    }
+
+    /**
+     * day可以是0或者这个月的天数 + 1，表示上个月最后一天或下个月1号（春节前后不会跨年）
+     * @return  {月, 日}
+     */
+    private static int[] normalize(int year, int month, int day) {
+        if (day < 1) {
+            return new int[]{month - 1, CalendarDates.getDaysInMonth(month - 1, year)};
+        }
+        if (day > CalendarDates.getDaysInMonth(month, year)) {
+            return new int[]{month + 1, 1};
+        }
+        return new int[]{month, day};
+    }
+}
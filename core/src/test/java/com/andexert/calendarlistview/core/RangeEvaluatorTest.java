@@ -0,0 +1,193 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/23
+ * @description RangeEvaluator的间夜统计：几个具体日期的入住，以及随机的入住范围（包含跨年、离店不晚于入住的情况）和逐天统计的对比，
+ *              evaluate和evaluateParallel都要一致
+ */
+public class RangeEvaluatorTest {
+
+    private static final int RANGES = 200000;
+    private static final int FIRST_DAY = CalendarDates.getEpochDay(1995, Calendar.JANUARY, 1);
+    private static final int LAST_DAY = CalendarDates.getEpochDay(2035, Calendar.DECEMBER, 31);
+
+    @Test
+    public void knownStays() {
+        final Map<String, String> holidays = new HashMap<>();
+        holidays.put("20160101", "元旦");
+        holidays.put("20160708", "H");
+        final RangeEvaluator evaluator = new RangeEvaluator(new HolidayIndex(holidays));
+        final int[] checkIns = {
+                CalendarDates.getEpochDay(2016, Calendar.JULY, 4),                          //周一入住，住满一周
+                CalendarDates.getEpochDay(2015, Calendar.DECEMBER, 31),                     //跨年：周四、周五（元旦）、周六
+                CalendarDates.getEpochDay(2016, Calendar.JULY, 10),                         //周日入住，只住一晚
+                CalendarDates.getEpochDay(2016, Calendar.JULY, 10)                          //离店早于入住
+        };
+        final int[] checkOuts = {
+                CalendarDates.getEpochDay(2016, Calendar.JULY, 11),
+                CalendarDates.getEpochDay(2016, Calendar.JANUARY, 3),
+                CalendarDates.getEpochDay(2016, Calendar.JULY, 11),
+                CalendarDates.getEpochDay(2016, Calendar.JULY, 8)
+        };
+        final int[] nights = new int[4];
+        final int[] weekendNights = new int[4];
+        final int[] holidayNights = new int[4];
+
+        evaluator.evaluate(checkIns, checkOuts, nights, weekendNights, holidayNights);
+
+        assertArrayEquals(new int[]{7, 3, 1, 0}, nights);
+        assertArrayEquals(new int[]{2, 2, 0, 0}, weekendNights);
+        assertArrayEquals(new int[]{1, 1, 0, 0}, holidayNights);
+    }
+
+    @Test
+    public void evaluateMatchesDayByDayCount() {
+        final Random random = new Random(1);
+        final Fixture fixture = new Fixture(random);
+        final int[] nights = new int[RANGES];
+        final int[] weekendNights = new int[RANGES];
+        final int[] holidayNights = new int[RANGES];
+
+        fixture.evaluator.evaluate(fixture.checkIns, fixture.checkOuts, nights, weekendNights, holidayNights);
+
+        for (int i = 0; i < RANGES; i++) {
+            assertEquals("nights " + i, fixture.expectedNights[i], nights[i]);
+            assertEquals("weekend nights " + i, fixture.expectedWeekendNights[i], weekendNights[i]);
+            assertEquals("holiday nights " + i, fixture.expectedHolidayNights[i], holidayNights[i]);
+        }
+    }
+
+    @Test
+    public void evaluateParallelMatchesDayByDayCount() {
+        final Random random = new Random(2);
+        final Fixture fixture = new Fixture(random);
+        final int[] nights = new int[RANGES];
+        final int[] weekendNights = new int[RANGES];
+        final int[] holidayNights = new int[RANGES];
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            fixture.evaluator.evaluateParallel(fixture.checkIns, fixture.checkOuts, nights, weekendNights, holidayNights, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertArrayEquals(fixture.expectedNights, nights);
+        assertArrayEquals(fixture.expectedWeekendNights, weekendNights);
+        assertArrayEquals(fixture.expectedHolidayNights, holidayNights);
+    }
+
+    @Test
+    public void nullResultArraysAreSkipped() {
+        final RangeEvaluator evaluator = new RangeEvaluator(null);
+        final int[] checkIns = {100, 200};
+        final int[] checkOuts = {107, 190};
+        final int[] weekendNights = new int[2];
+
+        evaluator.evaluate(checkIns, checkOuts, null, weekendNights, null);
+
+        assertEquals(2, weekendNights[0]);
+        assertEquals(0, weekendNights[1]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedLengthsAreRejected() {
+        new RangeEvaluator(null).evaluate(new int[2], new int[3], new int[2], null, null);
+    }
+
+    /**
+     * 随机的节假日和入住范围，以及逐天统计出的期望结果
+     */
+    private static final class Fixture {
+        final RangeEvaluator evaluator;
+        final int[] checkIns = new int[RANGES];
+        final int[] checkOuts = new int[RANGES];
+        final int[] expectedNights = new int[RANGES];
+        final int[] expectedWeekendNights = new int[RANGES];
+        final int[] expectedHolidayNights = new int[RANGES];
+
+        Fixture(Random random) {
+            final Set<Integer> holidayDays = new HashSet<>();
+            final Map<String, String> holidays = new HashMap<>();
+            for (int i = 0; i < 600; i++) {
+                final int epochDay = FIRST_DAY + random.nextInt(LAST_DAY - FIRST_DAY);
+                holidayDays.add(epochDay);
+                holidays.put(toHolidayKey(epochDay), "H");
+            }
+            evaluator = new RangeEvaluator(new HolidayIndex(holidays));
+
+            final boolean[] weekend = new boolean[LAST_DAY - FIRST_DAY + 1];
+            final GregorianCalendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+            for (int day = FIRST_DAY; day <= LAST_DAY; day++) {
+                calendar.setTimeInMillis(day * 86400000L);
+                final int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+                weekend[day - FIRST_DAY] = dayOfWeek == Calendar.FRIDAY || dayOfWeek == Calendar.SATURDAY;
+            }
+
+            for (int i = 0; i < RANGES; i++) {
+                final int checkIn = FIRST_DAY + random.nextInt(LAST_DAY - FIRST_DAY - 400);
+                //大部分是几晚的短住，少量长住（跨年），少量离店不晚于入住
+                final int length = random.nextInt(10) == 0 ? random.nextInt(400) : random.nextInt(20) - 2;
+                final int checkOut = checkIn + length;
+                checkIns[i] = checkIn;
+                checkOuts[i] = checkOut;
+                for (int day = checkIn; day < checkOut; day++) {
+                    expectedNights[i]++;
+                    if (weekend[day - FIRST_DAY]) {
+                        expectedWeekendNights[i]++;
+                    }
+                    if (holidayDays.contains(day)) {
+                        expectedHolidayNights[i]++;
+                    }
+                }
+            }
+        }
+
+        private static String toHolidayKey(int epochDay) {
+            final int key = CalendarDates.toDateKey(epochDay);
+            final int year = key / 10000;
+            final int month = key / 100 % 100 + 1;
+            final int day = key % 100;
+            return String.valueOf(year * 10000 + month * 100 + day);
+        }
+    }
+}
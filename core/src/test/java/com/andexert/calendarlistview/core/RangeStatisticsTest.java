@@ -0,0 +1,181 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/24
+ * @description RangeStatistics的区间统计：几个具体日期的周末和价格，以及setValue/setValues之后sum/count和逐天累加的对比，
+ *              包含跨年和超出统计年份的区间
+ */
+public class RangeStatisticsTest {
+
+    private static final int FIRST_YEAR = 1999;
+    private static final int LAST_YEAR = 2004;
+
+    private final int mFirstDay = CalendarDates.getEpochDay(FIRST_YEAR, Calendar.JANUARY, 1);
+    private final int mEndDay = CalendarDates.getEpochDay(LAST_YEAR + 1, Calendar.JANUARY, 1);
+    //期望值覆盖统计年份前后各60天，超出统计年份的天数值始终为0
+    private final int mShadowStart = mFirstDay - 60;
+    private final long[] mShadow = new long[mEndDay + 60 - mShadowStart];
+
+    @Test
+    public void knownWeekendCounts() {
+        final RangeStatistics weekends = RangeStatistics.weekends(2015, 2017, RangeEvaluator.DEFAULT_WEEKEND_NIGHTS);
+        //2016年7月4日周一到11日周一：周五、周六两晚
+        assertEquals(2, weekends.count(CalendarDates.getEpochDay(2016, Calendar.JULY, 4),
+                CalendarDates.getEpochDay(2016, Calendar.JULY, 11)));
+        //周六入住周日离店
+        assertEquals(1, weekends.count(CalendarDates.getEpochDay(2016, Calendar.JULY, 9),
+                CalendarDates.getEpochDay(2016, Calendar.JULY, 10)));
+        //2016年1月1日是周五，闰年有53个周五和53个周六
+        assertEquals(106, weekends.count(CalendarDates.getEpochDay(2016, Calendar.JANUARY, 1),
+                CalendarDates.getEpochDay(2017, Calendar.JANUARY, 1)));
+        assertEquals(104, weekends.count(CalendarDates.getEpochDay(2015, Calendar.JANUARY, 1),
+                CalendarDates.getEpochDay(2016, Calendar.JANUARY, 1)));
+    }
+
+    @Test
+    public void knownPricesAcrossNewYear() {
+        final RangeStatistics prices = new RangeStatistics(2015, 2016);
+        final int newYearsEve = CalendarDates.getEpochDay(2015, Calendar.DECEMBER, 31);
+        prices.setValues(newYearsEve - 1, new long[]{100, 200, 300, 0, 500});
+        assertEquals(500, prices.sum(newYearsEve, newYearsEve + 2));
+        assertEquals(2, prices.count(newYearsEve, newYearsEve + 2));
+        //1月2日数值为0，不计入count
+        assertEquals(1100, prices.sum(newYearsEve - 1, newYearsEve + 4));
+        assertEquals(4, prices.count(newYearsEve - 1, newYearsEve + 4));
+
+        prices.setValue(newYearsEve, 250);
+        assertEquals(1150, prices.sum(newYearsEve - 1, newYearsEve + 4));
+        //超出统计年份的日期忽略
+        prices.setValue(CalendarDates.getEpochDay(2017, Calendar.JANUARY, 1), 999);
+        assertEquals(0, prices.getValue(CalendarDates.getEpochDay(2017, Calendar.JANUARY, 1)));
+    }
+
+    @Test
+    public void setValueMatchesDayByDaySum() {
+        final Random random = new Random(1);
+        final RangeStatistics statistics = new RangeStatistics(FIRST_YEAR, LAST_YEAR);
+        for (int round = 0; round < 3000; round++) {
+            final int epochDay = randomDay(random);
+            final long value = random.nextInt(4) == 0 ? 0 : random.nextInt(2000) - 500;
+            statistics.setValue(epochDay, value);
+            setShadow(epochDay, value);
+            assertEquals(expectedValue(epochDay), statistics.getValue(epochDay));
+            assertRandomRanges(random, statistics, 5);
+        }
+    }
+
+    @Test
+    public void setValuesMatchesDayByDaySum() {
+        final Random random = new Random(2);
+        final RangeStatistics statistics = new RangeStatistics(FIRST_YEAR, LAST_YEAR);
+        for (int round = 0; round < 500; round++) {
+            final int fromEpochDay = randomDay(random);
+            final long[] values = new long[random.nextInt(random.nextBoolean() ? 40 : 900)];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = random.nextInt(3) == 0 ? 0 : random.nextInt(1000);
+                setShadow(fromEpochDay + i, values[i]);
+            }
+            statistics.setValues(fromEpochDay, values);
+            assertRandomRanges(random, statistics, 20);
+        }
+    }
+
+    @Test
+    public void rangesAcrossYearBoundaries() {
+        final RangeStatistics statistics = new RangeStatistics(FIRST_YEAR, LAST_YEAR);
+        for (int epochDay = mFirstDay; epochDay < mEndDay; epochDay++) {
+            statistics.setValue(epochDay, epochDay % 3);
+            setShadow(epochDay, epochDay % 3);
+        }
+        for (int year = FIRST_YEAR; year <= LAST_YEAR + 1; year++) {
+            final int newYear = CalendarDates.getEpochDay(year, Calendar.JANUARY, 1);
+            for (int before = 0; before <= 3; before++) {
+                for (int after = 0; after <= 3; after++) {
+                    assertRange(statistics, newYear - before, newYear + after);
+                }
+            }
+            assertRange(statistics, newYear - 400, newYear + 400);
+        }
+        assertRange(statistics, mShadowStart, mShadowStart + mShadow.length);
+    }
+
+    @Test
+    public void weekendsMatchesDayOfWeek() {
+        final RangeStatistics statistics = RangeStatistics.weekends(FIRST_YEAR, LAST_YEAR,
+                RangeEvaluator.DEFAULT_WEEKEND_NIGHTS);
+        for (int epochDay = mFirstDay; epochDay < mEndDay; epochDay++) {
+            final int dayOfWeek = CalendarDates.getDayOfWeek(epochDay);
+            final boolean weekend = dayOfWeek == Calendar.FRIDAY || dayOfWeek == Calendar.SATURDAY;
+            setShadow(epochDay, weekend ? 1 : 0);
+        }
+        assertRandomRanges(new Random(3), statistics, 2000);
+    }
+
+    private void assertRandomRanges(Random random, RangeStatistics statistics, int ranges) {
+        for (int i = 0; i < ranges; i++) {
+            final int from = randomDay(random);
+            final int to = random.nextInt(8) == 0 ? from - random.nextInt(5) : from + random.nextInt(500);
+            assertRange(statistics, from, to);
+        }
+    }
+
+    private void assertRange(RangeStatistics statistics, int from, int to) {
+        long sum = 0;
+        int count = 0;
+        for (int epochDay = from; epochDay < to; epochDay++) {
+            final long value = expectedValue(epochDay);
+            sum += value;
+            if (value != 0) {
+                count++;
+            }
+        }
+        assertEquals("sum " + from + ".." + to, sum, statistics.sum(from, to));
+        assertEquals("count " + from + ".." + to, count, statistics.count(from, to));
+    }
+
+    private int randomDay(Random random) {
+        return mShadowStart + random.nextInt(mShadow.length);
+    }
+
+    private void setShadow(int epochDay, long value) {
+        if (epochDay >= mFirstDay && epochDay < mEndDay) {
+            mShadow[epochDay - mShadowStart] = value;
+        }
+    }
+
+    private long expectedValue(int epochDay) {
+        final int index = epochDay - mShadowStart;
+        return index < 0 || index >= mShadow.length ? 0 : mShadow[index];
+    }
+}
@@ -0,0 +1,238 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Calendar;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/26
+ * @description RecurrenceRule展开和IcsCalendar导入：COUNT换算成UNTIL、WEEKLY的INTERVAL和WKST、-1FR和BYMONTHDAY=-1、
+ *              YEARLY没有BYMONTH时的全年展开和全年序号、EXDATE和RECURRENCE-ID的排除、持续多天的事件延续到下个月
+ */
+public class RecurrenceRuleTest {
+
+    @Test
+    public void countResolvesToUntil() {
+        final RecurrenceRule rule = parse("FREQ=DAILY;COUNT=10", 2016, Calendar.JANUARY, 28, 1);
+        assertDays(rule, 2016, Calendar.JANUARY, 28, 29, 30, 31);
+        assertDays(rule, 2016, Calendar.FEBRUARY, 1, 2, 3, 4, 5, 6);
+        assertDays(rule, 2016, Calendar.MARCH);
+    }
+
+    @Test
+    public void countSkipsMonthsWithoutMatches() {
+        //2月、4月、6月没有31号，不计入COUNT
+        final RecurrenceRule rule = parse("FREQ=MONTHLY;COUNT=3;BYMONTHDAY=31", 2016, Calendar.JANUARY, 31, 1);
+        assertDays(rule, 2016, Calendar.JANUARY, 31);
+        assertDays(rule, 2016, Calendar.FEBRUARY);
+        assertDays(rule, 2016, Calendar.MARCH, 31);
+        assertDays(rule, 2016, Calendar.MAY, 31);
+        assertDays(rule, 2016, Calendar.JULY);
+    }
+
+    @Test
+    public void countIncludesExcludedDates() {
+        final RecurrenceRule rule = parse("FREQ=DAILY;COUNT=5", 2016, Calendar.MARCH, 1, 1);
+        rule.setExDates(new int[]{CalendarDates.getEpochDay(2016, Calendar.MARCH, 2)});
+        rule.resolveCount();
+        assertDays(rule, 2016, Calendar.MARCH, 1, 3, 4, 5);
+    }
+
+    @Test
+    public void countAndUntilUseTheEarlierEnd() {
+        final RecurrenceRule rule = parse("FREQ=WEEKLY;COUNT=10;UNTIL=20160315", 2016, Calendar.MARCH, 1, 1);
+        assertDays(rule, 2016, Calendar.MARCH, 1, 8, 15);
+    }
+
+    /**
+     * RFC 5545 3.8.5.3的例子：同一个规则，WKST不同时结果不同
+     */
+    @Test
+    public void weeklyIntervalDependsOnWeekStart() {
+        final RecurrenceRule monday = parse("FREQ=WEEKLY;INTERVAL=2;COUNT=4;BYDAY=TU,SU;WKST=MO",
+                1997, Calendar.AUGUST, 5, 1);
+        assertDays(monday, 1997, Calendar.AUGUST, 5, 10, 19, 24);
+        final RecurrenceRule sunday = parse("FREQ=WEEKLY;INTERVAL=2;COUNT=4;BYDAY=TU,SU;WKST=SU",
+                1997, Calendar.AUGUST, 5, 1);
+        assertDays(sunday, 1997, Calendar.AUGUST, 5, 17, 19, 31);
+    }
+
+    @Test
+    public void weeklyWithoutByDayUsesStartWeekday() {
+        final RecurrenceRule rule = parse("FREQ=WEEKLY;INTERVAL=3", 2016, Calendar.JANUARY, 6, 1);
+        assertDays(rule, 2016, Calendar.JANUARY, 6, 27);
+        assertDays(rule, 2016, Calendar.FEBRUARY, 17);
+    }
+
+    @Test
+    public void lastFridayOfMonth() {
+        final RecurrenceRule rule = parse("FREQ=MONTHLY;BYDAY=-1FR", 2016, Calendar.JANUARY, 1, 1);
+        assertDays(rule, 2016, Calendar.JANUARY, 29);
+        assertDays(rule, 2016, Calendar.FEBRUARY, 26);
+        assertDays(rule, 2016, Calendar.MARCH, 25);
+        assertDays(rule, 2016, Calendar.APRIL, 29);
+        assertDays(rule, 2016, Calendar.SEPTEMBER, 30);
+    }
+
+    @Test
+    public void lastDayOfMonth() {
+        final RecurrenceRule rule = parse("FREQ=MONTHLY;BYMONTHDAY=-1", 2016, Calendar.JANUARY, 1, 1);
+        assertDays(rule, 2016, Calendar.JANUARY, 31);
+        assertDays(rule, 2016, Calendar.FEBRUARY, 29);
+        assertDays(rule, 2016, Calendar.APRIL, 30);
+        assertDays(rule, 2017, Calendar.FEBRUARY, 28);
+    }
+
+    @Test
+    public void yearlyByMonthDayExpandsToEveryMonth() {
+        final RecurrenceRule rule = parse("FREQ=YEARLY;BYMONTHDAY=1", 2016, Calendar.JANUARY, 1, 1);
+        for (int month = Calendar.JANUARY; month <= Calendar.DECEMBER; month++) {
+            assertDays(rule, 2016, month, 1);
+        }
+        assertDays(rule, 2017, Calendar.JANUARY, 1);
+    }
+
+    /**
+     * RFC 5545 3.8.5.3的例子：每年的第20个星期一
+     */
+    @Test
+    public void yearlyByDayOrdinalCountsWithinTheYear() {
+        final RecurrenceRule rule = parse("FREQ=YEARLY;BYDAY=20MO", 1997, Calendar.MAY, 19, 1);
+        assertDays(rule, 1997, Calendar.MAY, 19);
+        assertDays(rule, 1998, Calendar.JANUARY);
+        assertDays(rule, 1998, Calendar.MAY, 18);
+        assertDays(rule, 1999, Calendar.MAY, 17);
+
+        final RecurrenceRule lastFriday = parse("FREQ=YEARLY;BYDAY=-1FR", 2016, Calendar.JANUARY, 1, 1);
+        assertDays(lastFriday, 2016, Calendar.JANUARY);
+        assertDays(lastFriday, 2016, Calendar.DECEMBER, 30);
+    }
+
+    @Test
+    public void yearlyByDayWithByMonthCountsWithinTheMonth() {
+        final RecurrenceRule rule = parse("FREQ=YEARLY;BYMONTH=3;BYDAY=1SU", 2016, Calendar.JANUARY, 1, 1);
+        assertDays(rule, 2016, Calendar.JANUARY);
+        assertDays(rule, 2016, Calendar.MARCH, 6);
+        assertDays(rule, 2017, Calendar.MARCH, 5);
+
+        final RecurrenceRule mondays = parse("FREQ=YEARLY;BYDAY=MO", 2016, Calendar.JANUARY, 1, 1);
+        assertDays(mondays, 2016, Calendar.JANUARY, 4, 11, 18, 25);
+        assertDays(mondays, 2016, Calendar.FEBRUARY, 1, 8, 15, 22, 29);
+    }
+
+    @Test
+    public void exDateAndRecurrenceIdAreExcluded() throws IOException {
+        final IcsCalendar calendar = IcsCalendar.parse(new StringReader(ics(
+                "BEGIN:VEVENT",
+                "UID:weekly",
+                "DTSTART;VALUE=DATE:20160104",
+                "RRULE:FREQ=WEEKLY;COUNT=5",
+                "EXDATE;VALUE=DATE:20160111,20160125",
+                "END:VEVENT",
+                //单独修改过的一次：18号改到20号
+                "BEGIN:VEVENT",
+                "UID:weekly",
+                "RECURRENCE-ID;VALUE=DATE:20160118",
+                "DTSTART;VALUE=DATE:20160120",
+                "END:VEVENT")));
+        assertEquals(2, calendar.getEventCount());
+        assertEquals(1, calendar.getRecurringEventCount());
+        //COUNT=5：4、11、18、25、2月1号，去掉11、25（EXDATE）和18（RECURRENCE-ID），加上20号
+        assertMonthCounts(calendar, 2016, Calendar.JANUARY, 4, 20);
+        assertMonthCounts(calendar, 2016, Calendar.FEBRUARY, 1);
+        assertMonthCounts(calendar, 2016, Calendar.MARCH);
+    }
+
+    @Test
+    public void multiDayEventsSpillIntoNextMonth() throws IOException {
+        final IcsCalendar calendar = IcsCalendar.parse(new StringReader(ics(
+                "BEGIN:VEVENT",
+                "DTSTART;VALUE=DATE:20160130",
+                "DTEND;VALUE=DATE:20160203",
+                "RRULE:FREQ=MONTHLY;BYMONTHDAY=30",
+                "END:VEVENT",
+                "BEGIN:VEVENT",
+                "DTSTART;VALUE=DATE:20151230",
+                "DURATION:P4D",
+                "RRULE:FREQ=YEARLY",
+                "END:VEVENT")));
+        //1月30号开始的4天延续到2月2号，2月没有30号
+        assertMonthCounts(calendar, 2016, Calendar.FEBRUARY, 1, 2);
+        assertMonthCounts(calendar, 2016, Calendar.MARCH, 30, 31);
+        assertMonthCounts(calendar, 2016, Calendar.APRIL, 1, 2, 30);
+        //每年12月30号开始的4天跨年，和每月30号的事件叠加
+        assertMonthCounts(calendar, 2016, Calendar.DECEMBER, 1, 2, 3, 30, 30, 31, 31);
+        assertMonthCounts(calendar, 2017, Calendar.JANUARY, 1, 1, 2, 2, 30, 31);
+    }
+
+    private static RecurrenceRule parse(String value, int year, int month, int day, int durationDays) {
+        final RecurrenceRule rule = RecurrenceRule.parse(value, CalendarDates.getEpochDay(year, month, day), durationDays);
+        rule.resolveCount();
+        return rule;
+    }
+
+    /**
+     * 一个月中有事件的日期，每个事件一次，同一天有两个事件时出现两次
+     */
+    private static void assertDays(RecurrenceRule rule, int year, int month, int... expected) {
+        final int numDays = CalendarDates.getDaysInMonth(month, year);
+        final int[] counts = new int[numDays];
+        rule.addCounts(CalendarDates.getEpochDay(year, month, 1), counts, numDays);
+        assertArrayEquals(year + "/" + (month + 1), expected, toDays(counts, 0));
+    }
+
+    private static void assertMonthCounts(IcsCalendar calendar, int year, int month, int... expected) {
+        final int[] counts = new int[HolidayIndex.MONTH_LABELS_SIZE];
+        calendar.getMonthCounts(year, month, counts);
+        assertArrayEquals(year + "/" + (month + 1), expected, toDays(counts, 1));
+    }
+
+    private static int[] toDays(int[] counts, int firstDayIndex) {
+        int[] days = new int[0];
+        for (int i = 0; i < counts.length; i++) {
+            for (int n = 0; n < counts[i]; n++) {
+                days = Arrays.copyOf(days, days.length + 1);
+                days[days.length - 1] = i - firstDayIndex + 1;
+            }
+        }
+        return days;
+    }
+
+    private static String ics(String... eventLines) {
+        final StringBuilder builder = new StringBuilder("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n");
+        for (String line : eventLines) {
+            builder.append(line).append("\r\n");
+        }
+        return builder.append("END:VCALENDAR\r\n").toString();
+    }
+}
@@ -0,0 +1,71 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import com.andexert.calendarlistview.core.CacheRegistry;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/1
+ * @description onTrimMemory时按优先级淘汰CacheRegistry中的缓存，内存越紧张保留得越少。
+ * ComponentCallbacks2从API 14开始才有，只能在判断版本之后创建
+ */
+final class CacheTrimCallbacks implements ComponentCallbacks2 {
+
+    CacheTrimCallbacks() {
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        final float keepFraction;
+        if (level >= TRIM_MEMORY_COMPLETE) {
+            keepFraction = 0f;
+        } else if (level >= TRIM_MEMORY_MODERATE) {
+            keepFraction = 0.25f;
+        } else if (level >= TRIM_MEMORY_BACKGROUND) {
+            keepFraction = 0.5f;
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            keepFraction = 0.75f;                                                           //界面不可见，回来时还需要当前几个月
+        } else if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            keepFraction = 0.25f;
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            keepFraction = 0.5f;
+        } else {
+            keepFraction = 0.75f;
+        }
+        CacheRegistry.getDefault().trim(keepFraction);
+    }
+
+    @Override
+    public void onLowMemory() {
+        CacheRegistry.getDefault().trim(0f);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+}
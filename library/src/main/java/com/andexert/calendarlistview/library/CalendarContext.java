@@ -0,0 +1,91 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import com.andexert.calendarlistview.core.CalendarDates;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/27
+ * @description 不可变的日历环境：时区、Locale、一周的第一天和今天的日期，创建时一次算成int
+ *              绑定和绘制只读取这里的字段，不再访问共享的Calendar；时区等变化时整体换成新的对象
+ */
+final class CalendarContext {
+
+    static final int WEEK_START_DEFAULT = 0;                                                //使用Locale默认的一周第一天
+
+    final TimeZone timeZone;
+    final Locale locale;
+    final int weekStart;                                                                    //Calendar.SUNDAY - Calendar.SATURDAY
+    final int todayYear;
+    final int todayMonth;                                                                   //0 - 11
+    final int todayDay;
+    final int todayEpochDay;
+
+    private CalendarContext(TimeZone timeZone, Locale locale, int weekStart) {
+        this.timeZone = timeZone;
+        this.locale = locale;
+        Calendar calendar = Calendar.getInstance(timeZone, locale);
+        this.weekStart = weekStart == WEEK_START_DEFAULT ? calendar.getFirstDayOfWeek() : weekStart;
+        todayYear = calendar.get(Calendar.YEAR);
+        todayMonth = calendar.get(Calendar.MONTH);
+        todayDay = calendar.get(Calendar.DAY_OF_MONTH);
+        todayEpochDay = CalendarDates.getEpochDay(todayYear, todayMonth, todayDay);
+    }
+
+    /**
+     * @param timeZone
+     * @param locale
+     * @param weekStart     Calendar.SUNDAY - Calendar.SATURDAY，WEEK_START_DEFAULT表示使用Locale默认值
+     * @return
+     */
+    static CalendarContext create(TimeZone timeZone, Locale locale, int weekStart) {
+        if (weekStart != WEEK_START_DEFAULT && (weekStart < Calendar.SUNDAY || weekStart > Calendar.SATURDAY)) {
+            throw new IllegalArgumentException("Invalid week start: " + weekStart);
+        }
+        return new CalendarContext(timeZone, locale, weekStart);
+    }
+
+    CalendarContext withTimeZone(TimeZone timeZone) {
+        return new CalendarContext(timeZone, locale, weekStart);
+    }
+
+    CalendarContext withWeekStart(int weekStart) {
+        return create(timeZone, locale, weekStart);
+    }
+
+    /**
+     * 时区、Locale、一周的第一天和今天都相同时不需要重新绑定
+     * @param other
+     * @return
+     */
+    boolean isSameAs(CalendarContext other) {
+        return other != null && weekStart == other.weekStart && todayEpochDay == other.todayEpochDay
+                && timeZone.getID().equals(other.timeZone.getID()) && locale.equals(other.locale);
+    }
+}
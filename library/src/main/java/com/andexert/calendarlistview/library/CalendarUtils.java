@@ -25,38 +25,73 @@ package com.andexert.calendarlistview.library;
 
 import android.content.Context;
 
+import com.andexert.calendarlistview.core.CalendarDates;
+import com.andexert.calendarlistview.core.DayLabelSource;
+import com.andexert.calendarlistview.core.HolidayIndex;
+
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 
 public class CalendarUtils {
 
-    public static Map<String, String> holidayMap;
+    private static Map<String, String> sHolidayMap;                                          //只能通过setHolidays替换，不可修改
+    private static HolidayIndex sHolidayIndex;
+
+    /**
+     * 节假日作为DayLabelRegistry中的一层，默认以DayPickerView.LABEL_PRIORITY_HOLIDAY注册
+     */
+    static final DayLabelSource HOLIDAY_LABELS = new DayLabelSource() {
+        @Override
+        public String[] getMonthLabels(int year, int month) {
+            return getMonthHolidays(year, month);
+        }
+    };
     public static final String[] DEFAULT_WEEK_DAYS = new String[]{"日","一","二","三", "四","五","六"};
 
 	public static int getDaysInMonth(int month, int year) {
-        switch (month) {
-            case Calendar.JANUARY:
-            case Calendar.MARCH:
-            case Calendar.MAY:
-            case Calendar.JULY:
-            case Calendar.AUGUST:
-            case Calendar.OCTOBER:
-            case Calendar.DECEMBER:
-                return 31;
-            case Calendar.APRIL:
-            case Calendar.JUNE:
-            case Calendar.SEPTEMBER:
-            case Calendar.NOVEMBER:
-                return 30;
-            case Calendar.FEBRUARY:
-                return ((year % 4 == 0 && year % 100 != 0) || (year % 400 == 0)) ? 29 : 28;
-            default:
-                throw new IllegalArgumentException("Invalid Month");
-        }
+        return CalendarDates.getDaysInMonth(month, year);
 	}
 
+    /**
+     * 获取某一天是星期几，不需要创建Calendar
+     * @param year
+     * @param month     0 - 11
+     * @param day
+     * @return  Calendar.SUNDAY - Calendar.SATURDAY
+     */
+    public static int getDayOfWeek(int year, int month, int day) {
+        return CalendarDates.getDayOfWeek(year, month, day);
+    }
+
+    /**
+     * 从1970-01-01开始的天数，和时区无关
+     * @param year
+     * @param month     0 - 11
+     * @param day
+     * @return
+     */
+    public static int getEpochDay(int year, int month, int day) {
+        return CalendarDates.getEpochDay(year, month, day);
+    }
+
+    /**
+     * 获取某一天中午12点的时间戳（默认时区）
+     * @param year
+     * @param month     0 - 11
+     * @param day
+     * @return
+     */
+    public static long getTimeInMillis(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, 12, 0, 0);
+        return calendar.getTimeInMillis();
+    }
+
 
     /**
      * 是否节假日
@@ -67,16 +102,61 @@ public class CalendarUtils {
      * @return
      */
     public static String getDaysHoliday(Context context, int year, int month, int day) {
-        if(holidayMap == null || holidayMap.size() <= 0) {
-            return null;
+        String[] labels = getMonthHolidays(year, month - 1);
+        return labels == null ? null : labels[day];
+    }
+
+    /**
+     * 获取某个月的节假日
+     * @param year
+     * @param month     0 - 11
+     * @return  下标为日期的数组，这个月没有节假日时返回null
+     */
+    static String[] getMonthHolidays(int year, int month) {
+        HolidayIndex holidayIndex = getHolidayIndex();
+        return holidayIndex == null ? null : holidayIndex.getMonthLabels(year, month);
+    }
+
+    /**
+     * 当前设置的节假日
+     * @return  不可修改，需要变化时调用DayPickerView.setHoliday
+     */
+    public static synchronized Map<String, String> getHolidays() {
+        return sHolidayMap == null ? Collections.<String, String>emptyMap() : sHolidayMap;
+    }
+
+    /**
+     * 替换节假日，保存的是副本，之后修改传入的Map不会生效。索引在第一次使用时建立
+     * @param holidays  为null时清空
+     */
+    static synchronized void setHolidays(Map<String, String> holidays) {
+        setHolidayIndex(holidays, null);
+    }
+
+    /**
+     * 当前节假日的索引，只在setHolidays之后重新建立
+     * @return  没有节假日时返回null
+     */
+    static synchronized HolidayIndex getHolidayIndex() {
+        if (sHolidayIndex == null && sHolidayMap != null) {
+            sHolidayIndex = new HolidayIndex(sHolidayMap);
         }
+        return sHolidayIndex;
+    }
 
-        Integer key = year * 10000 + month * 100 + day;
-        String value = null;
-        if(holidayMap.containsKey(key.toString())) {
-            value = holidayMap.get(key.toString());
+    /**
+     * 使用已经建立好的索引（PreparedPicker在后台线程建立），之后的getHolidayIndex不再重建
+     * @param holidays
+     * @param holidayIndex  为null时在第一次使用时建立
+     */
+    static synchronized void setHolidayIndex(Map<String, String> holidays, HolidayIndex holidayIndex) {
+        if (holidays == null || holidays.isEmpty()) {
+            sHolidayMap = null;
+            sHolidayIndex = null;
+            return;
         }
-        return value;
+        sHolidayMap = Collections.unmodifiableMap(new LinkedHashMap<>(holidays));
+        sHolidayIndex = holidayIndex;
     }
 
 
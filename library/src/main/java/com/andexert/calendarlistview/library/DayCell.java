@@ -0,0 +1,65 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/22
+ * @description 绘制一天时需要的状态和格子位置，由MonthRenderer在绘制前计算好交给DayCellRenderer
+ *              对象在同一个线程绘制的所有月份之间复用，不要在绘制方法之外持有
+ */
+public class DayCell {
+
+    public static final int FLAG_SELECTED = 1;                                              //选中的开始或结束日
+    public static final int FLAG_SINGLE_DAY = 1 << 1;                                       //开始和结束是同一天
+    public static final int FLAG_IN_RANGE = 1 << 2;                                         //开始和结束之间（不包含两端）
+    public static final int FLAG_HOLIDAY = 1 << 3;                                          //节假日
+    public static final int FLAG_TODAY = 1 << 4;                                            //今天
+    public static final int FLAG_PREVIOUS = 1 << 5;                                         //不可选的过去日期
+    public static final int FLAG_SOLAR_TERM = 1 << 6;                                       //附加标签是节气
+
+    public int year;
+    public int month;                                                                       //0 - 11
+    public int day;
+    public int flags;
+    public String label;                                                                    //代替日期数字显示的节假日名称，没有时为null
+    public int textColor;                                                                   //按默认规则计算出的文字颜色
+    public String secondaryLabel;                                                           //日期下面的农历或节气，没有开启农历时为null
+    public int secondaryColor;
+    public int value;                                                                       //推送的当天数据（价格、库存等），没有时为DayValueStore.NO_VALUE
+    public int eventCount;                                                                  //这一天的事件数量
+
+    public float centerX;                                                                   //格子中心X
+    public float textY;                                                                     //日期文字的基线
+    public float secondaryY;                                                                //附加标签的基线
+    public float indicatorY;                                                                //选中背景的中心Y
+    public float left;
+    public float top;
+    public float right;
+    public float bottom;
+
+    public boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+}
@@ -0,0 +1,54 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.graphics.Canvas;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/22
+ * @description 自定义日期格子的绘制。MonthRenderer按阶段调用：先绘制所有格子的背景，再绘制所有主文字，最后绘制所有附加标签（价格、角标等）
+ *              每个阶段拿到的是整个月的格子，实现时应在一个阶段内只切换一次画笔状态，而不是每个格子都重新设置
+ *              通过MonthRenderer在后台线程绘制时也会被调用，实现需要自己保证线程安全
+ */
+public interface DayCellRenderer {
+
+    /**
+     * 背景阶段（选中的开始、结束日的背景等），选中范围的背景已经由MonthRenderer按行绘制好
+     * @param canvas
+     * @param cells     这个月的格子，下标0为1号
+     * @param count     这个月的天数
+     */
+    void drawBackgrounds(Canvas canvas, DayCell[] cells, int count);
+
+    /**
+     * 主文字阶段（日期数字或节假日名称）
+     */
+    void drawPrimaryText(Canvas canvas, DayCell[] cells, int count);
+
+    /**
+     * 附加标签阶段（价格、"仅剩1间"、活动角标等）
+     */
+    void drawSecondary(Canvas canvas, DayCell[] cells, int count);
+}
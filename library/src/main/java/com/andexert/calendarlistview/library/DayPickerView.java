@@ -23,17 +23,56 @@
  ***********************************************************************************/
 package com.andexert.calendarlistview.library;
 
+import android.app.ActivityManager;
 import android.content.Context;
 import android.content.res.TypedArray;
-import android.support.v7.widget.LinearLayoutManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewConfiguration;
 
+import com.andexert.calendarlistview.core.BlockedDays;
+import com.andexert.calendarlistview.core.BudgetedCache;
+import com.andexert.calendarlistview.core.CacheRegistry;
+import com.andexert.calendarlistview.core.CalendarDates;
+import com.andexert.calendarlistview.core.DayLabelRegistry;
+import com.andexert.calendarlistview.core.DayLabelSource;
+import com.andexert.calendarlistview.core.DayValueStore;
+import com.andexert.calendarlistview.core.EventIndex;
+import com.andexert.calendarlistview.core.IcsCalendar;
+import com.andexert.calendarlistview.core.MonthEventSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class DayPickerView extends RecyclerView {
 
     public static final String DEFAULT_TIME_ZONE = "GMT+8";                                                 //东八时区
+    public static final int LABEL_PRIORITY_HOLIDAY = 300;                                                   //setHoliday设置的节假日在标签中的优先级
+    private static final int DEFAULT_MAX_RECYCLED_VIEWS = 5;                                                //RecycledViewPool默认每种类型缓存5个
+    private static final int CACHE_BUDGET_DIVISOR = 128;                                                    //缓存总预算为应用内存上限的1/128
+    private static boolean sCacheBudgetInstalled = false;
+    private static final int DEFAULT_LOW_DETAIL_VELOCITY_DP = 3000;                                        //超过这个速度(dp/s)的快速滑动只绘制简化的月份
+    private static final int WORKER_KEEP_ALIVE_SECONDS = 30;                                                //共用的后台线程空闲这么久之后退出
+    private static Executor sDefaultExecutor;                                                               //所有日历共用的后台线程
 
     protected Context mContext;
 	protected SimpleMonthAdapter mAdapter;
@@ -44,6 +83,34 @@ public class DayPickerView extends RecyclerView {
     private TypedArray typedArray;
     private OnScrollListener onScrollListener;
     private String mTimeZone = DEFAULT_TIME_ZONE;
+    private int mPendingWarmUpCount = 0;                                                    //setController之前请求的预创建数量
+    private MessageQueue.IdleHandler mWarmUpHandler;
+    private int mLowDetailVelocity;                                                         //px/s，<= 0 时不启用简化绘制
+    private boolean mLowDetail = false;
+    private long mLastScrolledTime;
+    private DayCellRenderer mDayCellRenderer;                                               //setController之前设置的日期格子绘制
+    private SelectionDelta.OnSelectionChangedListener mOnSelectionChangedListener;
+    private SavedState mPendingSavedState;                                                  //setController之前恢复的状态
+    private RetainedCaches mPendingRetainedCaches;
+    private MonthEventSource mEventSource;                                                  //setController之前设置的事件标记
+    private int mEventLoadVersion = 0;                                                      //后台建立索引时，只使用最后一次请求的结果
+    private Executor mExecutor;                                                             //建立事件索引使用的后台线程，null时使用共用的线程
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());               //后台结果交回主线程，没有显示时也不会丢失
+    private PickerStats mStats;                                                             //setController之前设置的运行计数
+    private Boolean mShowLunar;                                                             //setController之前设置的是否显示农历，null时使用xml属性
+    private int mFirstDayOfWeek = CalendarContext.WEEK_START_DEFAULT;                       //一周的第一天，0时使用Locale默认值
+    private MonthLayoutManager mLayoutManager;
+    private int mMinFlingVelocity;                                                          //分页模式下超过这个速度才翻页
+    private boolean mPrebuildPageLayers = false;                                            //分页模式下为当前页和相邻两页预先建立硬件层
+    private boolean mStickyHeader = false;                                                  //标题和星期固定在顶部，由MonthHeaderDecoration绘制
+    private MonthHeaderDecoration mHeaderDecoration;
+    private int mStickyHeaderPadding = 0;                                                   //为固定标题增加的paddingTop
+    private final List<BudgetedCache> mRegisteredCaches = new ArrayList<>();                //登记在CacheRegistry中的这个控件的缓存
+    private boolean mAttachedToWindow = false;
+    private final DayValueStore mDayValues = new DayValueStore();                           //推送的每天数据
+    private DayValueUpdater mDayValueUpdater;                                               //按帧合并推送的数据
+    private final BlockedDays mBlockedDays = new BlockedDays();                             //不可预订的日期，用于查找可预订的窗口
+    private DayLabelRegistry mLabelRegistry = new DayLabelRegistry();                       //按优先级合并的标签来源
 
 
     public DayPickerView(Context context) {
@@ -66,45 +133,825 @@ public class DayPickerView extends RecyclerView {
     public void setController(DatePickerController mController) {
         this.mController = mController;
         setUpAdapter();
+        setHasFixedSize(mAdapter.isFixedMonthHeight());
         setAdapter(mAdapter);
+        if (mPendingSavedState != null) {
+            applySavedState(mPendingSavedState);
+        }
+        if (mPendingWarmUpCount > 0) {
+            warmUpViewHolders(mPendingWarmUpCount);
+        }
+    }
+
+    /**
+     * 使用PreparedPicker在后台准备好的样式、节假日、事件和第一屏的月份，主线程只创建Adapter。
+     * 样式来自准备时的Spec，布局中的属性只有pagedMonths和stickyHeader仍然有效
+     * @param mController
+     * @param prepared  每个只能使用一次
+     */
+    public void setController(DatePickerController mController, PreparedPicker prepared) {
+        prepared.markAttached();
+        final MonthRenderContext rc = prepared.renderContext;
+        mTimeZone = prepared.timeZone;
+        mFirstDayOfWeek = prepared.firstDayOfWeek;
+        //之前通过addLabelSource添加的来源继续有效
+        rc.labelRegistry.registerAll(mLabelRegistry);
+        mLabelRegistry = rc.labelRegistry;
+        if (mEventSource == null) {
+            mEventSource = rc.eventSource;
+        }
+        mAdapter = new SimpleMonthAdapter(getContext(), mController, prepared.typedArray, rc);
+        setController(mController);
+    }
+
+    /**
+     * 每个月固定显示6行。所有月份高度相同，滑动复用时不会触发重新布局
+     * @param fixedMonthHeight
+     */
+    public void setFixedMonthHeight(boolean fixedMonthHeight) {
+        setHasFixedSize(fixedMonthHeight);
+        if (mAdapter != null) {
+            mAdapter.setFixedMonthHeight(fixedMonthHeight);
+        }
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        if (mAdapter != null) {
+            savedState.selectedFirst = mAdapter.getSelectedFirstEpochDay();
+            savedState.selectedLast = mAdapter.getSelectedLastEpochDay();
+            View anchor = getChildAt(0);
+            int position = anchor == null ? NO_POSITION : getChildAdapterPosition(anchor);
+            if (position != NO_POSITION) {
+                savedState.anchorMonth = mAdapter.getMonthIndex(position);
+                savedState.anchorOffset = mLayoutManager.isPaged() ? mLayoutManager.getDecoratedLeft(anchor) - getPaddingLeft()
+                        : mLayoutManager.getDecoratedTop(anchor) - getPaddingTop();
+            }
+        } else if (mPendingSavedState != null) {
+            savedState.copyFrom(mPendingSavedState);
+        }
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        if (mAdapter == null) {
+            mPendingSavedState = savedState;
+        } else {
+            applySavedState(savedState);
+        }
+    }
+
+    /**
+     * 恢复选择和滚动位置。旋转后还没有布局，只有第一次布局时绑定一次可见的月份
+     * @param savedState
+     */
+    private void applySavedState(SavedState savedState) {
+        mPendingSavedState = null;
+        mAdapter.restoreSelection(savedState.selectedFirst, savedState.selectedLast);
+        if (getChildCount() > 0) {
+            mAdapter.notifyDataSetChanged();
+        }
+        if (savedState.anchorMonth != NO_POSITION) {
+            int position = mAdapter.getPositionForMonth(savedState.anchorMonth / 12, savedState.anchorMonth % 12);
+            if (position != NO_POSITION) {
+                mLayoutManager.scrollToPositionWithOffset(position, savedState.anchorOffset);
+            }
+        }
+    }
+
+    /**
+     * 配置变化（旋转、切换字体大小等）时可以保留的缓存，配合Fragment.setRetainInstance或onRetainNonConfigurationInstance使用
+     * 月份网格、节假日索引和农历是进程内的静态缓存，本来就不会因为配置变化丢失，这里保留的是和Adapter绑定的标题缓存
+     * @return  setController之前返回null
+     */
+    public RetainedCaches getRetainedCaches() {
+        if (mAdapter == null) {
+            return null;
+        }
+        return new RetainedCaches(Locale.getDefault(), mAdapter.getRenderContext().getMonthTitles());
+    }
+
+    /**
+     * 使用之前保留的缓存，Locale变化后缓存会被忽略
+     * @param retainedCaches
+     */
+    public void setRetainedCaches(RetainedCaches retainedCaches) {
+        if (mAdapter == null) {
+            mPendingRetainedCaches = retainedCaches;
+            return;
+        }
+        mPendingRetainedCaches = null;
+        if (retainedCaches != null && retainedCaches.locale.equals(Locale.getDefault())) {
+            mAdapter.getRenderContext().putMonthTitles(retainedCaches.monthTitles);
+        }
+    }
+
+    /**
+     * 选择变化的合并回调：同一帧内的多次点击只回调一次，包含变化前后的范围和受影响的月份
+     * @param onSelectionChangedListener
+     */
+    public void setOnSelectionChangedListener(SelectionDelta.OnSelectionChangedListener onSelectionChangedListener) {
+        mOnSelectionChangedListener = onSelectionChangedListener;
+        if (mAdapter != null) {
+            mAdapter.setOnSelectionChangedListener(onSelectionChangedListener);
+        }
+    }
+
+    /**
+     * 设置每天的事件数量（EventIndex、导入的日历等），日期下面绘制圆点标记
+     * @param eventSource   为null时不绘制
+     */
+    public void setEventSource(MonthEventSource eventSource) {
+        mEventLoadVersion++;
+        mEventSource = eventSource;
+        if (mAdapter != null) {
+            mAdapter.setEventSource(eventSource);
+        }
+        registerCaches();
+    }
+
+    public MonthEventSource getEventSource() {
+        return mEventSource;
+    }
+
+    /**
+     * 后台任务（loadEvents、importIcs）使用的线程，可以和PreparedPicker.prepare使用同一个Executor
+     * @param executor  为null时使用所有日历共用的一个后台线程
+     */
+    public void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    private Executor getExecutor() {
+        return mExecutor != null ? mExecutor : getDefaultExecutor();
+    }
+
+    /**
+     * 所有日历共用的一个后台线程，空闲一段时间后退出，下次使用时重新创建
+     */
+    private static synchronized Executor getDefaultExecutor() {
+        if (sDefaultExecutor == null) {
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    return new Thread(runnable, "DayPickerView-worker");
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            sDefaultExecutor = executor;
+        }
+        return sDefaultExecutor;
+    }
+
+    /**
+     * 在后台线程建立事件索引，完成后在主线程设置为事件标记
+     * @param startEpochDays    事件开始的纪元日
+     * @param endEpochDays      事件结束的纪元日（不包含），为null时每个事件只占一天
+     */
+    public void loadEvents(final int[] startEpochDays, final int[] endEpochDays) {
+        final int version = ++mEventLoadVersion;
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final EventIndex eventIndex = EventIndex.build(startEpochDays, endEpochDays);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (version == mEventLoadVersion) {
+                            setEventSource(eventIndex);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在后台线程流式解析 .ics 文件，完成后在主线程设置为事件标记。重复事件只在月份绑定时按月展开
+     * @param reader    解析结束后关闭
+     * @param listener  可以为null，在主线程回调一次。导入期间又设置了其他事件时，导入的结果只回调，不再设置为事件标记
+     */
+    public void importIcs(final Reader reader, final OnIcsImportListener listener) {
+        final int version = ++mEventLoadVersion;
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                IcsCalendar calendar = null;
+                IOException error = null;
+                try {
+                    calendar = IcsCalendar.parse(reader);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    try {
+                        reader.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+                final IcsCalendar result = calendar;
+                final IOException failure = error;
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (result != null && version == mEventLoadVersion) {
+                            setEventSource(result);
+                        }
+                        if (listener != null) {
+                            if (result != null) {
+                                listener.onIcsImported(result);
+                            } else {
+                                listener.onIcsImportFailed(failure);
+                            }
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 增加一个事件，只刷新它所在的月份。当前的事件标记不是EventIndex时会新建一个
+     * @param startEpochDay
+     * @param endEpochDay   不包含
+     */
+    public void addEvent(int startEpochDay, int endEpochDay) {
+        if (!(mEventSource instanceof EventIndex)) {
+            setEventSource(new EventIndex());
+        }
+        ((EventIndex) mEventSource).add(startEpochDay, endEpochDay);
+        if (mAdapter != null) {
+            mAdapter.notifyDaysChanged(startEpochDay, endEpochDay);
+        }
+    }
+
+    /**
+     * 删除一个之前增加过的事件
+     * @param startEpochDay
+     * @param endEpochDay   不包含
+     */
+    public void removeEvent(int startEpochDay, int endEpochDay) {
+        if (!(mEventSource instanceof EventIndex)) {
+            return;
+        }
+        ((EventIndex) mEventSource).remove(startEpochDay, endEpochDay);
+        if (mAdapter != null) {
+            mAdapter.notifyDaysChanged(startEpochDay, endEpochDay);
+        }
+    }
+
+    /**
+     * 推送一天的数据（价格、库存等），可以在任意线程调用。同一帧内的推送合并到下一帧统一写入，
+     * 只重绘可见月份中变化的格子，不调用notifyDataSetChanged。自定义DayCellRenderer从DayCell.value读取
+     * @param epochDay
+     * @param value     DayValueStore.NO_VALUE表示删除
+     */
+    public void pushDayValue(int epochDay, int value) {
+        mDayValueUpdater.push(epochDay, value);
+    }
+
+    /**
+     * 一次推送多天的数据，适合大量的连续更新
+     * @param epochDays
+     * @param values
+     * @param count     使用数组前count个元素，调用返回后数组可以重复使用
+     */
+    public void pushDayValues(int[] epochDays, int[] values, int count) {
+        mDayValueUpdater.push(epochDays, values, count);
+    }
+
+    /**
+     * 已经写入的每天数据，推送的数据在下一帧才能读到
+     */
+    public DayValueStore getDayValues() {
+        return mDayValues;
+    }
+
+    /**
+     * 日期下面显示农历和节气（支持1900 - 2100年，节气支持2000 - 2099年）
+     * @param showLunar
+     */
+    public void setShowLunar(boolean showLunar) {
+        mShowLunar = showLunar;
+        if (mAdapter != null) {
+            mAdapter.setShowLunar(showLunar);
+        }
+    }
+
+    /**
+     * 统计创建、绑定、测量、绘制和Adapter通知的次数，用于对比滚动等场景的开销
+     * @param stats     为null时停止统计
+     */
+    public void setStats(PickerStats stats) {
+        mStats = stats;
+        if (mAdapter != null) {
+            mAdapter.setStats(stats);
+        }
+    }
+
+    public PickerStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * 使用这个日历的样式、节假日、事件和推送数据绘制月份，不需要创建控件，可以在后台线程生成小部件或分享图片。
+     * 时区或一周的第一天变化后需要重新获取
+     * @return  还没有设置Controller时为null
+     */
+    public MonthRenderer getMonthRenderer() {
+        return mAdapter == null ? null : mAdapter.getRenderContext().renderer;
     }
 
     /**
-     * 设置节假日
-     * @param holiday    节假日
+     * 自定义日期格子的绘制（价格、角标等），按背景、主文字、附加标签三个阶段批量绘制
+     * @param renderer  为null时恢复默认绘制
+     */
+    public void setDayCellRenderer(DayCellRenderer renderer) {
+        mDayCellRenderer = renderer;
+        if (mAdapter != null) {
+            mAdapter.setDayCellRenderer(renderer);
+        }
+    }
+
+    /**
+     * 默认的日期格子绘制，setController之前返回null
+     * @return
+     */
+    public DayCellRenderer getDefaultDayCellRenderer() {
+        return mAdapter == null ? null : mAdapter.getDefaultDayCellRenderer();
+    }
+
+    /**
+     * 与另一个DayPickerView共享RecycledViewPool，同一个界面里多个日历时可以复用已经创建好的月份控件
+     * 只应该在主题（行高、标题高度等样式）相同的日历之间共享：主题不同时控件每次换到另一个日历都要重新测量和布局，
+     * 共享带来的节省就没有了
+     * @param other     共享缓存池的日历
+     */
+    public void sharePoolWith(DayPickerView other) {
+        setRecycledViewPool(other.getRecycledViewPool());
+    }
+
+    /**
+     * 在主线程空闲时预先创建月份控件放入RecycledViewPool，避免第一次滑动时集中创建导致卡顿
+     * 每次空闲只创建一个，不会阻塞当前帧
+     * @param count     预创建的数量
+     */
+    public void warmUpViewHolders(final int count) {
+        if (mAdapter == null || mController == null) {
+            mPendingWarmUpCount = count;
+            return;
+        }
+        mPendingWarmUpCount = 0;
+        if (mWarmUpHandler != null) {
+            Looper.myQueue().removeIdleHandler(mWarmUpHandler);
+        }
+        final RecycledViewPool pool = getRecycledViewPool();
+        pool.setMaxRecycledViews(0, Math.max(count, DEFAULT_MAX_RECYCLED_VIEWS));
+        mWarmUpHandler = new MessageQueue.IdleHandler() {
+            private int created = 0;
+
+            @Override
+            public boolean queueIdle() {
+                if (created >= count || mAdapter == null) {
+                    mWarmUpHandler = null;
+                    return false;
+                }
+                pool.putRecycledView(mAdapter.createViewHolder(DayPickerView.this, 0));
+                created++;
+                return true;
+            }
+        };
+        Looper.myQueue().addIdleHandler(mWarmUpHandler);
+    }
+
+    /**
+     * 按内存等级设置所有缓存的总预算，API 14以上在内存紧张时按优先级淘汰。进程内只执行一次
+     */
+    private static synchronized void installCacheBudget(Context context) {
+        if (sCacheBudgetInstalled) {
+            return;
+        }
+        sCacheBudgetInstalled = true;
+        final Context appContext = context.getApplicationContext();
+        final ActivityManager activityManager = (ActivityManager) appContext.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager != null) {
+            CacheRegistry.getDefault().setBudgetBytes(activityManager.getMemoryClass() * 1024L * 1024L / CACHE_BUDGET_DIVISOR);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            appContext.registerComponentCallbacks(new CacheTrimCallbacks());
+        }
+    }
+
+    /**
+     * 显示在窗口中时，把合并的标签、格子内文字排版和.ics展开结果登记到CacheRegistry，和静态缓存共用预算
+     */
+    private void registerCaches() {
+        unregisterCaches();
+        if (!mAttachedToWindow) {
+            return;
+        }
+        final CacheRegistry registry = CacheRegistry.getDefault();
+        mRegisteredCaches.add(mLabelRegistry.getCache());
+        registry.register("merged_labels", mLabelRegistry.getCache(), 20, 2);
+        if (mAdapter != null) {
+            final BudgetedCache fittedLabels = mAdapter.getRenderContext().paints.fittedLabels.getCache();
+            mRegisteredCaches.add(fittedLabels);
+            registry.register("fitted_labels", fittedLabels, 40, 2);
+        }
+        if (mEventSource instanceof IcsCalendar) {
+            final BudgetedCache expandedMonths = ((IcsCalendar) mEventSource).getExpandedMonthCache();
+            mRegisteredCaches.add(expandedMonths);
+            registry.register("ics_months", expandedMonths, 50, 2);
+        }
+    }
+
+    private void unregisterCaches() {
+        final CacheRegistry registry = CacheRegistry.getDefault();
+        for (BudgetedCache cache : mRegisteredCaches) {
+            registry.unregister(cache);
+        }
+        mRegisteredCaches.clear();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttachedToWindow = true;
+        registerCaches();
+        if (mDayValueUpdater != null) {
+            mDayValueUpdater.onAttachedToWindow();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttachedToWindow = false;
+        unregisterCaches();
+        if (mDayValueUpdater != null) {
+            mDayValueUpdater.onDetachedFromWindow();
+        }
+        if (mWarmUpHandler != null) {
+            Looper.myQueue().removeIdleHandler(mWarmUpHandler);
+            mWarmUpHandler = null;
+        }
+    }
+
+    /**
+     * 设置节假日，所有日历共用。保存的是副本，修改传入的Map之后需要再次调用
+     * @param holiday    节假日，为null时清空
      */
     public void setHoliday(Map<String, String> holiday) {
-        CalendarUtils.holidayMap = holiday;
+        CalendarUtils.setHolidays(holiday);
+        if (mAdapter != null) {
+            //只重新合并、刷新节假日有变化的月份
+            mAdapter.notifyHolidaysChanged();
+        }
+    }
+
+    /**
+     * 增加一层标签来源（地区节日、促销等），同一天有多个标签时显示优先级最高的
+     * setHoliday设置的节假日是优先级为LABEL_PRIORITY_HOLIDAY的一层
+     * @param source
+     * @param priority  数值越大越优先，已经添加过时更新优先级
+     */
+    public void addLabelSource(DayLabelSource source, int priority) {
+        mLabelRegistry.register(source, priority);
+        if (mAdapter != null) {
+            mAdapter.notifyDataSetChanged();
+        }
+    }
+
+    public void removeLabelSource(DayLabelSource source) {
+        if (mLabelRegistry.unregister(source) && mAdapter != null) {
+            mAdapter.notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * 某个标签来源在这些日期上的标签有变化，只重新合并、刷新这些日期所在的月份
+     * @param startEpochDay
+     * @param endEpochDay   不包含
+     */
+    public void notifyLabelsChanged(int startEpochDay, int endEpochDay) {
+        if (mAdapter != null) {
+            mAdapter.notifyLabelsChanged(startEpochDay, endEpochDay);
+        } else {
+            mLabelRegistry.invalidate(startEpochDay, endEpochDay);
+        }
+    }
+
+    /**
+     * 跳转到某个月
+     * @param year
+     * @param month     0 - 11
+     */
+    public void scrollToMonth(int year, int month) {
+        if (mAdapter == null) {
+            return;
+        }
+        int position = mAdapter.getPositionForMonth(year, month);
+        if (position == NO_POSITION) {
+            return;
+        }
+        stopScroll();
+        mLayoutManager.scrollToPositionWithOffset(position, 0);
+    }
+
+    /**
+     * 跳转到某一天所在的月
+     * @param epochDay
+     */
+    public void scrollToDate(int epochDay) {
+        final int key = CalendarDates.toDateKey(epochDay);
+        scrollToMonth(key / 10000, key / 100 % 100);
+    }
+
+    /**
+     * 不可预订的日期，由使用者写入（可以在后台线程），selectNextWindow在这里查找
+     * @return
+     */
+    public BlockedDays getBlockedDays() {
+        return mBlockedDays;
+    }
+
+    /**
+     * 查找第一个连续nights晚都可预订的窗口，选中它并跳转到入住日所在的月
+     * @param fromEpochDay  最早的入住日
+     * @param nights        晚数
+     * @param endEpochDay   最晚的离店日（包含）
+     * @return              入住日的纪元日，找不到时为BlockedDays.NO_WINDOW，这时选择不变。还没有设置Controller时只查找不选中
+     */
+    public int selectNextWindow(int fromEpochDay, int nights, int endEpochDay) {
+        final int checkIn = mBlockedDays.findNextWindow(fromEpochDay, nights, endEpochDay);
+        if (checkIn == BlockedDays.NO_WINDOW || mAdapter == null) {
+            return checkIn;
+        }
+        mAdapter.setSelectedRange(checkIn, checkIn + nights);
+        scrollToDate(checkIn);
+        return checkIn;
+    }
+
+    /**
+     * 创建年视图的Adapter（一屏显示一年12个月），点击某个月时当前日历跳转到这个月
+     * @return
+     */
+    public YearOverviewAdapter createYearOverviewAdapter() {
+        return new YearOverviewAdapter(this);
     }
 
 
 	public void init(Context paramContext) {
-        setLayoutManager(new LinearLayoutManager(paramContext));
+        mLayoutManager = new MonthLayoutManager(paramContext);
+        mLayoutManager.setPaged(typedArray.getBoolean(R.styleable.DayPickerView_pagedMonths, false));
+        mStickyHeader = typedArray.getBoolean(R.styleable.DayPickerView_stickyHeader, false);
+        mLabelRegistry.register(CalendarUtils.HOLIDAY_LABELS, LABEL_PRIORITY_HOLIDAY);
+        installCacheBudget(paramContext);
+        mDayValueUpdater = new DayValueUpdater(this, mDayValues);
+        setLayoutManager(mLayoutManager);
 		mContext = paramContext;
-		setUpListView();
+        mLowDetailVelocity = (int) (DEFAULT_LOW_DETAIL_VELOCITY_DP * paramContext.getResources().getDisplayMetrics().density);
+        mMinFlingVelocity = ViewConfiguration.get(paramContext).getScaledMinimumFlingVelocity();
 
         onScrollListener = new OnScrollListener() {
             @Override
-            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-                final SimpleMonthView child = (SimpleMonthView) recyclerView.getChildAt(0);
-                if (child == null) {
-                    return;
+            public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+                super.onScrollStateChanged(recyclerView, newState);
+                mPreviousScrollState = mCurrentScrollState;
+                mCurrentScrollState = newState;
+                //惯性滑动结束或者用户重新拖动时恢复完整绘制
+                if (newState != SCROLL_STATE_SETTLING) {
+                    setLowDetail(false);
+                }
+                //分页模式：松手时没有触发fling，对齐到最近的一页；对齐完成后预先准备相邻的月份
+                if (newState == SCROLL_STATE_IDLE && mLayoutManager.isPaged()) {
+                    if (!scrollToPage(mLayoutManager.findCurrentPage())) {
+                        prebuildPageLayers();
+                    }
                 }
+            }
 
+            @Override
+            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                super.onScrolled(recyclerView, dx, dy);
+                final long now = SystemClock.uptimeMillis();
+                final long elapsed = now - mLastScrolledTime;
+                mLastScrolledTime = now;
                 mPreviousScrollPosition = dy;
-                mPreviousScrollState = mCurrentScrollState;
+
+                //减速到阈值以下时提前恢复完整绘制
+                if (mLowDetail && elapsed > 0 && (Math.abs(dx) + Math.abs(dy)) * 1000L / elapsed < mLowDetailVelocity) {
+                    setLowDetail(false);
+                }
             }
         };
+		setUpListView();
 	}
 
+    @Override
+    public boolean fling(int velocityX, int velocityY) {
+        if (mLayoutManager.isPaged()) {
+            return flingToPage(velocityX);
+        }
+        final boolean fling = super.fling(velocityX, velocityY);
+        if (fling && mLowDetailVelocity > 0 && Math.max(Math.abs(velocityX), Math.abs(velocityY)) >= mLowDetailVelocity) {
+            mLastScrolledTime = SystemClock.uptimeMillis();
+            setLowDetail(true);
+        }
+        return fling;
+    }
+
+    /**
+     * 星期一行和当前月份的标题固定在顶部，月份标题改由ItemDecoration绘制，每个月只绘制日期网格
+     * 每个月少绘制一次标题和一行星期，高度也更小，一次绑定能显示更多行
+     * @param stickyHeader
+     */
+    public void setStickyHeader(boolean stickyHeader) {
+        mStickyHeader = stickyHeader;
+        if (mAdapter != null) {
+            applyStickyHeader();
+        }
+    }
+
+    public boolean isStickyHeader() {
+        return mStickyHeader;
+    }
+
+    private void applyStickyHeader() {
+        if (mStickyHeader == (mHeaderDecoration != null)) {
+            return;
+        }
+        if (mStickyHeader) {
+            mHeaderDecoration = new MonthHeaderDecoration(mAdapter, mLayoutManager);
+            mStickyHeaderPadding = mHeaderDecoration.getPinnedHeight();
+            addItemDecoration(mHeaderDecoration);
+            setPadding(getPaddingLeft(), getPaddingTop() + mStickyHeaderPadding, getPaddingRight(), getPaddingBottom());
+        } else {
+            removeItemDecoration(mHeaderDecoration);
+            mHeaderDecoration = null;
+            setPadding(getPaddingLeft(), getPaddingTop() - mStickyHeaderPadding, getPaddingRight(), getPaddingBottom());
+            mStickyHeaderPadding = 0;
+        }
+        mAdapter.setHeaderDecorated(mStickyHeader);
+    }
+
+    /**
+     * 横向分页模式：一屏一个月，滑动后自动对齐到整页，适合只放得下一个月的场景
+     * 与竖向列表共用同一个Adapter、月份网格和标题缓存
+     * @param pagedMonths
+     */
+    public void setPagedMonths(boolean pagedMonths) {
+        if (mLayoutManager.isPaged() == pagedMonths) {
+            return;
+        }
+        int position = mLayoutManager.isPaged() ? mLayoutManager.findCurrentPage() : mLayoutManager.findFirstVisibleItemPosition();
+        stopScroll();
+        mLayoutManager.setPaged(pagedMonths);
+        if (!pagedMonths) {
+            clearPageLayers();
+        }
+        if (position != NO_POSITION) {
+            mLayoutManager.scrollToPositionWithOffset(position, 0);
+        }
+    }
+
+    public boolean isPagedMonths() {
+        return mLayoutManager.isPaged();
+    }
+
+    /**
+     * 分页模式下，停下时为当前页和相邻两页建立硬件层，翻页时只需要合成，不再执行onDraw（API 11以上有效）
+     * 每一页占用一张页面大小的纹理，内存紧张时不建议开启
+     * @param prebuildPageLayers
+     */
+    public void setPrebuildPageLayers(boolean prebuildPageLayers) {
+        mPrebuildPageLayers = prebuildPageLayers;
+        if (prebuildPageLayers) {
+            prebuildPageLayers();
+        } else {
+            clearPageLayers();
+        }
+    }
+
+    /**
+     * 根据速度决定翻到下一页、上一页还是回到当前页
+     * @param velocityX
+     * @return  是否开始滚动
+     */
+    private boolean flingToPage(int velocityX) {
+        int first = mLayoutManager.findFirstVisibleItemPosition();
+        if (first == NO_POSITION) {
+            return false;
+        }
+        int target;
+        if (Math.abs(velocityX) < mMinFlingVelocity) {
+            target = mLayoutManager.findCurrentPage();
+        } else {
+            //first是左边露出的那一页，向后翻页时目标是它的下一页
+            target = velocityX > 0 ? first + 1 : first;
+        }
+        return scrollToPage(target);
+    }
+
+    /**
+     * 平滑滚动到某一页
+     * @param page
+     * @return  已经对齐时返回false
+     */
+    private boolean scrollToPage(int page) {
+        if (mAdapter == null || page == NO_POSITION) {
+            return false;
+        }
+        page = Math.max(0, Math.min(page, mAdapter.getItemCount() - 1));
+        View target = mLayoutManager.findViewByPosition(page);
+        if (target == null) {
+            smoothScrollToPosition(page);
+            return true;
+        }
+        int dx = mLayoutManager.getDecoratedLeft(target) - getPaddingLeft();
+        if (dx == 0) {
+            return false;
+        }
+        smoothScrollBy(dx, 0);
+        return true;
+    }
+
+    private void prebuildPageLayers() {
+        if (!mPrebuildPageLayers || !mLayoutManager.isPaged() || Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            return;
+        }
+        int page = mLayoutManager.findCurrentPage();
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            int position = getChildAdapterPosition(child);
+            boolean near = position != NO_POSITION && Math.abs(position - page) <= 1;
+            ViewCompat.setLayerType(child, near ? ViewCompat.LAYER_TYPE_HARDWARE : ViewCompat.LAYER_TYPE_NONE, null);
+            if (near) {
+                child.buildLayer();
+            }
+        }
+    }
+
+    private void clearPageLayers() {
+        for (int i = 0; i < getChildCount(); i++) {
+            ViewCompat.setLayerType(getChildAt(i), ViewCompat.LAYER_TYPE_NONE, null);
+        }
+    }
+
+    /**
+     * 设置简化绘制的速度阈值，快速滑动时只绘制月份标题和日期数字
+     * @param velocity      px/s，<= 0 时关闭
+     */
+    public void setLowDetailVelocity(int velocity) {
+        mLowDetailVelocity = velocity;
+        if (velocity <= 0) {
+            setLowDetail(false);
+        }
+    }
+
+    private void setLowDetail(boolean lowDetail) {
+        if (mLowDetail == lowDetail || mAdapter == null) {
+            return;
+        }
+        mLowDetail = lowDetail;
+        mAdapter.setLowDetail(lowDetail);
+        if (!lowDetail) {
+            //只需要重绘当前可见的月份，其他月份在绑定时会按完整模式绘制
+            for (int i = 0; i < getChildCount(); i++) {
+                getChildAt(i).invalidate();
+            }
+        }
+    }
+
     /**
      * 设置时区
      * @param timeZone
      */
     public void setTimeZone(String timeZone) {
         mTimeZone = timeZone;
-        setUpAdapter();
+        if (mAdapter != null) {
+            //只替换日历环境，Adapter内部刷新一次
+            mAdapter.setTimeZone(timeZone);
+        }
+    }
+
+    /**
+     * 设置一周的第一天
+     * @param firstDayOfWeek    Calendar.SUNDAY - Calendar.SATURDAY，0表示使用Locale默认值
+     */
+    public void setFirstDayOfWeek(int firstDayOfWeek) {
+        mFirstDayOfWeek = firstDayOfWeek;
+        if (mAdapter != null) {
+            mAdapter.setFirstDayOfWeek(firstDayOfWeek);
+        }
     }
 
 	protected void setUpAdapter() {
@@ -112,6 +959,25 @@ public class DayPickerView extends RecyclerView {
 			mAdapter = new SimpleMonthAdapter(getContext(), mController, typedArray, mTimeZone);
         }
         mAdapter.setTimeZone(mTimeZone);
+        mAdapter.setFirstDayOfWeek(mFirstDayOfWeek);
+        mAdapter.setLabelRegistry(mLabelRegistry);
+        if (mDayCellRenderer != null) {
+            mAdapter.setDayCellRenderer(mDayCellRenderer);
+        }
+        if (mShowLunar != null) {
+            mAdapter.setShowLunar(mShowLunar);
+        }
+        mAdapter.setStats(mStats);
+        mAdapter.setDayValueStore(mDayValues);
+        mAdapter.setOnSelectionChangedListener(mOnSelectionChangedListener);
+        if (mEventSource != null) {
+            mAdapter.setEventSource(mEventSource);
+        }
+        if (mPendingRetainedCaches != null) {
+            setRetainedCaches(mPendingRetainedCaches);
+        }
+        applyStickyHeader();
+        registerCaches();
 		mAdapter.notifyDataSetChanged();
 	}
 
@@ -132,4 +998,78 @@ public class DayPickerView extends RecyclerView {
     protected TypedArray getTypedArray() {
         return typedArray;
     }
-}
\ No newline at end of file
+
+    /**
+     * 保存的状态只有几个int：选择的开始、结束（纪元日），第一个可见的月份和它的偏移
+     */
+    public static class SavedState extends BaseSavedState {
+        int selectedFirst = SelectionDelta.NO_DAY;
+        int selectedLast = SelectionDelta.NO_DAY;
+        int anchorMonth = NO_POSITION;                                                      //year * 12 + month
+        int anchorOffset = 0;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcelable superState, Parcel in) {
+            super(superState);
+            selectedFirst = in.readInt();
+            selectedLast = in.readInt();
+            anchorMonth = in.readInt();
+            anchorOffset = in.readInt();
+        }
+
+        void copyFrom(SavedState other) {
+            selectedFirst = other.selectedFirst;
+            selectedLast = other.selectedLast;
+            anchorMonth = other.anchorMonth;
+            anchorOffset = other.anchorOffset;
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(selectedFirst);
+            out.writeInt(selectedLast);
+            out.writeInt(anchorMonth);
+            out.writeInt(anchorOffset);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                //RecyclerView的状态在support包中，需要用这里的ClassLoader读取
+                Parcelable superState = in.readParcelable(RecyclerView.class.getClassLoader());
+                return new SavedState(superState, in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
+     * 配置变化时保留的缓存
+     */
+    public static final class RetainedCaches {
+        final Locale locale;
+        final SparseArray<String> monthTitles;
+
+        RetainedCaches(Locale locale, SparseArray<String> monthTitles) {
+            this.locale = locale;
+            this.monthTitles = monthTitles;
+        }
+    }
+
+    /**
+     * importIcs的结果回调，在主线程调用
+     */
+    public interface OnIcsImportListener {
+        void onIcsImported(IcsCalendar calendar);
+
+        void onIcsImportFailed(IOException e);
+    }
+}
@@ -0,0 +1,174 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseIntArray;
+import android.view.View;
+
+import com.andexert.calendarlistview.core.CalendarDates;
+import com.andexert.calendarlistview.core.DayValueStore;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/2
+ * @description 推送的每天数据按帧合并：任意线程都可以推送，同一帧内的更新只在下一帧开始时统一写入DayValueStore，
+ * 然后只重绘可见月份中变化的格子。不可见的月份不做处理，下次绘制时发现版本变化再重新读取。
+ * 安排下一帧总是先切换到主线程：API 24以前，没有显示在窗口中的控件post的任务会丢失，这时等到onAttachedToWindow再安排
+ */
+final class DayValueUpdater implements Runnable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final RecyclerView mRecyclerView;
+    private final DayValueStore mStore;
+    private final SparseIntArray mDirtyMonths = new SparseIntArray();                      //year * 12 + month -> 变化日期的位，只在主线程使用
+    private int[] mPendingDays = new int[INITIAL_CAPACITY];                                 //这一帧等待写入的更新，加锁访问
+    private int[] mPendingValues = new int[INITIAL_CAPACITY];
+    private int mPendingCount = 0;
+    private int[] mApplyDays = new int[INITIAL_CAPACITY];                                   //正在写入的更新，和mPending交换使用
+    private int[] mApplyValues = new int[INITIAL_CAPACITY];
+    private boolean mScheduled = false;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private boolean mAttached = false;                                                      //以下两个只在主线程使用
+    private boolean mWaitingForAttach = false;                                              //没有显示时推送的数据等到显示后再写入
+
+    private final Runnable mScheduleFrame = new Runnable() {
+        @Override
+        public void run() {
+            if (mAttached) {
+                ViewCompat.postOnAnimation(mRecyclerView, DayValueUpdater.this);
+            } else {
+                mWaitingForAttach = true;
+            }
+        }
+    };
+
+    DayValueUpdater(RecyclerView recyclerView, DayValueStore store) {
+        mRecyclerView = recyclerView;
+        mStore = store;
+    }
+
+    /**
+     * 在主线程调用，安排没有显示时推送的数据
+     */
+    void onAttachedToWindow() {
+        mAttached = true;
+        if (mWaitingForAttach) {
+            mWaitingForAttach = false;
+            ViewCompat.postOnAnimation(mRecyclerView, this);
+        }
+    }
+
+    void onDetachedFromWindow() {
+        mAttached = false;
+    }
+
+    /**
+     * 可以在任意线程调用，这一帧第一次推送时安排下一帧写入
+     */
+    void push(int[] epochDays, int[] values, int count) {
+        final boolean schedule;
+        synchronized (this) {
+            ensureCapacity(mPendingCount + count);
+            System.arraycopy(epochDays, 0, mPendingDays, mPendingCount, count);
+            System.arraycopy(values, 0, mPendingValues, mPendingCount, count);
+            mPendingCount += count;
+            schedule = !mScheduled;
+            mScheduled = true;
+        }
+        if (schedule) {
+            mMainHandler.post(mScheduleFrame);
+        }
+    }
+
+    void push(int epochDay, int value) {
+        final boolean schedule;
+        synchronized (this) {
+            ensureCapacity(mPendingCount + 1);
+            mPendingDays[mPendingCount] = epochDay;
+            mPendingValues[mPendingCount] = value;
+            mPendingCount++;
+            schedule = !mScheduled;
+            mScheduled = true;
+        }
+        if (schedule) {
+            mMainHandler.post(mScheduleFrame);
+        }
+    }
+
+    @Override
+    public void run() {
+        final int count;
+        synchronized (this) {
+            int[] days = mPendingDays;
+            int[] values = mPendingValues;
+            mPendingDays = mApplyDays;
+            mPendingValues = mApplyValues;
+            mApplyDays = days;
+            mApplyValues = values;
+            count = mPendingCount;
+            mPendingCount = 0;
+            mScheduled = false;
+        }
+
+        //按顺序写入，同一天的多次更新以最后一次为准
+        final SparseIntArray dirtyMonths = mDirtyMonths;
+        dirtyMonths.clear();
+        for (int i = 0; i < count; i++) {
+            mStore.put(mApplyDays[i], mApplyValues[i]);
+            final int key = CalendarDates.toDateKey(mApplyDays[i]);
+            final int monthIndex = key / 10000 * 12 + key / 100 % 100;
+            dirtyMonths.put(monthIndex, dirtyMonths.get(monthIndex) | (1 << (key % 100)));
+        }
+
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            final View child = mRecyclerView.getChildAt(i);
+            if (!(child instanceof SimpleMonthView)) {
+                continue;
+            }
+            final SimpleMonthView monthView = (SimpleMonthView) child;
+            final int dayMask = dirtyMonths.get(monthView.getMonthIndex());
+            if (dayMask != 0) {
+                monthView.invalidateDays(dayMask);
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= mPendingDays.length) {
+            return;
+        }
+        final int newCapacity = Math.max(capacity, mPendingDays.length * 2);
+        int[] days = new int[newCapacity];
+        int[] values = new int[newCapacity];
+        System.arraycopy(mPendingDays, 0, days, 0, mPendingCount);
+        System.arraycopy(mPendingValues, 0, values, 0, mPendingCount);
+        mPendingDays = days;
+        mPendingValues = values;
+    }
+}
@@ -0,0 +1,194 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+import java.util.Arrays;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/22
+ * @description 默认的日期格子绘制。文字按颜色分组绘制，每种颜色只设置一次画笔。
+ * 节假日名称和农历经过FittedLabelCache排版，绘制时不测量文字。画笔来自所属线程的MonthPaints，每个线程一个实例
+ */
+class DefaultDayCellRenderer implements DayCellRenderer {
+
+    private static final int INITIAL_COLORS = 8;                                            //颜色更多时（例如按价格着色）数组会扩大
+    private static final int MAX_EVENT_DOTS = 3;                                            //超过3个事件也只画3个点
+
+    private final MonthRenderContext mRenderContext;
+    private final MonthPaints mPaints;
+    private int[] mColors = new int[INITIAL_COLORS];
+
+    DefaultDayCellRenderer(MonthRenderContext renderContext, MonthPaints paints) {
+        mRenderContext = renderContext;
+        mPaints = paints;
+    }
+
+    @Override
+    public void drawBackgrounds(Canvas canvas, DayCell[] cells, int count) {
+        final MonthRenderContext rc = mRenderContext;
+        final int radius = rc.daySelectedCircleSize;
+        for (int i = 0; i < count; i++) {
+            final DayCell cell = cells[i];
+            if (!cell.hasFlag(DayCell.FLAG_SELECTED)) {
+                continue;
+            }
+            if (rc.drawRect) {
+                final RectF rectF = mPaints.tempRect;
+                rectF.set(cell.centerX - radius, cell.indicatorY - radius, cell.centerX + radius, cell.indicatorY + radius);
+                canvas.drawRoundRect(rectF, 10.0f, 10.0f, mPaints.selectedCirclePaint);
+            } else {
+                canvas.drawCircle(cell.centerX, cell.indicatorY, radius, mPaints.selectedCirclePaint);
+            }
+        }
+    }
+
+    @Override
+    public void drawPrimaryText(Canvas canvas, DayCell[] cells, int count) {
+        final MonthRenderContext rc = mRenderContext;
+        final Paint paint = mPaints.monthNumPaint;
+        paint.setTypeface(Typeface.defaultFromStyle(Typeface.NORMAL));
+        paint.setTextSize(rc.miniDayNumberTextSize);
+        drawTextByColor(canvas, cells, count, paint, false);
+        drawTextByColor(canvas, cells, count, paint, true);
+    }
+
+    @Override
+    public void drawSecondary(Canvas canvas, DayCell[] cells, int count) {
+        final Paint paint = mPaints.monthNumPaint;
+        final FittedLabelCache fittedLabels = mPaints.fittedLabels;
+        final int textSize = mRenderContext.lunarTextSize;
+        int colorCount = 0;
+        for (int i = 0; i < count; i++) {
+            final DayCell cell = cells[i];
+            if (cell.secondaryLabel == null) {
+                continue;
+            }
+            colorCount = addColor(cell.secondaryColor, colorCount);
+        }
+
+        for (int c = 0; c < colorCount; c++) {
+            final int color = mColors[c];
+            paint.setColor(color);
+            for (int i = 0; i < count; i++) {
+                final DayCell cell = cells[i];
+                if (cell.secondaryLabel != null && cell.secondaryColor == color) {
+                    final FittedLabelCache.FittedLabel fitted = fittedLabels.get(cell.secondaryLabel, (int) (cell.right - cell.left), textSize, paint);
+                    if (paint.getTextSize() != fitted.textSize) {
+                        paint.setTextSize(fitted.textSize);
+                    }
+                    canvas.drawText(fitted.text, cell.centerX, cell.secondaryY + fitted.baselineOffset, paint);
+                }
+            }
+        }
+
+        //事件标记：选中背景上用选中文字颜色，其他用事件颜色，画笔最多切换一次
+        final Paint eventPaint = mPaints.eventPaint;
+        eventPaint.setColor(mRenderContext.eventColor);
+        drawEventDots(canvas, cells, count, eventPaint, false);
+        eventPaint.setColor(mRenderContext.monthTitleBGColor);
+        drawEventDots(canvas, cells, count, eventPaint, true);
+    }
+
+    private void drawEventDots(Canvas canvas, DayCell[] cells, int count, Paint paint, boolean onSelection) {
+        final MonthRenderContext rc = mRenderContext;
+        final float radius = rc.eventDotRadius;
+        for (int i = 0; i < count; i++) {
+            final DayCell cell = cells[i];
+            if (cell.eventCount <= 0 || cell.hasFlag(DayCell.FLAG_SELECTED | DayCell.FLAG_IN_RANGE) != onSelection) {
+                continue;
+            }
+            int dots = Math.min(cell.eventCount, MAX_EVENT_DOTS);
+            float y = cell.indicatorY + rc.daySelectedCircleSize - radius * 2;
+            float x = cell.centerX - (dots - 1) * radius * 1.5f;
+            for (int d = 0; d < dots; d++) {
+                canvas.drawCircle(x, y, radius, paint);
+                x += radius * 3;
+            }
+        }
+    }
+
+    /**
+     * 把颜色加入这一阶段的颜色列表，已经存在时不重复加入
+     * @return  加入后的颜色数量
+     */
+    private int addColor(int color, int colorCount) {
+        for (int i = 0; i < colorCount; i++) {
+            if (mColors[i] == color) {
+                return colorCount;
+            }
+        }
+        if (colorCount == mColors.length) {
+            mColors = Arrays.copyOf(mColors, colorCount * 2);
+        }
+        mColors[colorCount] = color;
+        return colorCount + 1;
+    }
+
+    /**
+     * 同一种颜色的文字一起绘制
+     * @param labels    true绘制节假日名称，false绘制日期数字
+     */
+    private void drawTextByColor(Canvas canvas, DayCell[] cells, int count, Paint paint, boolean labels) {
+        final FittedLabelCache fittedLabels = mPaints.fittedLabels;
+        final int labelTextSize = mRenderContext.vacationLabelTextSize;
+        if (labels) {
+            paint.setTextSize(labelTextSize);
+        }
+        int colorCount = 0;
+        for (int i = 0; i < count; i++) {
+            final DayCell cell = cells[i];
+            if ((cell.label != null) != labels) {
+                continue;
+            }
+            colorCount = addColor(cell.textColor, colorCount);
+        }
+
+        for (int c = 0; c < colorCount; c++) {
+            final int color = mColors[c];
+            paint.setColor(color);
+            for (int i = 0; i < count; i++) {
+                final DayCell cell = cells[i];
+                if ((cell.label != null) != labels || cell.textColor != color) {
+                    continue;
+                }
+                if (!labels) {
+                    canvas.drawText(MonthRenderContext.getDayNumber(cell.day), cell.centerX, cell.textY, paint);
+                    continue;
+                }
+                //字号只在缩小过的标签前后切换
+                final FittedLabelCache.FittedLabel fitted = fittedLabels.get(cell.label, (int) (cell.right - cell.left), labelTextSize, paint);
+                if (paint.getTextSize() != fitted.textSize) {
+                    paint.setTextSize(fitted.textSize);
+                }
+                canvas.drawText(fitted.text, cell.centerX, cell.textY + fitted.baselineOffset, paint);
+            }
+        }
+    }
+}
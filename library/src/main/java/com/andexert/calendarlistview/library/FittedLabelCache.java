@@ -0,0 +1,142 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.graphics.Paint;
+
+import com.andexert.calendarlistview.core.BoundedCache;
+import com.andexert.calendarlistview.core.BudgetedCache;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/29
+ * @description 格子内标签（节假日名称、农历）的排版缓存。按标签、格子宽度和字号缓存最终显示的文字、
+ * 缩小后的字号、宽度和基线偏移，放不下时先缩小字号，缩到下限仍放不下再用省略号截断。
+ * 只有第一次遇到的组合才会测量文字，绘制时只读缓存。每个绘制线程一个实例（见MonthPaints），只在所属线程使用
+ */
+final class FittedLabelCache {
+
+    private static final int DEFAULT_MAX_BYTES = 32 * 1024;                                 //没有登记到CacheRegistry时的上限
+    private static final int MAX_VARIANTS = 4;                                              //同一个标签最多缓存4种宽度/字号组合
+    private static final float MIN_SCALE = 0.75f;                                           //字号最多缩小到原来的75%
+    private static final String ELLIPSIS = "…";
+
+    static final class FittedLabel {
+        final String text;                                                                  //实际绘制的文字，可能带省略号
+        final float textSize;                                                               //实际绘制的字号
+        final float width;                                                                  //绘制后的宽度
+        final float baselineOffset;                                                         //字号缩小后为了保持垂直居中对基线的偏移
+        final int maxWidth;
+        final int baseTextSize;
+        FittedLabel next;                                                                   //同一个标签的其他组合
+
+        FittedLabel(String text, float textSize, float width, float baselineOffset, int maxWidth, int baseTextSize) {
+            this.text = text;
+            this.textSize = textSize;
+            this.width = width;
+            this.baselineOffset = baselineOffset;
+            this.maxWidth = maxWidth;
+            this.baseTextSize = baseTextSize;
+        }
+    }
+
+    private final BoundedCache<String, FittedLabel> mCache;
+    private final Paint mMeasurePaint = new Paint();                                        //测量用，不影响绘制画笔的状态
+    private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
+
+    FittedLabelCache() {
+        mCache = new BoundedCache<>(DEFAULT_MAX_BYTES, new BoundedCache.Sizer<String, FittedLabel>() {
+            @Override
+            public int sizeOf(String key, FittedLabel value) {
+                int size = BoundedCache.ENTRY_OVERHEAD + 40 + 2 * key.length();
+                for (FittedLabel f = value; f != null; f = f.next) {
+                    size += 48 + (f.text == key ? 0 : 40 + 2 * f.text.length());
+                }
+                return size;
+            }
+        });
+    }
+
+    BudgetedCache getCache() {
+        return mCache;
+    }
+
+    /**
+     * 取得适合格子宽度的标签，命中缓存时不做任何测量
+     * @param maxWidth  可用宽度（像素）
+     * @param textSize  期望的字号
+     * @param paint     绘制用的画笔，只在未命中时用来复制字体
+     */
+    FittedLabel get(String label, int maxWidth, int textSize, Paint paint) {
+        final FittedLabel head = mCache.get(label);
+        for (FittedLabel f = head; f != null; f = f.next) {
+            if (f.maxWidth == maxWidth && f.baseTextSize == textSize) {
+                return f;
+            }
+        }
+        final FittedLabel fitted = fit(label, maxWidth, textSize, paint);
+        mCache.remove(label);                                                               //先按原来的链表大小移除，再修改链表
+        fitted.next = head;
+        int variants = 1;
+        for (FittedLabel f = fitted; f != null; f = f.next) {
+            if (variants++ == MAX_VARIANTS) {
+                f.next = null;                                                              //丢掉最旧的组合
+            }
+        }
+        mCache.put(label, fitted);
+        return fitted;
+    }
+
+    void clear() {
+        mCache.clear();
+    }
+
+    private FittedLabel fit(String label, int maxWidth, int textSize, Paint paint) {
+        final Paint p = mMeasurePaint;
+        p.set(paint);
+        p.setTextSize(textSize);
+        float width = p.measureText(label);
+        if (width <= maxWidth) {
+            return new FittedLabel(label, textSize, width, 0, maxWidth, textSize);
+        }
+
+        p.getFontMetrics(mFontMetrics);
+        final float center = -(mFontMetrics.ascent + mFontMetrics.descent) / 2;             //基线到文字中心的距离
+        final float size = Math.max(textSize * maxWidth / width, textSize * MIN_SCALE);
+        final float baselineOffset = -center * (1 - size / textSize);
+        p.setTextSize(size);
+        width = p.measureText(label);
+        if (width <= maxWidth) {
+            return new FittedLabel(label, size, width, baselineOffset, maxWidth, textSize);
+        }
+
+        //缩到下限仍放不下，截断并加省略号
+        int count = p.breakText(label, true, maxWidth - p.measureText(ELLIPSIS), null);
+        if (count > 0 && Character.isHighSurrogate(label.charAt(count - 1))) {
+            count--;
+        }
+        final String text = count > 0 ? label.substring(0, count) + ELLIPSIS : ELLIPSIS;
+        return new FittedLabel(text, size, p.measureText(text), baselineOffset, maxWidth, textSize);
+    }
+}
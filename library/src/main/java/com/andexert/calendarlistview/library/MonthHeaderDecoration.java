@@ -0,0 +1,143 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/27
+ * @description 统一绘制月份标题和星期：星期一行和当前月份的标题固定在顶部（占用RecyclerView的paddingTop），
+ *              竖向列表中每个月上方再留出标题的位置；月份控件本身只绘制日期网格
+ *              标题使用MonthRenderContext中格式化好的文字，星期文字在一周的第一天变化时才重新生成
+ */
+class MonthHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private static final int NUM_DAYS = 7;
+
+    private final SimpleMonthAdapter mAdapter;
+    private final MonthLayoutManager mLayoutManager;
+    private final String[] mDayLabels = new String[NUM_DAYS];
+    private int mDayLabelsWeekStart = -1;                                                   //mDayLabels对应的一周第一天
+
+    MonthHeaderDecoration(SimpleMonthAdapter adapter, MonthLayoutManager layoutManager) {
+        mAdapter = adapter;
+        mLayoutManager = layoutManager;
+    }
+
+    /**
+     * 固定在顶部的高度：当前月份的标题和星期
+     * @return
+     */
+    int getPinnedHeight() {
+        final MonthRenderContext rc = mAdapter.getRenderContext();
+        return rc.getMonthTitleHeight() + rc.getDayLabelRowHeight();
+    }
+
+    @Override
+    public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
+        //分页模式下每页的标题就是顶部固定的标题，不需要再留位置
+        outRect.set(0, mLayoutManager.isPaged() ? 0 : mAdapter.getRenderContext().getMonthTitleHeight(), 0, 0);
+    }
+
+    @Override
+    public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        if (mLayoutManager.isPaged()) {
+            return;
+        }
+        final MonthRenderContext rc = mAdapter.getRenderContext();
+        final int titleHeight = rc.getMonthTitleHeight();
+        final float x = parent.getPaddingLeft() + (parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight()) / 2f;
+        c.save();
+        //onDraw不受clipToPadding影响，避免画到顶部固定区域下面
+        c.clipRect(parent.getPaddingLeft(), parent.getPaddingTop(), parent.getWidth() - parent.getPaddingRight(), parent.getHeight() - parent.getPaddingBottom());
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            int position = parent.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION) {
+                continue;
+            }
+            int monthIndex = mAdapter.getMonthIndex(position);
+            float y = child.getTop() - titleHeight + rc.monthSpacing + rc.monthLabelTextSize / 2;
+            c.drawText(rc.getMonthTitle(monthIndex / 12, monthIndex % 12), x, y, rc.paints.monthTitlePaint);
+        }
+        c.restore();
+    }
+
+    @Override
+    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        final MonthRenderContext rc = mAdapter.getRenderContext();
+        final int left = parent.getPaddingLeft();
+        final int width = parent.getWidth() - left - parent.getPaddingRight();
+        final int top = parent.getPaddingTop() - getPinnedHeight();
+
+        int position = getStickyPosition(parent);
+        if (position != RecyclerView.NO_POSITION) {
+            int monthIndex = mAdapter.getMonthIndex(position);
+            float y = top + rc.monthSpacing + rc.monthLabelTextSize / 2;
+            c.drawText(rc.getMonthTitle(monthIndex / 12, monthIndex % 12), left + width / 2f, y, rc.paints.monthTitlePaint);
+        }
+
+        //和SimpleMonthView.drawMonthDayLabels相同的位置
+        final String[] dayLabels = getDayLabels(rc);
+        final int dayWidthHalf = width / (NUM_DAYS * 2);
+        final float y = top + rc.monthSpacing * 2 + (rc.monthDayLabelTextSize / 2) + (rc.monthLabelTextSize / 2);
+        for (int i = 0; i < NUM_DAYS; i++) {
+            c.drawText(dayLabels[i], left + (2 * i + 1) * dayWidthHalf, y, rc.paints.monthDayLabelPaint);
+        }
+    }
+
+    /**
+     * 顶部固定标题显示的月份：分页模式下是当前页，竖向列表中是最上面露出的月份
+     */
+    private int getStickyPosition(RecyclerView parent) {
+        if (mLayoutManager.isPaged()) {
+            return mLayoutManager.findCurrentPage();
+        }
+        int sticky = RecyclerView.NO_POSITION;
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            View child = parent.getChildAt(i);
+            int position = parent.getChildAdapterPosition(child);
+            if (position != RecyclerView.NO_POSITION && child.getBottom() > parent.getPaddingTop()
+                    && (sticky == RecyclerView.NO_POSITION || position < sticky)) {
+                sticky = position;
+            }
+        }
+        return sticky;
+    }
+
+    private String[] getDayLabels(MonthRenderContext rc) {
+        final int weekStart = rc.calendarContext.weekStart;
+        if (mDayLabelsWeekStart != weekStart) {
+            for (int i = 0; i < NUM_DAYS; i++) {
+                mDayLabels[i] = rc.getDayLabel(i, weekStart);
+            }
+            mDayLabelsWeekStart = weekStart;
+        }
+        return mDayLabels;
+    }
+}
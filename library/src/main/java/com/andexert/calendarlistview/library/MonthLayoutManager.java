@@ -0,0 +1,105 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.content.Context;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup.LayoutParams;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/27
+ * @description DayPickerView的布局：默认竖向滚动；分页模式下横向一屏一个月，每个月按页宽测量，
+ *              并且在滑动方向上多布局一页，停下时下一页已经绑定并绘制好
+ */
+class MonthLayoutManager extends LinearLayoutManager {
+
+    private boolean mPaged = false;
+
+    MonthLayoutManager(Context context) {
+        super(context);
+    }
+
+    /**
+     * 切换分页模式
+     * @param paged
+     */
+    void setPaged(boolean paged) {
+        if (mPaged == paged) {
+            return;
+        }
+        mPaged = paged;
+        setOrientation(paged ? HORIZONTAL : VERTICAL);
+    }
+
+    boolean isPaged() {
+        return mPaged;
+    }
+
+    /**
+     * 页宽，即RecyclerView去掉左右padding后的宽度
+     * @return
+     */
+    int getPageWidth() {
+        return getWidth() - getPaddingLeft() - getPaddingRight();
+    }
+
+    /**
+     * 离当前显示区域最近的一页
+     * @return  没有子控件时返回RecyclerView.NO_POSITION
+     */
+    int findCurrentPage() {
+        final int center = getPaddingLeft() + getPageWidth() / 2;
+        int page = RecyclerView.NO_POSITION;
+        int minDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < getChildCount(); i++) {
+            View child = getChildAt(i);
+            int distance = Math.abs((getDecoratedLeft(child) + getDecoratedRight(child)) / 2 - center);
+            if (distance < minDistance) {
+                minDistance = distance;
+                page = getPosition(child);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void measureChildWithMargins(View child, int widthUsed, int heightUsed) {
+        //Holder里的宽度是MATCH_PARENT，横向滚动时会按UNSPECIFIED测量，分页模式下改成明确的页宽
+        final LayoutParams lp = child.getLayoutParams();
+        final int width = mPaged ? getPageWidth() : LayoutParams.MATCH_PARENT;
+        if (lp.width != width) {
+            lp.width = width;
+        }
+        super.measureChildWithMargins(child, widthUsed, heightUsed);
+    }
+
+    @Override
+    protected int getExtraLayoutSpace(RecyclerView.State state) {
+        //滑动方向上多布局一页；反方向刚离开的一页留在RecyclerView的缓存里，不需要重新绑定
+        return mPaged ? getPageWidth() : super.getExtraLayoutSpace(state);
+    }
+}
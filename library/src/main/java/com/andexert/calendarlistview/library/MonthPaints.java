@@ -0,0 +1,116 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.graphics.Paint;
+import android.graphics.Paint.Align;
+import android.graphics.Paint.Style;
+import android.graphics.RectF;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/2
+ * @description 绘制一个月用到的可变对象（画笔、格子、排版缓存、默认的格子绘制）。
+ * 这些对象在绘制时会被修改，所以每个线程各有一份：主线程的一份放在MonthRenderContext中，其他线程由MonthRenderer按线程创建
+ */
+final class MonthPaints {
+
+    final Paint monthDayLabelPaint;
+    final Paint monthNumPaint;
+    final Paint monthTitlePaint;
+    final Paint selectedCirclePaint;                                                        //选中的背景画笔
+    final Paint selectedContainsPaint;
+    final Paint eventPaint;
+    final RectF tempRect = new RectF();                                                     //绘制时复用
+    final DayCell[] dayCells = new DayCell[31];                                             //绘制时复用
+    final FittedLabelCache fittedLabels = new FittedLabelCache();                           //格子内标签的排版缓存
+    final DefaultDayCellRenderer defaultDayCellRenderer;
+
+    MonthPaints(MonthRenderContext rc) {
+        /**
+         * 绘制月份画笔
+         */
+        monthTitlePaint = new Paint();
+        monthTitlePaint.setFakeBoldText(true);
+        monthTitlePaint.setAntiAlias(true);
+        monthTitlePaint.setTextSize(rc.monthLabelTextSize);
+        monthTitlePaint.setColor(rc.monthTextColor);
+        monthTitlePaint.setTextAlign(Align.CENTER);
+        monthTitlePaint.setStyle(Style.FILL);
+
+        /**
+         *  选中时的文字背景画笔
+         */
+        selectedCirclePaint = new Paint();
+        selectedCirclePaint.setFakeBoldText(true);
+        selectedCirclePaint.setAntiAlias(true);
+        selectedCirclePaint.setColor(rc.selectedDaysColor);
+        selectedCirclePaint.setTextAlign(Align.CENTER);
+        selectedCirclePaint.setStyle(Style.FILL);
+
+        /**
+         *  开始和结束时的中间段的背景画笔
+         */
+        selectedContainsPaint = new Paint();
+        selectedContainsPaint.setFakeBoldText(true);
+        selectedContainsPaint.setAntiAlias(true);
+        selectedContainsPaint.setColor(rc.selectedContainColor);
+        selectedContainsPaint.setTextAlign(Align.CENTER);
+        selectedContainsPaint.setStyle(Style.FILL);
+
+        /**
+         *  绘制星期的画笔
+         */
+        monthDayLabelPaint = new Paint();
+        monthDayLabelPaint.setAntiAlias(true);
+        monthDayLabelPaint.setTextSize(rc.monthDayLabelTextSize);
+        monthDayLabelPaint.setColor(rc.dayWeekTextColor);
+        monthDayLabelPaint.setStyle(Style.FILL);
+        monthDayLabelPaint.setTextAlign(Align.CENTER);
+        monthDayLabelPaint.setFakeBoldText(false);
+
+        /**
+         * 绘制日期的画笔（未选中）
+         */
+        monthNumPaint = new Paint();
+        monthNumPaint.setAntiAlias(true);
+        monthNumPaint.setTextSize(rc.miniDayNumberTextSize);
+        monthNumPaint.setStyle(Style.FILL);
+        monthNumPaint.setTextAlign(Align.CENTER);
+        monthNumPaint.setFakeBoldText(false);
+
+        /**
+         * 事件标记的画笔
+         */
+        eventPaint = new Paint();
+        eventPaint.setAntiAlias(true);
+        eventPaint.setColor(rc.eventColor);
+        eventPaint.setStyle(Style.FILL);
+
+        for (int i = 0; i < dayCells.length; i++) {
+            dayCells[i] = new DayCell();
+        }
+        defaultDayCellRenderer = new DefaultDayCellRenderer(rc, this);
+    }
+}
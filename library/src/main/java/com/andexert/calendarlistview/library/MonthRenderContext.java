@@ -0,0 +1,249 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.text.format.DateUtils;
+import android.util.SparseArray;
+
+import com.andexert.calendarlistview.core.DayLabelRegistry;
+import com.andexert.calendarlistview.core.DayValueStore;
+import com.andexert.calendarlistview.core.MonthEventSource;
+
+import java.text.DateFormatSymbols;
+import java.util.Locale;
+
+import static com.andexert.calendarlistview.library.CalendarUtils.DEFAULT_WEEK_DAYS;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/20
+ * @description 一个Adapter下所有SimpleMonthView共享的只读绘制状态（主题、画笔、今天、标题缓存）
+ *              主线程的画笔(paints)被所有Holder共用，每次使用前重新设置即可；其他线程通过MonthRenderer绘制，各自持有画笔
+ *              主线程整体替换的引用和开关是volatile的，其他线程绘制时每个字段只读一次
+ */
+final class MonthRenderContext {
+
+    private static final String[] DAY_NUMBERS = new String[32];
+
+    static {
+        for (int i = 1; i < DAY_NUMBERS.length; i++) {
+            DAY_NUMBERS[i] = String.valueOf(i);
+        }
+    }
+
+    final Context context;
+    volatile CalendarContext calendarContext;                                               //时区、一周的第一天和今天，变化时整体替换
+
+    final int currentDayTextColor;
+    final int monthTextColor;
+    final int dayTextColor;
+    final int dayWeekTextColor;                                                             //星期模块的文字颜色
+    final int dayNumColor;                                                                  //日期模块的文字颜色（未选中）
+    final int monthTitleBGColor;                                                            //日期模块的文字颜色 (选中)
+    final int previousDayColor;                                                             //过期的日期文字颜色
+    final int selectedDaysColor;
+    final int selectedContainColor;                                                         //选中开始与结束日期中间部分背景
+    final int vacationDayColor;                                                             //节假日文字颜色
+    final int eventColor;                                                                   //事件标记的颜色
+
+    final boolean drawRect;                                                                 //选中时是否是矩形
+    final boolean isPrevDayEnabled;                                                         //是否高亮以前的日期
+    final int selectedPadding;
+    final int monthSpacing;                                                                 //每月之间的间距
+    final int rowHeight;                                                                    //每列的高度
+    volatile boolean fixedNumRows;                                                          //每个月固定显示6行，所有月份高度一致
+    boolean lowDetail;                                                                      //快速滑动中，只绘制标题和日期数字
+    volatile boolean showLunar;                                                             //日期下面显示农历和节气
+    boolean headerDecorated;                                                                //月份标题和星期由MonthHeaderDecoration绘制，月份控件只绘制日期
+    volatile DayValueStore dayValues;                                                       //推送的每天数据（价格、库存），为null时不读取
+    volatile MonthEventSource eventSource;                                                  //每天的事件数量，为null时不绘制事件标记
+    volatile DayLabelRegistry labelRegistry;                                                //按优先级合并后的每天标签（节假日、促销等）
+    PickerStats stats;                                                                      //运行计数，为null时不统计
+
+    final int daySelectedCircleSize;                                                        //选中日期的背景半径
+    final int miniDayNumberTextSize;                                                        //每日的文字大小Size值
+    final int monthDayLabelTextSize;                                                        //星期文字的Size值
+    final int monthHeaderSize;                                                              //头部月份的大小  (包含月份和星期的总高度)
+    final int monthLabelTextSize;                                                           //头部月份文字的Size值
+    final int vacationLabelTextSize;                                                        //节假日文字Size值
+    final int lunarTextSize;                                                                //农历文字Size值
+    final int eventDotRadius;                                                               //事件标记圆点的半径
+
+    final MonthPaints paints;                                                               //主线程使用的画笔和格子，其他线程由MonthRenderer各自创建
+    final DayCellRenderer defaultDayCellRenderer;
+    final MonthRenderer renderer;                                                           //绘制一个月，SimpleMonthView和离屏绘制共用
+    volatile DayCellRenderer dayCellRenderer;                                               //日期格子的绘制，默认为defaultDayCellRenderer
+
+    private final SparseArray<String> mMonthTitles = new SparseArray<>();
+    private String[] mShortMonthTitles;
+
+    MonthRenderContext(Context context, TypedArray typedArray, CalendarContext calendarContext) {
+        Resources resources = context.getResources();
+        this.context = context;
+        this.calendarContext = calendarContext;
+
+        currentDayTextColor = typedArray.getColor(R.styleable.DayPickerView_colorCurrentDay, resources.getColor(R.color.normal_day));
+        monthTextColor = typedArray.getColor(R.styleable.DayPickerView_colorMonthName, resources.getColor(R.color.normal_day));
+        dayTextColor = typedArray.getColor(R.styleable.DayPickerView_colorDayName, resources.getColor(R.color.normal_day));
+        dayNumColor = typedArray.getColor(R.styleable.DayPickerView_colorNormalDay, resources.getColor(R.color.black_333333));
+        previousDayColor = typedArray.getColor(R.styleable.DayPickerView_colorPreviousDay, resources.getColor(R.color.color_c1c1c1));
+        dayWeekTextColor = typedArray.getColor(R.styleable.DayPickerView_colorWeek, resources.getColor(R.color.normal_day));
+        selectedDaysColor = typedArray.getColor(R.styleable.DayPickerView_colorSelectedDayBackground, resources.getColor(R.color.selected_day_background));
+        vacationDayColor = typedArray.getColor(R.styleable.DayPickerView_colorVacation, resources.getColor(R.color.selected_day_background));
+        selectedContainColor = typedArray.getColor(R.styleable.DayPickerView_colorSeelctedContainsBackgound, resources.getColor(R.color.selected_day_contains_background));
+        monthTitleBGColor = typedArray.getColor(R.styleable.DayPickerView_colorSelectedDayText, resources.getColor(R.color.white_FFFFFF));
+        eventColor = typedArray.getColor(R.styleable.DayPickerView_colorEvent, resources.getColor(R.color.selected_day_background));
+
+        drawRect = typedArray.getBoolean(R.styleable.DayPickerView_drawRoundRect, false);
+        selectedPadding = typedArray.getDimensionPixelOffset(R.styleable.DayPickerView_calendarDayTextSpacing, resources.getDimensionPixelOffset(R.dimen.day_text_spacing));
+
+        miniDayNumberTextSize = typedArray.getDimensionPixelSize(R.styleable.DayPickerView_textSizeDay, resources.getDimensionPixelSize(R.dimen.text_size_day));
+        monthLabelTextSize = typedArray.getDimensionPixelSize(R.styleable.DayPickerView_textSizeMonth, resources.getDimensionPixelSize(R.dimen.text_size_month));
+        monthDayLabelTextSize = typedArray.getDimensionPixelSize(R.styleable.DayPickerView_textSizeDayName, resources.getDimensionPixelSize(R.dimen.text_size_day_name));
+        int headerMonthHeight = typedArray.getDimensionPixelOffset(R.styleable.DayPickerView_headerMonthHeight, resources.getDimensionPixelOffset(R.dimen.header_month_height));
+        daySelectedCircleSize = typedArray.getDimensionPixelSize(R.styleable.DayPickerView_selectedDayRadius, resources.getDimensionPixelOffset(R.dimen.selected_day_radius));
+        vacationLabelTextSize = typedArray.getDimensionPixelSize(R.styleable.DayPickerView_calendarVacationTextSize, resources.getDimensionPixelSize(R.dimen.vacation_text_size));
+        lunarTextSize = typedArray.getDimensionPixelSize(R.styleable.DayPickerView_textSizeLunar, resources.getDimensionPixelSize(R.dimen.lunar_text_size));
+        eventDotRadius = resources.getDimensionPixelSize(R.dimen.event_dot_radius);
+
+        //（每列的高度根据控件总高度 - 头部高度）/ 6
+        rowHeight = ((typedArray.getDimensionPixelSize(R.styleable.DayPickerView_calendarHeight, resources.getDimensionPixelOffset(R.dimen.calendar_height)) - headerMonthHeight) / 6);
+        monthSpacing = typedArray.getDimensionPixelOffset(R.styleable.DayPickerView_calendarMonthSpacing, resources.getDimensionPixelOffset(R.dimen.month_text_spacing));
+        isPrevDayEnabled = typedArray.getBoolean(R.styleable.DayPickerView_enablePreviousDay, true);
+        fixedNumRows = typedArray.getBoolean(R.styleable.DayPickerView_fixedMonthHeight, false);
+        showLunar = typedArray.getBoolean(R.styleable.DayPickerView_showLunar, false);
+
+        monthHeaderSize = monthLabelTextSize + monthDayLabelTextSize + monthSpacing * 2;
+
+        paints = new MonthPaints(this);
+        defaultDayCellRenderer = paints.defaultDayCellRenderer;
+        renderer = new MonthRenderer(this);
+        dayCellRenderer = defaultDayCellRenderer;
+    }
+
+    /**
+     * 月份控件顶部留给标题和星期的高度
+     * @return  标题由MonthHeaderDecoration绘制时为0
+     */
+    int getMonthHeaderSize() {
+        return headerDecorated ? 0 : monthHeaderSize;
+    }
+
+    /**
+     * MonthHeaderDecoration中每个月标题的高度
+     * @return
+     */
+    int getMonthTitleHeight() {
+        return monthLabelTextSize + monthSpacing;
+    }
+
+    /**
+     * MonthHeaderDecoration中固定在顶部的星期一行的高度
+     * @return
+     */
+    int getDayLabelRowHeight() {
+        return monthHeaderSize - getMonthTitleHeight();
+    }
+
+    /**
+     * 获取年月的标题，每个月只格式化一次。MonthRenderer会在其他线程调用，所以加锁
+     * @param year
+     * @param month     0 - 11
+     * @return
+     */
+    String getMonthTitle(int year, int month) {
+        int key = year * 12 + month;
+        synchronized (mMonthTitles) {
+            String title = mMonthTitles.get(key);
+            if (title != null) {
+                return title;
+            }
+        }
+        int flags = DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_YEAR | DateUtils.FORMAT_NO_MONTH_DAY;
+        long millis = CalendarUtils.getTimeInMillis(year, month, 1);
+        StringBuilder stringBuilder = new StringBuilder(DateUtils.formatDateRange(context, millis, millis, flags).toLowerCase());
+        stringBuilder.setCharAt(0, Character.toUpperCase(stringBuilder.charAt(0)));
+        String title = stringBuilder.toString();
+        synchronized (mMonthTitles) {
+            mMonthTitles.put(key, title);
+        }
+        return title;
+    }
+
+    /**
+     * 已经格式化的标题，配置变化时可以交给新的Context继续使用
+     * @return
+     */
+    SparseArray<String> getMonthTitles() {
+        synchronized (mMonthTitles) {
+            return mMonthTitles.clone();
+        }
+    }
+
+    /**
+     * 使用之前格式化好的标题（必须是同一个Locale）
+     * @param monthTitles
+     */
+    void putMonthTitles(SparseArray<String> monthTitles) {
+        synchronized (mMonthTitles) {
+            for (int i = 0; i < monthTitles.size(); i++) {
+                mMonthTitles.put(monthTitles.keyAt(i), monthTitles.valueAt(i));
+            }
+        }
+    }
+
+    /**
+     * 获取月份的简称（年视图使用）
+     * @param month     0 - 11
+     * @return
+     */
+    String getShortMonthTitle(int month) {
+        if (mShortMonthTitles == null) {                                                    //只在主线程（年视图）调用
+            mShortMonthTitles = new DateFormatSymbols(Locale.getDefault()).getShortMonths();
+        }
+        return mShortMonthTitles[month];
+    }
+
+    /**
+     * 获取星期的文字
+     * @param column        第几列
+     * @param weekStart     一周从星期几开始（Calendar.SUNDAY = 1）
+     * @return
+     */
+    String getDayLabel(int column, int weekStart) {
+        return DEFAULT_WEEK_DAYS[(column + weekStart + 6) % 7].toUpperCase(Locale.getDefault());
+    }
+
+    /**
+     * 日期的文字，避免每次绘制都格式化
+     * @param day
+     * @return
+     */
+    static String getDayNumber(int day) {
+        return DAY_NUMBERS[day];
+    }
+}
@@ -0,0 +1,352 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Typeface;
+
+import com.andexert.calendarlistview.core.DayValueStore;
+import com.andexert.calendarlistview.core.MonthGeometry;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/2
+ * @description 把一个月绘制到任意Canvas上，不需要创建控件。SimpleMonthView的绘制也由这里完成。
+ * 样式、标签、事件等只读状态来自创建它的日历，画笔、格子和月份数据每个线程各有一份，
+ * 所以可以在后台线程生成桌面小部件或分享图片。自定义的DayCellRenderer在其他线程使用时需要自己保证线程安全
+ */
+public final class MonthRenderer {
+
+    static final int NUM_DAYS = 7;                                                          //一列显示多少天
+
+    private static final class ThreadState {
+        final MonthPaints paints;
+        final MonthState state = new MonthState();
+
+        ThreadState(MonthRenderContext rc) {
+            paints = new MonthPaints(rc);
+        }
+    }
+
+    private final MonthRenderContext mRenderContext;
+    private final ThreadLocal<ThreadState> mThreadStates = new ThreadLocal<>();
+
+    MonthRenderer(MonthRenderContext renderContext) {
+        mRenderContext = renderContext;
+    }
+
+    /**
+     * 离屏绘制时一个月的高度（包含标题和星期）
+     * @param year
+     * @param month     0 - 11
+     * @return
+     */
+    public int getMonthHeight(int year, int month) {
+        final MonthRenderContext rc = mRenderContext;
+        final int numRows = rc.fixedNumRows ? MonthGeometry.MAX_NUM_ROWS : MonthGeometry.get(year, month, rc.calendarContext.weekStart).numRows;
+        return rc.rowHeight * numRows + rc.monthHeaderSize;
+    }
+
+    /**
+     * 在当前线程把一个月绘制到canvas的(0, 0)位置，包含标题和星期，不绘制背景
+     * @param canvas
+     * @param year
+     * @param month                 0 - 11
+     * @param width                 绘制的宽度，高度见getMonthHeight
+     * @param selectedFirstEpochDay 选中的开始日期（纪元日），SelectionDelta.NO_DAY表示没有
+     * @param selectedLastEpochDay  选中的结束日期（纪元日），SelectionDelta.NO_DAY表示没有
+     */
+    public void drawMonth(Canvas canvas, int year, int month, int width, int selectedFirstEpochDay, int selectedLastEpochDay) {
+        final MonthRenderContext rc = mRenderContext;
+        ThreadState threadState = mThreadStates.get();
+        if (threadState == null) {
+            threadState = new ThreadState(rc);
+            mThreadStates.set(threadState);
+        }
+        final MonthState state = threadState.state;
+        state.setSelection(selectedFirstEpochDay, selectedLastEpochDay);
+        state.bind(rc, year, month, rc.calendarContext.weekStart);
+        draw(canvas, state, threadState.paints, width, 0, rc.rowHeight, rc.monthHeaderSize, false);
+    }
+
+    /**
+     * 在当前线程把一个月绘制成Bitmap
+     * @param backgroundColor   背景色，Color.TRANSPARENT表示透明
+     * @return                  宽度为width，高度为getMonthHeight的ARGB_8888图片
+     */
+    public Bitmap renderMonth(int year, int month, int width, int selectedFirstEpochDay, int selectedLastEpochDay, int backgroundColor) {
+        final Bitmap bitmap = Bitmap.createBitmap(width, getMonthHeight(year, month), Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(backgroundColor);
+        drawMonth(new Canvas(bitmap), year, month, width, selectedFirstEpochDay, selectedLastEpochDay);
+        return bitmap;
+    }
+
+    /**
+     * 在当前线程把连续的几个月分别绘制成Bitmap（例如桌面小部件的几页），画笔和月份数据只准备一次
+     * @param year      第一个月的年份
+     * @param month     第一个月，0 - 11
+     * @param count     月份数量
+     * @return
+     */
+    public Bitmap[] renderMonths(int year, int month, int count, int width, int selectedFirstEpochDay, int selectedLastEpochDay, int backgroundColor) {
+        final Bitmap[] bitmaps = new Bitmap[count];
+        int monthIndex = year * 12 + month;
+        for (int i = 0; i < count; i++, monthIndex++) {
+            bitmaps[i] = renderMonth(monthIndex / 12, monthIndex % 12, width, selectedFirstEpochDay, selectedLastEpochDay, backgroundColor);
+        }
+        return bitmaps;
+    }
+
+    /**
+     * 释放当前线程的画笔和缓存，线程池中的线程不再绘制时调用
+     */
+    public void releaseThreadPaints() {
+        mThreadStates.remove();
+    }
+
+    /**
+     * 绘制一个已经绑定好的月份
+     * @param headerSize    顶部标题和星期的高度，为0时不绘制标题和星期
+     * @param lowDetail     快速滑动中，只绘制标题和日期数字
+     */
+    void draw(Canvas canvas, MonthState state, MonthPaints paints, int width, int padding, int rowHeight, int headerSize, boolean lowDetail) {
+        final boolean drawHeader = headerSize > 0;
+        if (drawHeader) {
+            drawMonthTitle(canvas, state, paints, width, padding);
+        }
+        if (lowDetail) {
+            drawMonthNumsLowDetail(canvas, state, paints, width, padding, rowHeight, headerSize);
+            return;
+        }
+        if (drawHeader) {
+            drawMonthDayLabels(canvas, state, paints, width, padding);
+        }
+        drawMonthNums(canvas, state, paints, width, padding, rowHeight, headerSize);
+    }
+
+    /**
+     * 第一行日期文字的Y
+     */
+    int getFirstRowY(int rowHeight, int headerSize) {
+        // 每日的Y间距 + (文字的大小 / 2) - xx + 头部的月份的高度
+        return (rowHeight + mRenderContext.miniDayNumberTextSize) / 2 - SimpleMonthView.DAY_SEPARATOR_WIDTH + headerSize;
+    }
+
+    /**
+     * 绘制星期
+     */
+    private void drawMonthDayLabels(Canvas canvas, MonthState state, MonthPaints paints, int width, int padding) {
+        final MonthRenderContext rc = mRenderContext;
+        int y = rc.monthSpacing * 2 + (rc.monthDayLabelTextSize / 2) + (rc.monthLabelTextSize / 2);
+        //宽度减去两边Padding / (一列的天数 * 2) 间距和文字的间距是一样的。目前按14等分
+        int dayWidthHalf = (width - padding * 2) / (NUM_DAYS * 2);
+
+        for (int i = 0; i < NUM_DAYS; i++) {
+            //星期几
+            int x = (2 * i + 1) * dayWidthHalf + padding;
+            canvas.drawText(rc.getDayLabel(i, state.weekStart), x, y, paints.monthDayLabelPaint);
+        }
+    }
+
+    /**
+     * 绘制月份
+     */
+    private void drawMonthTitle(Canvas canvas, MonthState state, MonthPaints paints, int width, int padding) {
+        //中间位置
+        int x = (width + 2 * padding) / 2;
+        final MonthRenderContext rc = mRenderContext;
+        int y = rc.monthSpacing + (rc.monthLabelTextSize / 2);
+        canvas.drawText(rc.getMonthTitle(state.year, state.month), x, y, paints.monthTitlePaint);
+    }
+
+    /**
+     * 渲染日期 （单位：日）：先按行绘制选中范围的背景，再把每一天的状态和位置交给DayCellRenderer分阶段绘制
+     */
+    private void drawMonthNums(Canvas canvas, MonthState state, MonthPaints paints, int width, int padding, int rowHeight, int headerSize) {
+        final MonthRenderContext rc = mRenderContext;
+        final int miniDayNumberTextSize = rc.miniDayNumberTextSize;
+        int y = getFirstRowY(rowHeight, headerSize);
+        // 每列开始x位置
+        int paddingDay = (width - 2 * padding) / (2 * NUM_DAYS);
+        //从第几列开始
+        int dayOffset = state.geometry.dayOffset;
+        drawRangeBackground(canvas, state, paints, y, paddingDay, padding, rowHeight);
+
+        final DayCell[] cells = paints.dayCells;
+        final int numCells = state.numCells;
+        final String[] holidayLabels = state.holidayLabels;
+        final String[] lunarLabels = state.lunarLabels != null ? state.lunarLabels.labels : null;
+        for (int day = 1; day <= numCells; day++) {
+            final DayCell cell = cells[day - 1];
+            final int flags = state.dayFlags[day];
+            int x = paddingDay * (1 + dayOffset * 2) + padding;
+            cell.year = state.year;
+            cell.month = state.month;
+            cell.day = day;
+            cell.flags = flags;
+            cell.label = (flags & DayCell.FLAG_HOLIDAY) != 0 && (flags & DayCell.FLAG_SELECTED) == 0 ? holidayLabels[day] : null;
+            cell.textColor = getDayTextColor(flags);
+            cell.eventCount = state.hasEvents ? state.eventCounts[day] : 0;
+            cell.value = state.hasValues ? state.dayValues[day] : DayValueStore.NO_VALUE;
+            cell.centerX = x;
+            cell.indicatorY = y - miniDayNumberTextSize / 3;
+            if (lunarLabels != null && lunarLabels[day] != null) {
+                //日期和农历上下排列，整体仍然以选中背景为中心
+                cell.secondaryLabel = lunarLabels[day];
+                cell.secondaryColor = getSecondaryTextColor(flags);
+                cell.textY = y - rc.lunarTextSize / 2f;
+                cell.secondaryY = cell.textY + rc.lunarTextSize;
+            } else {
+                cell.secondaryLabel = null;
+                cell.textY = y;
+                cell.secondaryY = y;
+            }
+            cell.left = x - paddingDay;
+            cell.right = x + paddingDay;
+            cell.top = cell.indicatorY - rowHeight / 2f;
+            cell.bottom = cell.top + rowHeight;
+
+            dayOffset++;
+            if (dayOffset == NUM_DAYS) {
+                dayOffset = 0;
+                y += rowHeight;
+            }
+        }
+
+        //默认的绘制使用这个线程的画笔，自定义的绘制由使用者自己负责
+        final DayCellRenderer custom = rc.dayCellRenderer;
+        final DayCellRenderer renderer = custom == rc.defaultDayCellRenderer ? paints.defaultDayCellRenderer : custom;
+        renderer.drawBackgrounds(canvas, cells, numCells);
+        renderer.drawPrimaryText(canvas, cells, numCells);
+        renderer.drawSecondary(canvas, cells, numCells);
+    }
+
+    /**
+     * 快速滑动时的简化绘制：只绘制日期数字，不绘制节假日、选中范围等细节
+     */
+    private void drawMonthNumsLowDetail(Canvas canvas, MonthState state, MonthPaints paints, int width, int padding, int rowHeight, int headerSize) {
+        final MonthRenderContext rc = mRenderContext;
+        final Paint monthNumPaint = paints.monthNumPaint;
+        monthNumPaint.setColor(rc.dayNumColor);
+        monthNumPaint.setTextSize(rc.miniDayNumberTextSize);
+        monthNumPaint.setTypeface(Typeface.defaultFromStyle(Typeface.NORMAL));
+
+        int y = getFirstRowY(rowHeight, headerSize);
+        int paddingDay = (width - 2 * padding) / (2 * NUM_DAYS);
+        int dayOffset = state.geometry.dayOffset;
+        for (int day = 1; day <= state.numCells; day++) {
+            int x = paddingDay * (1 + dayOffset * 2) + padding;
+            canvas.drawText(MonthRenderContext.getDayNumber(day), x, y, monthNumPaint);
+            dayOffset++;
+            if (dayOffset == NUM_DAYS) {
+                dayOffset = 0;
+                y += rowHeight;
+            }
+        }
+    }
+
+    /**
+     * 绘制开始和结束之间的背景：每一行最多一个矩形，开始和结束两端只画到日期中心，由选中的圆形背景形成圆角
+     *
+     * @param firstRowY     第一行文字的Y
+     * @param paddingDay    半个格子的宽度
+     */
+    private void drawRangeBackground(Canvas canvas, MonthState state, MonthPaints paints, int firstRowY, int paddingDay, int padding, int rowHeight) {
+        if (state.rangeFirstDay == -1) {
+            return;
+        }
+        final MonthRenderContext rc = mRenderContext;
+        final MonthGeometry geometry = state.geometry;
+        final RectF rectF = paints.tempRect;
+        final int firstRow = geometry.getRow(state.rangeFirstDay);
+        final int lastRow = geometry.getRow(state.rangeLastDay);
+        for (int row = firstRow; row <= lastRow; row++) {
+            int startColumn = row == firstRow ? geometry.getColumn(state.rangeFirstDay) : 0;
+            int endColumn = row == lastRow ? geometry.getColumn(state.rangeLastDay) : NUM_DAYS - 1;
+            float left = paddingDay * (startColumn * 2) + padding;
+            float right = paddingDay * (endColumn * 2 + 2) + padding;
+            if (row == firstRow && state.rangeFirstDay < state.rangeInnerFirstDay) {
+                left += paddingDay;
+            }
+            if (row == lastRow && state.rangeLastDay > state.rangeInnerLastDay) {
+                right -= paddingDay;
+            }
+            int centerY = firstRowY + row * rowHeight - rc.miniDayNumberTextSize / 3;
+            rectF.set(left, centerY - rc.daySelectedCircleSize, right, centerY + rc.daySelectedCircleSize);
+            canvas.drawRect(rectF, paints.selectedContainsPaint);
+        }
+    }
+
+    /**
+     * 按状态计算日期文字颜色，后面的规则覆盖前面的
+     * @param flags
+     * @return
+     */
+    private int getDayTextColor(int flags) {
+        final MonthRenderContext rc = mRenderContext;
+        int color = rc.dayNumColor;
+        //选中了开始或者结束的任意一天则显示MonthTitleBgColor
+        if ((flags & DayCell.FLAG_SELECTED) != 0) {
+            color = rc.monthTitleBGColor;
+        }
+        //如果是同时选择了开始和结束且在同一天则显示mSeelctDaysColor
+        if ((flags & DayCell.FLAG_SINGLE_DAY) != 0) {
+            color = rc.selectedDaysColor;
+        }
+        //是否是节假日
+        if ((flags & DayCell.FLAG_HOLIDAY) != 0 && (flags & DayCell.FLAG_SELECTED) == 0) {
+            color = rc.vacationDayColor;
+        }
+        //开始和结束中间的日期，背景已经在drawRangeBackground中按行绘制
+        if ((flags & DayCell.FLAG_IN_RANGE) != 0) {
+            color = rc.monthTitleBGColor;
+        }
+        if ((flags & DayCell.FLAG_PREVIOUS) != 0) {
+            color = rc.previousDayColor;
+        }
+        return color;
+    }
+
+    /**
+     * 农历、节气文字的颜色
+     * @param flags
+     * @return
+     */
+    private int getSecondaryTextColor(int flags) {
+        final MonthRenderContext rc = mRenderContext;
+        if ((flags & (DayCell.FLAG_SELECTED | DayCell.FLAG_IN_RANGE)) != 0) {
+            return rc.monthTitleBGColor;
+        }
+        if ((flags & DayCell.FLAG_PREVIOUS) != 0) {
+            return rc.previousDayColor;
+        }
+        if ((flags & DayCell.FLAG_SOLAR_TERM) != 0) {
+            return rc.vacationDayColor;
+        }
+        return rc.dayTextColor;
+    }
+}
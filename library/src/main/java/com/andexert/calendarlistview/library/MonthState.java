@@ -0,0 +1,243 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.text.TextUtils;
+
+import com.andexert.calendarlistview.core.CalendarDates;
+import com.andexert.calendarlistview.core.DayValueStore;
+import com.andexert.calendarlistview.core.LunarCalendar;
+import com.andexert.calendarlistview.core.MonthEventSource;
+import com.andexert.calendarlistview.core.MonthGeometry;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/2
+ * @description 绑定到一个月的数据：网格、标签、农历、事件、推送的数据、选中范围和每天的状态。
+ * 绑定时计算一次，绘制时只读。SimpleMonthView每个控件一份，MonthRenderer离屏绘制时每个线程一份
+ */
+final class MonthState {
+
+    int year;
+    int month;                                                                              //0 - 11
+    int weekStart = 1;                                                                      //一周是从星期几开始 （但国外的1代表周天）
+    int numCells = MonthRenderer.NUM_DAYS;                                                  //这个月绘制多少天
+    int numRows = SimpleMonthView.DEFAULT_NUM_ROWS;
+    MonthGeometry geometry;                                                                 //这个月的网格信息（缓存）
+    String[] holidayLabels;                                                                 //这个月合并后的标签，下标为日期
+    LunarCalendar.MonthLabels lunarLabels;                                                  //这个月的农历和节气，没有开启农历时为null
+    boolean hasToday = false;
+    int today = -1;
+    boolean isPrev = false;
+
+    int selectedBeginDay = -1;
+    int selectedLastDay = -1;
+    int selectedBeginMonth = -1;
+    int selectedLastMonth = -1;
+    int selectedBeginYear = -1;
+    int selectedLastYear = -1;
+    int rangeFirstDay = -1;                                                                 //选中范围在这个月中的第一天（包含开始日）
+    int rangeLastDay = -1;                                                                  //选中范围在这个月中的最后一天（包含结束日）
+    int rangeInnerFirstDay = Integer.MAX_VALUE;                                             //开始和结束之间（不包含两端）的第一天
+    int rangeInnerLastDay = Integer.MIN_VALUE;
+
+    final int[] eventCounts = new int[32];                                                  //这个月每天的事件数量，绑定时读取
+    boolean hasEvents = false;
+    final int[] dayValues = new int[32];                                                    //这个月每天推送的数据，版本变化时重新读取
+    boolean hasValues = false;
+    int valuesVersion = -1;                                                                 //读取dayValues时这个月的版本
+    final int[] dayFlags = new int[32];                                                     //每一天的状态（DayCell.FLAG_*），下标为日期
+
+    /**
+     * 用纪元日设置选中的开始和结束日期
+     * @param selectedFirstEpochDay SelectionDelta.NO_DAY表示没有
+     * @param selectedLastEpochDay  SelectionDelta.NO_DAY表示没有
+     */
+    void setSelection(int selectedFirstEpochDay, int selectedLastEpochDay) {
+        int first = selectedFirstEpochDay == SelectionDelta.NO_DAY ? -1 : CalendarDates.toDateKey(selectedFirstEpochDay);
+        int last = selectedLastEpochDay == SelectionDelta.NO_DAY ? -1 : CalendarDates.toDateKey(selectedLastEpochDay);
+        selectedBeginYear = first == -1 ? -1 : first / 10000;
+        selectedBeginMonth = first == -1 ? -1 : first / 100 % 100;
+        selectedBeginDay = first == -1 ? -1 : first % 100;
+        selectedLastYear = last == -1 ? -1 : last / 10000;
+        selectedLastMonth = last == -1 ? -1 : last / 100 % 100;
+        selectedLastDay = last == -1 ? -1 : last % 100;
+    }
+
+    /**
+     * 绑定月份，选中的日期需要先设置好。不创建任何对象
+     * @param rc
+     * @param year
+     * @param month         0 - 11
+     * @param weekStart     一周从星期几开始（Calendar.SUNDAY = 1）
+     */
+    void bind(MonthRenderContext rc, int year, int month, int weekStart) {
+        this.month = month;
+        this.year = year;
+        this.weekStart = weekStart;
+
+        hasToday = false;
+        today = -1;
+
+        geometry = MonthGeometry.get(year, month, weekStart);
+        numCells = geometry.numCells;
+        holidayLabels = rc.labelRegistry.getMonthLabels(year, month);
+        lunarLabels = rc.showLunar ? LunarCalendar.getMonthLabels(year, month) : null;
+        final MonthEventSource eventSource = rc.eventSource;
+        hasEvents = eventSource != null && eventSource.getMonthCounts(year, month, eventCounts);
+        loadDayValues(rc.dayValues);
+        // 判断是否是今天
+        final CalendarContext todayContext = rc.calendarContext;
+        if (year == todayContext.todayYear && month == todayContext.todayMonth) {
+            hasToday = true;
+            today = todayContext.todayDay;
+        }
+        isPrev = prevDay(numCells, todayContext);
+        computeSelectedRange();
+        computeDayFlags(rc);
+
+        numRows = rc.fixedNumRows ? MonthGeometry.MAX_NUM_ROWS : geometry.numRows;
+    }
+
+    /**
+     * 读取这个月推送的数据
+     * @param store     为null时清空
+     */
+    void loadDayValues(DayValueStore store) {
+        if (store == null) {
+            hasValues = false;
+            valuesVersion = -1;
+            return;
+        }
+        valuesVersion = store.getMonthVersion(year, month);
+        hasValues = store.getMonthValues(year, month, dayValues);
+    }
+
+    /**
+     * 缓存中的控件不会重新绑定，推送的数据按版本号补读
+     * @param store
+     */
+    void refreshDayValues(DayValueStore store) {
+        if (store != null && store.getMonthVersion(year, month) != valuesVersion) {
+            loadDayValues(store);
+        }
+    }
+
+    /**
+     * 是否是同一天
+     * @param monthDay
+     * @param compYear
+     * @param compMonth
+     * @param compDay
+     * @return
+     */
+    boolean sameDay(int monthDay, int compYear, int compMonth, int compDay) {
+        return (year == compYear) && (month == compMonth) && (monthDay == compDay);
+    }
+
+    /**
+     * 是否是小于这一天
+     *
+     * @param monthDay
+     * @param today
+     * @return
+     */
+    private boolean prevDay(int monthDay, CalendarContext today) {
+        return ((year < today.todayYear)) || (year == today.todayYear && month < today.todayMonth) || (month == today.todayMonth && monthDay < today.todayDay);
+    }
+
+    /**
+     * 计算选中范围在这个月中的部分
+     */
+    private void computeSelectedRange() {
+        rangeFirstDay = -1;
+        rangeLastDay = -1;
+        rangeInnerFirstDay = Integer.MAX_VALUE;
+        rangeInnerLastDay = Integer.MIN_VALUE;
+        if (selectedBeginDay == -1 || selectedLastDay == -1) {
+            return;
+        }
+        int begin = toDateKey(selectedBeginYear, selectedBeginMonth, selectedBeginDay);
+        int last = toDateKey(selectedLastYear, selectedLastMonth, selectedLastDay);
+        int lo = Math.min(begin, last);
+        int hi = Math.max(begin, last);
+        int monthFirst = toDateKey(year, month, 1);
+        int monthLast = toDateKey(year, month, numCells);
+        if (lo == hi || hi < monthFirst || lo > monthLast) {
+            return;
+        }
+        if (lo < monthFirst) {
+            rangeFirstDay = 1;
+            rangeInnerFirstDay = 1;
+        } else {
+            rangeFirstDay = lo % 100;
+            rangeInnerFirstDay = rangeFirstDay + 1;
+        }
+        if (hi > monthLast) {
+            rangeLastDay = numCells;
+            rangeInnerLastDay = numCells;
+        } else {
+            rangeLastDay = hi % 100;
+            rangeInnerLastDay = rangeLastDay - 1;
+        }
+    }
+
+    private static int toDateKey(int year, int month, int day) {
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * 计算这个月每一天的状态
+     */
+    private void computeDayFlags(MonthRenderContext rc) {
+        final CalendarContext todayContext = rc.calendarContext;
+        final boolean singleDay = selectedBeginDay != -1 && selectedLastDay != -1 && selectedBeginYear == selectedLastYear
+                && selectedBeginMonth == selectedLastMonth && selectedBeginDay == selectedLastDay;
+        for (int day = 1; day <= numCells; day++) {
+            int flags = 0;
+            if (sameDay(day, selectedBeginYear, selectedBeginMonth, selectedBeginDay) || sameDay(day, selectedLastYear, selectedLastMonth, selectedLastDay)) {
+                flags |= DayCell.FLAG_SELECTED;
+                if (singleDay) {
+                    flags |= DayCell.FLAG_SINGLE_DAY;
+                }
+            }
+            if (holidayLabels != null && !TextUtils.isEmpty(holidayLabels[day])) {
+                flags |= DayCell.FLAG_HOLIDAY;
+            }
+            if (day >= rangeInnerFirstDay && day <= rangeInnerLastDay) {
+                flags |= DayCell.FLAG_IN_RANGE;
+            }
+            if (lunarLabels != null && lunarLabels.isSolarTerm(day)) {
+                flags |= DayCell.FLAG_SOLAR_TERM;
+            }
+            if (hasToday && day == today) {
+                flags |= DayCell.FLAG_TODAY;
+            }
+            if (!rc.isPrevDayEnabled && prevDay(day, todayContext) && todayContext.todayMonth == month && todayContext.todayYear == year) {
+                flags |= DayCell.FLAG_PREVIOUS;
+            }
+            dayFlags[day] = flags;
+        }
+    }
+}
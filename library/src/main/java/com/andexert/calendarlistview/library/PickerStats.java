@@ -0,0 +1,88 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/29
+ * @description 日历列表的运行计数：创建、绑定、测量、重新布局、绘制和Adapter通知的次数。
+ * 用于对比不同版本滚动、点击、选择范围时的开销，只在主线程更新，不设置时没有开销
+ */
+public final class PickerStats {
+
+    int creates;                                                                            //onCreateViewHolder次数
+    int binds;                                                                              //onBindViewHolder次数
+    int measures;                                                                           //月份控件onMeasure次数
+    int relayouts;                                                                          //复用时高度变化引起的requestLayout次数
+    int draws;                                                                              //月份控件onDraw次数
+    int notifies;                                                                           //Adapter发出的数据变化通知次数
+    int notifiedItems;                                                                      //通知涉及的条目数，notifyDataSetChanged记为getItemCount()
+
+    public int getCreates() {
+        return creates;
+    }
+
+    public int getBinds() {
+        return binds;
+    }
+
+    public int getMeasures() {
+        return measures;
+    }
+
+    public int getRelayouts() {
+        return relayouts;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getNotifies() {
+        return notifies;
+    }
+
+    public int getNotifiedItems() {
+        return notifiedItems;
+    }
+
+    public void reset() {
+        creates = 0;
+        binds = 0;
+        measures = 0;
+        relayouts = 0;
+        draws = 0;
+        notifies = 0;
+        notifiedItems = 0;
+    }
+
+    /**
+     * 固定顺序的一行文字，方便不同版本之间直接diff
+     */
+    @Override
+    public String toString() {
+        return "creates=" + creates + " binds=" + binds + " measures=" + measures + " relayouts=" + relayouts
+                + " draws=" + draws + " notifies=" + notifies + " notified_items=" + notifiedItems;
+    }
+}
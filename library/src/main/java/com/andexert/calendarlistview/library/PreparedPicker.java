@@ -0,0 +1,212 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.andexert.calendarlistview.core.DayLabelRegistry;
+import com.andexert.calendarlistview.core.EventIndex;
+import com.andexert.calendarlistview.core.HolidayIndex;
+import com.andexert.calendarlistview.core.LunarCalendar;
+import com.andexert.calendarlistview.core.MonthGeometry;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/30
+ * @description 在后台线程提前准备好的日历：读取样式、建立绘制状态、节假日索引、事件索引，
+ * 并把第一屏几个月的格子、标签和标题计算好。主线程只需要DayPickerView.setController(controller, prepared)，
+ * 点击按钮到第一帧之间不再做这些工作
+ */
+public final class PreparedPicker {
+
+    private static final int DEFAULT_FIRST_SCREEN_MONTHS = 4;
+
+    /**
+     * 准备时使用的参数，没有设置的项使用默认值
+     */
+    public static final class Spec {
+        int styleRes;
+        String timeZone = DayPickerView.DEFAULT_TIME_ZONE;
+        int firstDayOfWeek = CalendarContext.WEEK_START_DEFAULT;
+        Boolean showLunar;
+        Map<String, String> holidays;
+        int[] eventStartEpochDays;
+        int[] eventEndEpochDays;
+        int firstScreenMonths = DEFAULT_FIRST_SCREEN_MONTHS;
+
+        /**
+         * 样式资源，属性和xml中的DayPickerView属性相同。准备好的日历使用这里的样式，不使用布局中的属性
+         */
+        public Spec setStyle(int styleRes) {
+            this.styleRes = styleRes;
+            return this;
+        }
+
+        public Spec setTimeZone(String timeZone) {
+            this.timeZone = timeZone;
+            return this;
+        }
+
+        /**
+         * @param firstDayOfWeek    Calendar.SUNDAY - Calendar.SATURDAY，0时使用Locale默认值
+         */
+        public Spec setFirstDayOfWeek(int firstDayOfWeek) {
+            this.firstDayOfWeek = firstDayOfWeek;
+            return this;
+        }
+
+        public Spec setShowLunar(boolean showLunar) {
+            this.showLunar = showLunar;
+            return this;
+        }
+
+        /**
+         * 节假日，和DayPickerView.setHoliday相同，准备完成时已经生效
+         */
+        public Spec setHolidays(Map<String, String> holidays) {
+            this.holidays = holidays;
+            return this;
+        }
+
+        /**
+         * 事件，和DayPickerView.loadEvents相同
+         */
+        public Spec setEvents(int[] startEpochDays, int[] endEpochDays) {
+            this.eventStartEpochDays = startEpochDays;
+            this.eventEndEpochDays = endEpochDays;
+            return this;
+        }
+
+        /**
+         * 提前计算多少个月，默认4个
+         */
+        public Spec setFirstScreenMonths(int firstScreenMonths) {
+            this.firstScreenMonths = firstScreenMonths;
+            return this;
+        }
+    }
+
+    public interface OnPreparedListener {
+        /**
+         * 在主线程回调
+         */
+        void onPickerPrepared(PreparedPicker prepared);
+    }
+
+    final String timeZone;
+    final int firstDayOfWeek;
+    final TypedArray typedArray;
+    final MonthRenderContext renderContext;
+    private boolean mAttached = false;
+
+    private PreparedPicker(Spec spec, TypedArray typedArray, MonthRenderContext renderContext) {
+        this.timeZone = spec.timeZone;
+        this.firstDayOfWeek = spec.firstDayOfWeek;
+        this.typedArray = typedArray;
+        this.renderContext = renderContext;
+    }
+
+    /**
+     * 在executor上准备日历，完成后在主线程回调listener
+     * @param context   用于读取样式和格式化标题，会一直被准备好的日历持有
+     * @param spec      准备开始后不要再修改
+     */
+    public static void prepare(final Context context, final Spec spec, Executor executor, final OnPreparedListener listener) {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final PreparedPicker prepared = prepareNow(context, spec);
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        listener.onPickerPrepared(prepared);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 在当前线程准备日历
+     */
+    public static PreparedPicker prepareNow(Context context, Spec spec) {
+        final TypedArray typedArray = context.obtainStyledAttributes(spec.styleRes, R.styleable.DayPickerView);
+        if (spec.holidays != null) {
+            CalendarUtils.setHolidayIndex(spec.holidays, spec.holidays.isEmpty() ? null : new HolidayIndex(spec.holidays));
+        }
+
+        final CalendarContext calendarContext = CalendarContext.create(TimeZone.getTimeZone(spec.timeZone), Locale.getDefault(), spec.firstDayOfWeek);
+        final MonthRenderContext rc = new MonthRenderContext(context, typedArray, calendarContext);
+        rc.labelRegistry = new DayLabelRegistry();
+        rc.labelRegistry.register(CalendarUtils.HOLIDAY_LABELS, DayPickerView.LABEL_PRIORITY_HOLIDAY);
+        if (spec.showLunar != null) {
+            rc.showLunar = spec.showLunar;
+        }
+        if (spec.eventStartEpochDays != null) {
+            rc.eventSource = EventIndex.build(spec.eventStartEpochDays, spec.eventEndEpochDays);
+        }
+
+        //第一屏的月份，和SimpleMonthAdapter第0个位置开始的月份一致
+        final int firstMonthAttr = typedArray.getInt(R.styleable.DayPickerView_firstMonth, -1);
+        int monthIndex = calendarContext.todayYear * 12 + (firstMonthAttr != -1 ? firstMonthAttr : calendarContext.todayMonth);
+        for (int i = 0; i < spec.firstScreenMonths; i++, monthIndex++) {
+            final int year = monthIndex / 12;
+            final int month = monthIndex % 12;
+            MonthGeometry.get(year, month, calendarContext.weekStart);
+            rc.labelRegistry.getMonthLabels(year, month);
+            rc.getMonthTitle(year, month);
+            if (rc.showLunar) {
+                LunarCalendar.getMonthLabels(year, month);
+            }
+        }
+        return new PreparedPicker(spec, typedArray, rc);
+    }
+
+    /**
+     * 用准备好的样式、节假日和事件绘制月份，不需要DayPickerView（例如桌面小部件）
+     * @return
+     */
+    public MonthRenderer getMonthRenderer() {
+        return renderContext.renderer;
+    }
+
+    /**
+     * 每个准备好的日历只能给一个DayPickerView使用
+     */
+    void markAttached() {
+        if (mAttached) {
+            throw new IllegalStateException("PreparedPicker is already attached to a DayPickerView");
+        }
+        mAttached = true;
+    }
+}
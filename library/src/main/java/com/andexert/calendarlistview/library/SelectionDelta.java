@@ -0,0 +1,180 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import com.andexert.calendarlistview.core.CalendarDates;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/24
+ * @description 一帧内选择的变化：变化前、变化后的开始和结束（纪元日），以及需要重新绘制的月份
+ *              同一帧里的多次点击合并成一个SelectionDelta，创建后不可修改
+ */
+public final class SelectionDelta {
+
+    public static final int NO_DAY = Integer.MIN_VALUE;                                     //没有选择
+
+    private final int mOldFirst;
+    private final int mOldLast;
+    private final int mNewFirst;
+    private final int mNewLast;
+    private final int[] mAffectedMonths;                                                    //year * 12 + month，升序
+    private final TimeZone mTimeZone;
+
+    SelectionDelta(int oldFirst, int oldLast, int newFirst, int newLast, TimeZone timeZone) {
+        mOldFirst = oldFirst;
+        mOldLast = oldLast;
+        mNewFirst = newFirst;
+        mNewLast = newLast;
+        mTimeZone = timeZone;
+        mAffectedMonths = computeAffectedMonths(oldFirst, oldLast, newFirst, newLast);
+    }
+
+    public int getOldFirstEpochDay() {
+        return mOldFirst;
+    }
+
+    public int getOldLastEpochDay() {
+        return mOldLast;
+    }
+
+    public int getNewFirstEpochDay() {
+        return mNewFirst;
+    }
+
+    public int getNewLastEpochDay() {
+        return mNewLast;
+    }
+
+    public SimpleMonthAdapter.CalendarDay getOldFirst() {
+        return toCalendarDay(mOldFirst);
+    }
+
+    public SimpleMonthAdapter.CalendarDay getOldLast() {
+        return toCalendarDay(mOldLast);
+    }
+
+    public SimpleMonthAdapter.CalendarDay getNewFirst() {
+        return toCalendarDay(mNewFirst);
+    }
+
+    public SimpleMonthAdapter.CalendarDay getNewLast() {
+        return toCalendarDay(mNewLast);
+    }
+
+    /**
+     * 变化后开始和结束都已选择
+     * @return
+     */
+    public boolean isRangeComplete() {
+        return mNewFirst != NO_DAY && mNewLast != NO_DAY;
+    }
+
+    /**
+     * 选择是否有变化
+     * @return
+     */
+    public boolean isChanged() {
+        return mOldFirst != mNewFirst || mOldLast != mNewLast;
+    }
+
+    /**
+     * 需要重新绘制的月份
+     * @return  year * 12 + month（0 - 11），升序
+     */
+    public int[] getAffectedMonths() {
+        return Arrays.copyOf(mAffectedMonths, mAffectedMonths.length);
+    }
+
+    private SimpleMonthAdapter.CalendarDay toCalendarDay(int epochDay) {
+        if (epochDay == NO_DAY) {
+            return null;
+        }
+        int key = CalendarDates.toDateKey(epochDay);
+        return new SimpleMonthAdapter.CalendarDay(key / 10000, key / 100 % 100, key % 100, mTimeZone);
+    }
+
+    /**
+     * 计算需要重新绘制的月份：只在一边的选择范围内的月份，以及包含任意一个开始、结束日的月份
+     * 两边都完全覆盖、且没有开始结束日的月份绘制结果不变，不需要重新绑定
+     */
+    static int[] computeAffectedMonths(int oldFirst, int oldLast, int newFirst, int newLast) {
+        int[] oldSpan = getMonthSpan(oldFirst, oldLast);
+        int[] newSpan = getMonthSpan(newFirst, newLast);
+        int[] endpoints = {toMonth(oldFirst), toMonth(oldLast), toMonth(newFirst), toMonth(newLast)};
+        if (oldSpan == null && newSpan == null) {
+            return new int[0];
+        }
+        int from = oldSpan == null ? newSpan[0] : newSpan == null ? oldSpan[0] : Math.min(oldSpan[0], newSpan[0]);
+        int to = oldSpan == null ? newSpan[1] : newSpan == null ? oldSpan[1] : Math.max(oldSpan[1], newSpan[1]);
+        int[] months = new int[to - from + 1];
+        int count = 0;
+        for (int month = from; month <= to; month++) {
+            boolean inOld = oldSpan != null && month >= oldSpan[0] && month <= oldSpan[1];
+            boolean inNew = newSpan != null && month >= newSpan[0] && month <= newSpan[1];
+            if (!inOld && !inNew) {
+                continue;
+            }
+            boolean affected = inOld != inNew;
+            for (int i = 0; i < endpoints.length && !affected; i++) {
+                affected = endpoints[i] == month;
+            }
+            if (affected) {
+                months[count++] = month;
+            }
+        }
+        return Arrays.copyOf(months, count);
+    }
+
+    /**
+     * 选择覆盖的月份 {第一个月, 最后一个月}，没有选择时返回null
+     */
+    private static int[] getMonthSpan(int first, int last) {
+        if (first == NO_DAY && last == NO_DAY) {
+            return null;
+        }
+        int a = toMonth(first == NO_DAY ? last : first);
+        int b = toMonth(last == NO_DAY ? first : last);
+        return new int[]{Math.min(a, b), Math.max(a, b)};
+    }
+
+    private static int toMonth(int epochDay) {
+        if (epochDay == NO_DAY) {
+            return Integer.MIN_VALUE;
+        }
+        int key = CalendarDates.toDateKey(epochDay);
+        return key / 10000 * 12 + key / 100 % 100;
+    }
+
+    public interface OnSelectionChangedListener {
+        /**
+         * 每帧最多回调一次
+         * @param delta
+         */
+        void onSelectionChanged(SelectionDelta delta);
+    }
+}
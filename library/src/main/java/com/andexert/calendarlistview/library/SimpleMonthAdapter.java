@@ -26,16 +26,21 @@ package com.andexert.calendarlistview.library;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.support.annotation.NonNull;
+import android.support.v4.view.ViewCompat;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewGroup.LayoutParams;
 import android.widget.AbsListView;
 
-import java.io.Serializable;
+import com.andexert.calendarlistview.core.CalendarDates;
+import com.andexert.calendarlistview.core.DayLabelRegistry;
+import com.andexert.calendarlistview.core.DayValueStore;
+import com.andexert.calendarlistview.core.HolidayIndex;
+import com.andexert.calendarlistview.core.MonthEventSource;
+
 import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
+import java.util.Locale;
 import java.util.TimeZone;
 
 public class SimpleMonthAdapter extends RecyclerView.Adapter<SimpleMonthAdapter.ViewHolder> implements SimpleMonthView.OnDayClickListener {
@@ -43,90 +48,379 @@ public class SimpleMonthAdapter extends RecyclerView.Adapter<SimpleMonthAdapter.
     private final TypedArray typedArray;
 	private final Context mContext;
 	private final DatePickerController mController;
-    private final Calendar calendar;
     private final SelectedDays<CalendarDay> selectedDays;
-    private final Integer firstMonth;
-    private final Integer lastMonth;
+    private final int mFirstMonthAttr;                                                      //xml中设置的firstMonth，未设置为-1
+    private final int mLastMonthAttr;                                                       //xml中设置的lastMonth，未设置为-1
+    private int firstMonth;
+    private int lastMonth;
+    private int mCurrentYear;                                                               //列表从这一年开始，随时区变化
     private TimeZone mTimeZone;
+    private MonthRenderContext mRenderContext;
+    private HolidayIndex mHolidayIndex;                                                     //最后一次合并时CalendarUtils的节假日索引
+    private RecyclerView mRecyclerView;
+    private SelectionDelta.OnSelectionChangedListener mOnSelectionChangedListener;
+    private boolean mSelectionDispatchPending = false;                                      //这一帧已经有等待分发的选择变化
+    private int mPendingOldFirst = SelectionDelta.NO_DAY;                                   //这一帧第一次变化前的选择
+    private int mPendingOldLast = SelectionDelta.NO_DAY;
+    private CalendarDay mPendingTappedDay;                                                  //这一帧最后点击的日期
+    private final Runnable mDispatchSelection = new Runnable() {
+        @Override
+        public void run() {
+            dispatchSelectionChanged();
+        }
+    };
+
+    private final RecyclerView.AdapterDataObserver mStatsObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            countNotify(getItemCount());
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            countNotify(itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            countNotify(itemCount);
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            countNotify(itemCount);
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            countNotify(itemCount);
+        }
+    };
 
 	public SimpleMonthAdapter(Context context, DatePickerController datePickerController, TypedArray typedArray, String timeZone) {
+        this(context, datePickerController, typedArray, new MonthRenderContext(context, typedArray,
+                CalendarContext.create(TimeZone.getTimeZone(timeZone), Locale.getDefault(), CalendarContext.WEEK_START_DEFAULT)));
+	}
+
+    /**
+     * 使用已经建立好的绘制状态（PreparedPicker在后台线程建立）
+     */
+    SimpleMonthAdapter(Context context, DatePickerController datePickerController, TypedArray typedArray, MonthRenderContext renderContext) {
         this.typedArray = typedArray;
-        this.mTimeZone = TimeZone.getTimeZone(timeZone);
-        calendar = Calendar.getInstance(mTimeZone);
-        firstMonth = typedArray.getInt(R.styleable.DayPickerView_firstMonth, calendar.get(Calendar.MONTH));
-        lastMonth = typedArray.getInt(R.styleable.DayPickerView_lastMonth, (calendar.get(Calendar.MONTH) - 1) % MONTHS_IN_YEAR);
+        mFirstMonthAttr = typedArray.getInt(R.styleable.DayPickerView_firstMonth, -1);
+        mLastMonthAttr = typedArray.getInt(R.styleable.DayPickerView_lastMonth, -1);
         selectedDays = new SelectedDays<>();
-		mContext = context;
-		mController = datePickerController;
-		init();
-	}
+        mContext = context;
+        mController = datePickerController;
+        mRenderContext = renderContext;
+        if (mRenderContext.labelRegistry == null) {
+            mRenderContext.labelRegistry = new DayLabelRegistry();
+            mRenderContext.labelRegistry.register(CalendarUtils.HOLIDAY_LABELS, DayPickerView.LABEL_PRIORITY_HOLIDAY);
+        }
+        mHolidayIndex = CalendarUtils.getHolidayIndex();
+        applyCalendarContext(renderContext.calendarContext);
+        init();
+    }
 
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup viewGroup, int i) {
-        final SimpleMonthView simpleMonthView = new SimpleMonthView(mContext, typedArray, mTimeZone);
+        if (mRenderContext.stats != null) {
+            mRenderContext.stats.creates++;
+        }
+        final SimpleMonthView simpleMonthView = new SimpleMonthView(mContext, mRenderContext);
         return new ViewHolder(simpleMonthView, this);
     }
 
     @Override
     public void onBindViewHolder(ViewHolder viewHolder, int position) {
         final SimpleMonthView v = viewHolder.simpleMonthView;
-        final HashMap<String, Integer> drawingParams = new HashMap<String, Integer>();
-        int month;
-        int year;
-
-        month = (firstMonth + (position % MONTHS_IN_YEAR)) % MONTHS_IN_YEAR;
-        year = position / MONTHS_IN_YEAR + calendar.get(Calendar.YEAR) + ((firstMonth + (position % MONTHS_IN_YEAR)) / MONTHS_IN_YEAR);
-
-        int selectedFirstDay = -1;
-        int selectedLastDay = -1;
-        int selectedFirstMonth = -1;
-        int selectedLastMonth = -1;
-        int selectedFirstYear = -1;
-        int selectedLastYear = -1;
-
-        if (selectedDays.getFirst() != null) {
-            selectedFirstDay = selectedDays.getFirst().day;
-            selectedFirstMonth = selectedDays.getFirst().month;
-            selectedFirstYear = selectedDays.getFirst().year;
-        }
-
-        if (selectedDays.getLast() != null) {
-            selectedLastDay = selectedDays.getLast().day;
-            selectedLastMonth = selectedDays.getLast().month;
-            selectedLastYear = selectedDays.getLast().year;
-        }
-
-        v.reuse();
-
-        drawingParams.put(SimpleMonthView.VIEW_PARAMS_SELECTED_BEGIN_YEAR, selectedFirstYear);
-        drawingParams.put(SimpleMonthView.VIEW_PARAMS_SELECTED_LAST_YEAR, selectedLastYear);
-        drawingParams.put(SimpleMonthView.VIEW_PARAMS_SELECTED_BEGIN_MONTH, selectedFirstMonth);
-        drawingParams.put(SimpleMonthView.VIEW_PARAMS_SELECTED_LAST_MONTH, selectedLastMonth);
-        drawingParams.put(SimpleMonthView.VIEW_PARAMS_SELECTED_BEGIN_DAY, selectedFirstDay);
-        drawingParams.put(SimpleMonthView.VIEW_PARAMS_SELECTED_LAST_DAY, selectedLastDay);
-        drawingParams.put(SimpleMonthView.VIEW_PARAMS_YEAR, year);
-        drawingParams.put(SimpleMonthView.VIEW_PARAMS_MONTH, month);
-        drawingParams.put(SimpleMonthView.VIEW_PARAMS_WEEK_START, calendar.getFirstDayOfWeek());
-        v.setMonthParams(drawingParams);
+        final int monthIndex = getMonthIndex(position);
+        checkHolidayIndex();
+        if (mRenderContext.stats != null) {
+            mRenderContext.stats.binds++;
+        }
+
+        v.setRenderContext(mRenderContext);
+        v.setOnDayClickListener(this);                                                      //共享缓存池时Holder可能由其他Adapter创建
+        v.setMonth(monthIndex / MONTHS_IN_YEAR, monthIndex % MONTHS_IN_YEAR, mRenderContext.calendarContext.weekStart,
+                toEpochDay(selectedDays.getFirst()), toEpochDay(selectedDays.getLast()));
         v.invalidate();
     }
 
+    /**
+     * 某个月在列表中的位置
+     * @param year
+     * @param month     0 - 11
+     * @return  不在显示范围内时返回RecyclerView.NO_POSITION
+     */
+    public int getPositionForMonth(int year, int month) {
+        int position = getPositionForMonthUnchecked(year, month);
+        return position < 0 || position >= getItemCount() ? RecyclerView.NO_POSITION : position;
+    }
+
+    private int getPositionForMonthUnchecked(int year, int month) {
+        return year * MONTHS_IN_YEAR + month - (mCurrentYear * MONTHS_IN_YEAR + firstMonth);
+    }
+
+    /**
+     * 列表中某个位置的月份
+     * @param position
+     * @return  year * 12 + month（0 - 11）
+     */
+    int getMonthIndex(int position) {
+        return mCurrentYear * MONTHS_IN_YEAR + firstMonth + position;
+    }
+
+    /**
+     * 第一个月所在的年
+     * @return
+     */
+    int getFirstYear() {
+        return mCurrentYear + firstMonth / MONTHS_IN_YEAR;
+    }
+
+    int getLastYear() {
+        return mController.getMaxYear();
+    }
+
+    MonthRenderContext getRenderContext() {
+        return mRenderContext;
+    }
+
     public long getItemId(int position) {
 		return position;
 	}
 
     /**
-     * 设置时区
+     * 设置时区：换成新的CalendarContext后只刷新一次，画笔、标题等缓存都保留
      * @param timeZone
      */
     public void setTimeZone(@NonNull String timeZone) {
-        this.mTimeZone = TimeZone.getTimeZone(timeZone);
+        setCalendarContext(mRenderContext.calendarContext.withTimeZone(TimeZone.getTimeZone(timeZone)));
+    }
+
+    /**
+     * 设置一周的第一天
+     * @param weekStart     Calendar.SUNDAY - Calendar.SATURDAY，0表示使用Locale默认值
+     */
+    public void setFirstDayOfWeek(int weekStart) {
+        setCalendarContext(mRenderContext.calendarContext.withWeekStart(weekStart));
+    }
+
+    public int getFirstDayOfWeek() {
+        return mRenderContext.calendarContext.weekStart;
+    }
+
+    private void setCalendarContext(CalendarContext calendarContext) {
+        if (calendarContext.isSameAs(mRenderContext.calendarContext)) {
+            return;
+        }
+        applyCalendarContext(calendarContext);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * 时区决定今天是哪一天，也就决定了列表从哪一年、哪个月开始
+     */
+    private void applyCalendarContext(CalendarContext calendarContext) {
+        mRenderContext.calendarContext = calendarContext;
+        mTimeZone = calendarContext.timeZone;
+        mCurrentYear = calendarContext.todayYear;
+        firstMonth = mFirstMonthAttr != -1 ? mFirstMonthAttr : calendarContext.todayMonth;
+        lastMonth = mLastMonthAttr != -1 ? mLastMonthAttr : (calendarContext.todayMonth - 1) % MONTHS_IN_YEAR;
+    }
+
+    /**
+     * 每个月固定显示6行，所有月份高度相同，复用时不会再触发重新布局
+     * @param fixedMonthHeight
+     */
+    public void setFixedMonthHeight(boolean fixedMonthHeight) {
+        if (mRenderContext.fixedNumRows != fixedMonthHeight) {
+            mRenderContext.fixedNumRows = fixedMonthHeight;
+            notifyDataSetChanged();
+        }
+    }
+
+    public boolean isFixedMonthHeight() {
+        return mRenderContext.fixedNumRows;
+    }
+
+    /**
+     * 月份标题和星期由MonthHeaderDecoration绘制，月份控件不再预留头部
+     * @param headerDecorated
+     */
+    void setHeaderDecorated(boolean headerDecorated) {
+        if (mRenderContext.headerDecorated != headerDecorated) {
+            mRenderContext.headerDecorated = headerDecorated;
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * 事件标记的数据，每个月绑定时读取一次
+     * @param eventSource   为null时不绘制事件标记
+     */
+    public void setEventSource(MonthEventSource eventSource) {
+        if (mRenderContext.eventSource == eventSource) {
+            return;
+        }
+        mRenderContext.eventSource = eventSource;
+        notifyDataSetChanged();
+    }
+
+    void setDayValueStore(DayValueStore dayValues) {
+        if (mRenderContext.dayValues != dayValues) {
+            mRenderContext.dayValues = dayValues;
+            notifyDataSetChanged();
+        }
+    }
+
+    public MonthEventSource getEventSource() {
+        return mRenderContext.eventSource;
+    }
+
+    /**
+     * 只重新绑定包含这些日期的月份
+     * @param startEpochDay
+     * @param endEpochDay   不包含
+     */
+    public void notifyDaysChanged(int startEpochDay, int endEpochDay) {
+        int first = CalendarDates.toDateKey(startEpochDay);
+        int last = CalendarDates.toDateKey(Math.max(endEpochDay - 1, startEpochDay));
+        int firstPosition = Math.max(0, getPositionForMonthUnchecked(first / 10000, first / 100 % 100));
+        int lastPosition = Math.min(getItemCount() - 1, getPositionForMonthUnchecked(last / 10000, last / 100 % 100));
+        if (firstPosition <= lastPosition) {
+            notifyItemRangeChanged(firstPosition, lastPosition - firstPosition + 1);
+        }
+    }
+
+    /**
+     * 设置合并标签的注册表，DayPickerView的标签来源都注册在这里
+     * @param labelRegistry
+     */
+    void setLabelRegistry(DayLabelRegistry labelRegistry) {
+        if (mRenderContext.labelRegistry != labelRegistry) {
+            mRenderContext.labelRegistry = labelRegistry;
+            notifyDataSetChanged();
+        }
+    }
+
+    DayLabelRegistry getLabelRegistry() {
+        return mRenderContext.labelRegistry;
+    }
+
+    /**
+     * 某个标签来源在这些日期上有变化：只重新合并并刷新这些日期所在的月份
+     * @param startEpochDay
+     * @param endEpochDay   不包含
+     */
+    public void notifyLabelsChanged(int startEpochDay, int endEpochDay) {
+        mRenderContext.labelRegistry.invalidate(startEpochDay, endEpochDay);
+        notifyDaysChanged(startEpochDay, endEpochDay);
+    }
+
+    /**
+     * 节假日被替换后调用，只刷新节假日有变化的月份
+     */
+    void notifyHolidaysChanged() {
+        HolidayIndex oldIndex = mHolidayIndex;
+        mHolidayIndex = CalendarUtils.getHolidayIndex();
+        for (int month : HolidayIndex.getChangedMonths(oldIndex, mHolidayIndex)) {
+            mRenderContext.labelRegistry.invalidateMonth(month / MONTHS_IN_YEAR, month % MONTHS_IN_YEAR);
+            int position = getPositionForMonth(month / MONTHS_IN_YEAR, month % MONTHS_IN_YEAR);
+            if (position != RecyclerView.NO_POSITION) {
+                notifyItemChanged(position);
+            }
+        }
+    }
+
+    /**
+     * 其他日历调用setHoliday时这个Adapter没有收到通知，不知道哪些月份有变化，丢弃所有合并结果
+     */
+    private void checkHolidayIndex() {
+        HolidayIndex holidayIndex = CalendarUtils.getHolidayIndex();
+        if (holidayIndex != mHolidayIndex) {
+            mHolidayIndex = holidayIndex;
+            mRenderContext.labelRegistry.invalidateAll();
+        }
+    }
+
+    private void countNotify(int itemCount) {
+        final PickerStats stats = mRenderContext.stats;
+        if (stats != null) {
+            stats.notifies++;
+            stats.notifiedItems += itemCount;
+        }
+    }
+
+    /**
+     * 日期下面显示农历和节气
+     * @param showLunar
+     */
+    public void setShowLunar(boolean showLunar) {
+        if (mRenderContext.showLunar != showLunar) {
+            mRenderContext.showLunar = showLunar;
+            notifyDataSetChanged();
+        }
+    }
+
+    public boolean isShowLunar() {
+        return mRenderContext.showLunar;
+    }
+
+    /**
+     * 开始或停止统计运行计数
+     * @param stats     为null时停止统计
+     */
+    public void setStats(PickerStats stats) {
+        if (mRenderContext.stats == stats) {
+            return;
+        }
+        if (mRenderContext.stats != null) {
+            unregisterAdapterDataObserver(mStatsObserver);
+        }
+        mRenderContext.stats = stats;
+        if (stats != null) {
+            registerAdapterDataObserver(mStatsObserver);
+        }
+    }
+
+    public PickerStats getStats() {
+        return mRenderContext.stats;
+    }
+
+    /**
+     * 设置日期格子的绘制
+     * @param renderer  为null时恢复默认绘制
+     */
+    public void setDayCellRenderer(DayCellRenderer renderer) {
+        DayCellRenderer newRenderer = renderer == null ? mRenderContext.defaultDayCellRenderer : renderer;
+        if (mRenderContext.dayCellRenderer == newRenderer) {
+            return;
+        }
+        mRenderContext.dayCellRenderer = newRenderer;
         notifyDataSetChanged();
     }
 
+    /**
+     * 默认的日期格子绘制，自定义绘制时可以先委托给它再叠加自己的内容
+     * @return
+     */
+    public DayCellRenderer getDefaultDayCellRenderer() {
+        return mRenderContext.defaultDayCellRenderer;
+    }
+
+    /**
+     * 快速滑动时的简化绘制，由DayPickerView根据滑动速度切换
+     * @param lowDetail
+     */
+    void setLowDetail(boolean lowDetail) {
+        mRenderContext.lowDetail = lowDetail;
+    }
+
     @Override
     public int getItemCount() {
-        int itemCount = (((mController.getMaxYear() - calendar.get(Calendar.YEAR)) + 1) * MONTHS_IN_YEAR);
+        int itemCount = (((mController.getMaxYear() - mCurrentYear) + 1) * MONTHS_IN_YEAR);
 
         if (firstMonth != -1)
             itemCount -= firstMonth;
@@ -152,7 +446,7 @@ public class SimpleMonthAdapter extends RecyclerView.Adapter<SimpleMonthAdapter.
 
 	protected void init() {
         if (typedArray.getBoolean(R.styleable.DayPickerView_currentDaySelected, false))
-            onDayTapped(new CalendarDay(System.currentTimeMillis(), mTimeZone));
+            onDayTapped(toCalendarDay(mRenderContext.calendarContext.todayEpochDay));
 	}
 
 	public void onDayClick(SimpleMonthView simpleMonthView, CalendarDay calendarDay) {
@@ -162,20 +456,15 @@ public class SimpleMonthAdapter extends RecyclerView.Adapter<SimpleMonthAdapter.
 	}
 
 	protected void onDayTapped(CalendarDay calendarDay) {
-		mController.onDayOfMonthSelected(calendarDay.year, calendarDay.month, calendarDay.day);
+		mPendingTappedDay = calendarDay;
 		setSelectedDay(calendarDay);
 	}
 
 	public void setSelectedDay(CalendarDay calendarDay) {
+        final int oldFirst = toEpochDay(selectedDays.getFirst());
+        final int oldLast = toEpochDay(selectedDays.getLast());
         if (selectedDays.getFirst() != null && selectedDays.getLast() == null) {
             selectedDays.setLast(calendarDay);
-
-            if (selectedDays.getFirst().month < calendarDay.month) {
-                for (int i = 0; i < selectedDays.getFirst().month - calendarDay.month - 1; ++i)
-                    mController.onDayOfMonthSelected(selectedDays.getFirst().year, selectedDays.getFirst().month + i, selectedDays.getFirst().day);
-            }
-
-            mController.onDateRangeSelected(selectedDays);
         }
         else if (selectedDays.getLast() != null) {
             selectedDays.setFirst(calendarDay);
@@ -184,117 +473,170 @@ public class SimpleMonthAdapter extends RecyclerView.Adapter<SimpleMonthAdapter.
         else
             selectedDays.setFirst(calendarDay);
 
-		notifyDataSetChanged();
+        //只重新绑定绘制结果有变化的月份
+        int[] affectedMonths = SelectionDelta.computeAffectedMonths(oldFirst, oldLast, toEpochDay(selectedDays.getFirst()), toEpochDay(selectedDays.getLast()));
+        for (int month : affectedMonths) {
+            int position = getPositionForMonth(month / MONTHS_IN_YEAR, month % MONTHS_IN_YEAR);
+            if (position != RecyclerView.NO_POSITION) {
+                notifyItemChanged(position);
+            }
+        }
+        scheduleSelectionDispatch(oldFirst, oldLast);
 	}
 
-	public static class CalendarDay implements Serializable {
-        private static final long serialVersionUID = -5456695978688356202L;
-        private Calendar calendar;
-        private TimeZone timeZone;
+    /**
+     * 直接选中一段日期（例如查找到的可预订窗口），和点击两次一样在下一帧回调
+     * @param firstEpochDay     入住日
+     * @param lastEpochDay      离店日
+     */
+    void setSelectedRange(int firstEpochDay, int lastEpochDay) {
+        final int oldFirst = toEpochDay(selectedDays.getFirst());
+        final int oldLast = toEpochDay(selectedDays.getLast());
+        selectedDays.setFirst(toCalendarDay(firstEpochDay));
+        selectedDays.setLast(toCalendarDay(lastEpochDay));
+
+        int[] affectedMonths = SelectionDelta.computeAffectedMonths(oldFirst, oldLast, firstEpochDay, lastEpochDay);
+        for (int month : affectedMonths) {
+            int position = getPositionForMonth(month / MONTHS_IN_YEAR, month % MONTHS_IN_YEAR);
+            if (position != RecyclerView.NO_POSITION) {
+                notifyItemChanged(position);
+            }
+        }
+        scheduleSelectionDispatch(oldFirst, oldLast);
+    }
+
+    /**
+     * 同一帧内的多次变化只在下一帧分发一次，记录这一帧第一次变化前的选择
+     */
+    private void scheduleSelectionDispatch(int oldFirst, int oldLast) {
+        if (mSelectionDispatchPending) {
+            return;
+        }
+        mSelectionDispatchPending = true;
+        mPendingOldFirst = oldFirst;
+        mPendingOldLast = oldLast;
+        if (mRecyclerView != null) {
+            ViewCompat.postOnAnimation(mRecyclerView, mDispatchSelection);
+        } else {
+            dispatchSelectionChanged();
+        }
+    }
+
+    /**
+     * 分发合并后的选择变化：DatePickerController每帧最多收到一次点击和一次范围回调
+     */
+    private void dispatchSelectionChanged() {
+        if (!mSelectionDispatchPending) {
+            return;
+        }
+        mSelectionDispatchPending = false;
+        final SelectionDelta delta = new SelectionDelta(mPendingOldFirst, mPendingOldLast,
+                toEpochDay(selectedDays.getFirst()), toEpochDay(selectedDays.getLast()), mTimeZone);
+        final CalendarDay tappedDay = mPendingTappedDay;
+        mPendingTappedDay = null;
+
+        if (tappedDay != null) {
+            mController.onDayOfMonthSelected(tappedDay.getYear(), tappedDay.getMonth(), tappedDay.getDay());
+        }
+        if (delta.isChanged() && delta.isRangeComplete()) {
+            mController.onDateRangeSelected(selectedDays);
+        }
+        if (mOnSelectionChangedListener != null && delta.isChanged()) {
+            mOnSelectionChangedListener.onSelectionChanged(delta);
+        }
+    }
+
+    /**
+     * 恢复保存的选择，不回调也不刷新，由调用者决定是否需要重新绑定
+     * @param firstEpochDay     SelectionDelta.NO_DAY 表示没有选择
+     * @param lastEpochDay
+     */
+    void restoreSelection(int firstEpochDay, int lastEpochDay) {
+        selectedDays.setFirst(toCalendarDay(firstEpochDay));
+        selectedDays.setLast(toCalendarDay(lastEpochDay));
+    }
+
+    int getSelectedFirstEpochDay() {
+        return toEpochDay(selectedDays.getFirst());
+    }
+
+    int getSelectedLastEpochDay() {
+        return toEpochDay(selectedDays.getLast());
+    }
+
+    private CalendarDay toCalendarDay(int epochDay) {
+        if (epochDay == SelectionDelta.NO_DAY) {
+            return null;
+        }
+        int key = CalendarDates.toDateKey(epochDay);
+        return new CalendarDay(key / 10000, key / 100 % 100, key % 100, mTimeZone);
+    }
+
+    private static int toEpochDay(CalendarDay calendarDay) {
+        return calendarDay == null ? SelectionDelta.NO_DAY : calendarDay.getEpochDay();
+    }
 
-		int day;
-		int month;
-		int year;
+    /**
+     * 合并后的选择变化，每帧最多回调一次
+     * @param onSelectionChangedListener
+     */
+    public void setOnSelectionChangedListener(SelectionDelta.OnSelectionChangedListener onSelectionChangedListener) {
+        mOnSelectionChangedListener = onSelectionChangedListener;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        mRecyclerView = recyclerView;
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        recyclerView.removeCallbacks(mDispatchSelection);
+        mRecyclerView = null;
+        //还没有分发的变化立即分发，不丢失回调
+        dispatchSelectionChanged();
+    }
+
+    @Override
+    public void onViewRecycled(ViewHolder holder) {
+        super.onViewRecycled(holder);
+        //分页模式预先建立的硬件层不带进缓存池
+        ViewCompat.setLayerType(holder.itemView, ViewCompat.LAYER_TYPE_NONE, null);
+    }
+
+    /**
+     * 保留在Adapter中以兼容原来的调用，实现在core模块
+     */
+	public static class CalendarDay extends com.andexert.calendarlistview.core.CalendarDay {
+        private static final long serialVersionUID = -5456695978688356202L;
 
         public CalendarDay(TimeZone timeZone) {
-			setTime(System.currentTimeMillis(), timeZone);
+			super(timeZone);
 		}
 
 		public CalendarDay(int year, int month, int day, TimeZone timeZone) {
-			setDay(year, month, day,timeZone);
+			super(year, month, day, timeZone);
 		}
 
 		public CalendarDay(long timeInMillis, TimeZone timeZone) {
-			setTime(timeInMillis, timeZone);
+			super(timeInMillis, timeZone);
 		}
 
 		public CalendarDay(Calendar calendar, TimeZone timeZone) {
-            this.timeZone = timeZone;
-			year = calendar.get(Calendar.YEAR);
-			month = calendar.get(Calendar.MONTH);
-			day = calendar.get(Calendar.DAY_OF_MONTH);
-		}
-
-		private void setTime(long timeInMillis, TimeZone timeZone) {
-            this.timeZone = timeZone;
-			if (calendar == null) {
-				calendar = Calendar.getInstance(timeZone);
-            }
-			calendar.setTimeInMillis(timeInMillis);
-			month = this.calendar.get(Calendar.MONTH);
-			year = this.calendar.get(Calendar.YEAR);
-			day = this.calendar.get(Calendar.DAY_OF_MONTH);
-		}
-
-		public void set(CalendarDay calendarDay) {
-		    year = calendarDay.year;
-			month = calendarDay.month;
-			day = calendarDay.day;
+			super(calendar, timeZone);
 		}
-
-		public void setDay(int year, int month, int day, TimeZone timeZone) {
-            this.timeZone = timeZone;
-			this.year = year;
-			this.month = month;
-			this.day = day;
-		}
-
-        public Date getDate() {
-            if (calendar == null) {
-                calendar = Calendar.getInstance(timeZone);
-            }
-            calendar.set(year, month, day);
-            return calendar.getTime();
-        }
-
-        @Override
-        public String toString() {
-            final StringBuilder stringBuilder = new StringBuilder();
-            stringBuilder.append("{ year: ");
-            stringBuilder.append(year);
-            stringBuilder.append(", month: ");
-            stringBuilder.append(month);
-            stringBuilder.append(", day: ");
-            stringBuilder.append(day);
-            stringBuilder.append(" }");
-
-            return stringBuilder.toString();
-        }
-
-        public int computeDays(CalendarDay calendarDay) {
-            long betweenTime = calendarDay.getDate().getTime() - getDate().getTime();
-            betweenTime = betweenTime / 1000 / 60 / 60 / 24;
-            return (int) betweenTime;
-        }
     }
 
     public SelectedDays<CalendarDay> getSelectedDays() {
         return selectedDays;
     }
 
-    public static class SelectedDays<K> implements Serializable {
+    /**
+     * 保留在Adapter中以兼容原来的调用，实现在core模块
+     */
+    public static class SelectedDays<K> extends com.andexert.calendarlistview.core.SelectedDays<K> {
         private static final long serialVersionUID = 3942549765282708376L;
-        private K first;
-        private K last;
-
-        public K getFirst()
-        {
-            return first;
-        }
-
-        public void setFirst(K first)
-        {
-            this.first = first;
-        }
-
-        public K getLast()
-        {
-            return last;
-        }
-
-        public void setLast(K last)
-        {
-            this.last = last;
-        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.graphics.Paint;
+import android.graphics.Paint.Align;
+import android.graphics.Paint.Style;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewGroup.LayoutParams;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/21
+ * @description 年视图列表的Adapter，每一项是一整年（12个月一次绘制），点击月份时对应的DayPickerView跳转到该月
+ *              通过 DayPickerView.createYearOverviewAdapter() 创建，设置给任意RecyclerView即可
+ */
+public class YearOverviewAdapter extends RecyclerView.Adapter<YearOverviewAdapter.ViewHolder> implements YearOverviewView.OnMonthClickListener {
+
+    private final DayPickerView mDayPickerView;
+    private final Paint mTitlePaint;
+    private final Paint mDayPaint;
+    private OnMonthSelectedListener mOnMonthSelectedListener;
+
+    YearOverviewAdapter(DayPickerView dayPickerView) {
+        mDayPickerView = dayPickerView;
+
+        mTitlePaint = new Paint();
+        mTitlePaint.setFakeBoldText(true);
+        mTitlePaint.setAntiAlias(true);
+        mTitlePaint.setTextAlign(Align.CENTER);
+        mTitlePaint.setStyle(Style.FILL);
+
+        mDayPaint = new Paint();
+        mDayPaint.setAntiAlias(true);
+        mDayPaint.setTextAlign(Align.CENTER);
+        mDayPaint.setStyle(Style.FILL);
+    }
+
+    /**
+     * 点击月份时的回调，在DayPickerView跳转之后调用（例如用来关闭年视图）
+     * @param onMonthSelectedListener
+     */
+    public void setOnMonthSelectedListener(OnMonthSelectedListener onMonthSelectedListener) {
+        mOnMonthSelectedListener = onMonthSelectedListener;
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup viewGroup, int viewType) {
+        YearOverviewView yearOverviewView = new YearOverviewView(viewGroup.getContext(), getMonthAdapter().getRenderContext(), mTitlePaint, mDayPaint);
+        yearOverviewView.setLayoutParams(new RecyclerView.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT));
+        yearOverviewView.setClickable(true);
+        yearOverviewView.setOnMonthClickListener(this);
+        return new ViewHolder(yearOverviewView);
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder viewHolder, int position) {
+        final SimpleMonthAdapter monthAdapter = getMonthAdapter();
+        final MonthRenderContext renderContext = monthAdapter.getRenderContext();
+        viewHolder.yearOverviewView.setYear(renderContext, monthAdapter.getFirstYear() + position, renderContext.calendarContext.weekStart);
+    }
+
+    @Override
+    public int getItemCount() {
+        SimpleMonthAdapter monthAdapter = getMonthAdapter();
+        if (monthAdapter == null) {
+            return 0;
+        }
+        return Math.max(0, monthAdapter.getLastYear() - monthAdapter.getFirstYear() + 1);
+    }
+
+    /**
+     * 某一年在列表中的位置
+     * @param year
+     * @return
+     */
+    public int getPositionForYear(int year) {
+        SimpleMonthAdapter monthAdapter = getMonthAdapter();
+        if (monthAdapter == null) {
+            return RecyclerView.NO_POSITION;
+        }
+        int position = year - monthAdapter.getFirstYear();
+        return position < 0 || position >= getItemCount() ? RecyclerView.NO_POSITION : position;
+    }
+
+    @Override
+    public void onMonthClick(int year, int month) {
+        mDayPickerView.scrollToMonth(year, month);
+        if (mOnMonthSelectedListener != null) {
+            mOnMonthSelectedListener.onMonthSelected(year, month);
+        }
+    }
+
+    private SimpleMonthAdapter getMonthAdapter() {
+        return mDayPickerView.mAdapter;
+    }
+
+    public static class ViewHolder extends RecyclerView.ViewHolder {
+        final YearOverviewView yearOverviewView;
+
+        public ViewHolder(View itemView) {
+            super(itemView);
+            yearOverviewView = (YearOverviewView) itemView;
+        }
+    }
+
+    public interface OnMonthSelectedListener {
+        void onMonthSelected(int year, int month);
+    }
+}
@@ -0,0 +1,187 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.andexert.calendarlistview.core.MonthGeometry;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/21
+ * @description 年视图：在一个控件里一次绘制一年的12个月（3列4行的迷你月历），用于快速跳转
+ */
+class YearOverviewView extends View {
+
+    static final int MONTH_COLUMNS = 3;
+    static final int MONTH_ROWS = 4;
+
+    private MonthRenderContext mRenderContext;
+    private final Paint mTitlePaint;                                                        //年份、月份标题画笔（同一个Adapter共享）
+    private final Paint mDayPaint;                                                          //迷你日期画笔（同一个Adapter共享）
+
+    private int mYear;
+    private String mYearTitle;
+    private int mWeekStart = 1;
+    private final String[][] mHolidayLabels = new String[12][];
+
+    private int mWidth;
+    private float mYearTitleHeight;
+    private float mMonthWidth;
+    private float mMonthHeight;
+    private float mMonthTitleHeight;
+    private float mDayWidth;
+    private float mDayHeight;
+
+    private OnMonthClickListener mOnMonthClickListener;
+
+    YearOverviewView(Context context, MonthRenderContext renderContext, Paint titlePaint, Paint dayPaint) {
+        super(context);
+        mRenderContext = renderContext;
+        mTitlePaint = titlePaint;
+        mDayPaint = dayPaint;
+    }
+
+    /**
+     * 绑定年份，12个月的网格和节假日都在这里一次取出，绘制时不再查询
+     * @param renderContext
+     * @param year
+     * @param weekStart
+     */
+    void setYear(MonthRenderContext renderContext, int year, int weekStart) {
+        mRenderContext = renderContext;
+        mYear = year;
+        mYearTitle = String.valueOf(year);
+        mWeekStart = weekStart;
+        for (int month = 0; month < 12; month++) {
+            mHolidayLabels[month] = renderContext.labelRegistry.getMonthLabels(year, month);
+        }
+        invalidate();
+    }
+
+    void setOnMonthClickListener(OnMonthClickListener onMonthClickListener) {
+        mOnMonthClickListener = onMonthClickListener;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        float monthWidth = (float) width / MONTH_COLUMNS;
+        float dayHeight = monthWidth / MonthGeometry.NUM_DAYS;
+        float monthHeight = dayHeight * (MonthGeometry.MAX_NUM_ROWS + 2);
+        setMeasuredDimension(width, (int) (monthHeight * MONTH_ROWS + dayHeight * 3));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        mWidth = w;
+        mMonthWidth = (float) w / MONTH_COLUMNS;
+        mDayWidth = mMonthWidth / MonthGeometry.NUM_DAYS;
+        mDayHeight = mDayWidth;
+        mMonthTitleHeight = mDayHeight * 2;
+        mMonthHeight = mMonthTitleHeight + mDayHeight * MonthGeometry.MAX_NUM_ROWS;
+        mYearTitleHeight = mDayHeight * 3;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        final MonthRenderContext rc = mRenderContext;
+        final CalendarContext today = rc.calendarContext;
+
+        mTitlePaint.setColor(rc.monthTextColor);
+        mTitlePaint.setTextSize(mDayHeight * 1.2f);
+        canvas.drawText(mYearTitle, mWidth / 2f, mYearTitleHeight * 0.6f, mTitlePaint);
+        mTitlePaint.setTextSize(mDayHeight * 0.8f);
+        for (int month = 0; month < 12; month++) {
+            float left = (month % MONTH_COLUMNS) * mMonthWidth;
+            float top = mYearTitleHeight + (month / MONTH_COLUMNS) * mMonthHeight;
+            canvas.drawText(rc.getShortMonthTitle(month), left + mMonthWidth / 2f, top + mMonthTitleHeight * 0.6f, mTitlePaint);
+        }
+
+        mDayPaint.setTextSize(mDayHeight * 0.55f);
+        int currentColor = rc.dayNumColor;
+        mDayPaint.setColor(currentColor);
+        for (int month = 0; month < 12; month++) {
+            final MonthGeometry geometry = MonthGeometry.get(mYear, month, mWeekStart);
+            final String[] holidays = mHolidayLabels[month];
+            final boolean isCurrentMonth = today.todayYear == mYear && today.todayMonth == month;
+            float left = (month % MONTH_COLUMNS) * mMonthWidth;
+            float top = mYearTitleHeight + (month / MONTH_COLUMNS) * mMonthHeight + mMonthTitleHeight;
+            for (int day = 1; day <= geometry.numCells; day++) {
+                int color = rc.dayNumColor;
+                if (isCurrentMonth && day == today.todayDay) {
+                    color = rc.selectedDaysColor;
+                } else if (holidays != null && holidays[day] != null) {
+                    color = rc.vacationDayColor;
+                } else if (!rc.isPrevDayEnabled && isCurrentMonth && day < today.todayDay) {
+                    color = rc.previousDayColor;
+                }
+                if (color != currentColor) {
+                    mDayPaint.setColor(color);
+                    currentColor = color;
+                }
+                float x = left + (geometry.getColumn(day) + 0.5f) * mDayWidth;
+                float y = top + (geometry.getRow(day) + 0.7f) * mDayHeight;
+                canvas.drawText(MonthRenderContext.getDayNumber(day), x, y, mDayPaint);
+            }
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (event.getAction() == MotionEvent.ACTION_UP && mOnMonthClickListener != null) {
+            int month = getMonthFromLocation(event.getX(), event.getY());
+            if (month != -1) {
+                mOnMonthClickListener.onMonthClick(mYear, month);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 根据点击位置计算月份
+     * @param x
+     * @param y
+     * @return  0 - 11，不在任何月份上时返回-1
+     */
+    private int getMonthFromLocation(float x, float y) {
+        if (y < mYearTitleHeight || x < 0 || x >= mWidth || mMonthHeight <= 0) {
+            return -1;
+        }
+        int column = (int) (x / mMonthWidth);
+        int row = (int) ((y - mYearTitleHeight) / mMonthHeight);
+        if (row >= MONTH_ROWS) {
+            return -1;
+        }
+        return row * MONTH_COLUMNS + column;
+    }
+
+    interface OnMonthClickListener {
+        void onMonthClick(int year, int month);
+    }
+}
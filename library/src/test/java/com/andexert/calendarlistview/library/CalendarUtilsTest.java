@@ -0,0 +1,81 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/21
+ * @description 节假日只能通过setHolidays替换：保存的是副本，修改传入的Map不影响已经建立的索引，再次设置后才生效
+ */
+public class CalendarUtilsTest {
+
+    @After
+    public void tearDown() {
+        CalendarUtils.setHolidays(null);
+    }
+
+    @Test
+    public void holidaysAreCopiedWhenSet() {
+        final Map<String, String> holidays = new HashMap<>();
+        holidays.put("20161001", "国庆");
+        CalendarUtils.setHolidays(holidays);
+        assertEquals("国庆", CalendarUtils.getMonthHolidays(2016, Calendar.OCTOBER)[1]);
+
+        holidays.put("20161002", "假期");
+        assertNull(CalendarUtils.getMonthHolidays(2016, Calendar.OCTOBER)[2]);
+        assertEquals(1, CalendarUtils.getHolidays().size());
+
+        CalendarUtils.setHolidays(holidays);
+        assertEquals("假期", CalendarUtils.getMonthHolidays(2016, Calendar.OCTOBER)[2]);
+    }
+
+    @Test
+    public void emptyHolidaysClearTheIndex() {
+        final Map<String, String> holidays = new HashMap<>();
+        holidays.put("20161001", "国庆");
+        CalendarUtils.setHolidays(holidays);
+        CalendarUtils.setHolidays(new HashMap<String, String>());
+        assertNull(CalendarUtils.getHolidayIndex());
+        assertNull(CalendarUtils.getMonthHolidays(2016, Calendar.OCTOBER));
+        assertEquals(0, CalendarUtils.getHolidays().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void holidaysCannotBeEditedInPlace() {
+        final Map<String, String> holidays = new HashMap<>();
+        holidays.put("20161001", "国庆");
+        CalendarUtils.setHolidays(holidays);
+        CalendarUtils.getHolidays().put("20161002", "假期");
+    }
+}
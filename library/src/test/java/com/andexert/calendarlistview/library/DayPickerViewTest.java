@@ -0,0 +1,169 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import com.andexert.calendarlistview.core.EventIndex;
+import com.andexert.calendarlistview.core.IcsCalendar;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author WeiDeng
+ * @date 16/6/25
+ * @description 没有显示在窗口中的DayPickerView在后台加载事件和导入.ics，结果通过主线程的Handler交回，不会因为控件没有显示而丢失；
+ *              导入成功或失败都回调一次
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DayPickerViewTest {
+
+    private static final String ICS = "BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"
+            + "BEGIN:VEVENT\r\nDTSTART;VALUE=DATE:20160701\r\nRRULE:FREQ=WEEKLY\r\nEND:VEVENT\r\n"
+            + "END:VCALENDAR\r\n";
+
+    private final List<Thread> mWorkers = new ArrayList<>();
+    private DayPickerView mPickerView;
+
+    @Before
+    public void setUp() {
+        mPickerView = new DayPickerView(RuntimeEnvironment.application);
+        mPickerView.setExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                final Thread worker = new Thread(command);
+                mWorkers.add(worker);
+                worker.start();
+            }
+        });
+    }
+
+    @Test
+    public void eventsLoadedWhileDetachedAreDelivered() throws InterruptedException {
+        mPickerView.loadEvents(new int[]{17000, 17010}, new int[]{17003, 17011});
+        finishWorkers();
+
+        assertTrue(mPickerView.getEventSource() instanceof EventIndex);
+        final EventIndex eventIndex = (EventIndex) mPickerView.getEventSource();
+        assertEquals(1, eventIndex.getCount(17002));
+        assertEquals(0, eventIndex.getCount(17003));
+        assertEquals(1, eventIndex.getCount(17010));
+    }
+
+    @Test
+    public void onlyTheLastLoadIsUsed() throws InterruptedException {
+        mPickerView.loadEvents(new int[]{17000}, null);
+        mPickerView.loadEvents(new int[]{17005}, null);
+        finishWorkers();
+
+        final EventIndex eventIndex = (EventIndex) mPickerView.getEventSource();
+        assertEquals(0, eventIndex.getCount(17000));
+        assertEquals(1, eventIndex.getCount(17005));
+    }
+
+    @Test
+    public void icsImportedWhileDetachedCallsListener() throws InterruptedException {
+        final RecordingListener listener = new RecordingListener();
+        mPickerView.importIcs(new StringReader(ICS), listener);
+        finishWorkers();
+
+        assertEquals(1, listener.imported.size());
+        assertEquals(0, listener.failures.size());
+        assertSame(listener.imported.get(0), mPickerView.getEventSource());
+        assertEquals(1, listener.imported.get(0).getEventCount());
+    }
+
+    @Test
+    public void failedIcsImportCallsListener() throws InterruptedException {
+        final RecordingListener listener = new RecordingListener();
+        mPickerView.importIcs(new Reader() {
+            @Override
+            public int read(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("unreadable");
+            }
+
+            @Override
+            public void close() {
+            }
+        }, listener);
+        finishWorkers();
+
+        assertEquals(0, listener.imported.size());
+        assertEquals(1, listener.failures.size());
+        assertEquals("unreadable", listener.failures.get(0).getMessage());
+    }
+
+    @Test
+    public void supersededIcsImportStillCallsListener() throws InterruptedException {
+        final RecordingListener listener = new RecordingListener();
+        mPickerView.importIcs(new StringReader(ICS), listener);
+        mPickerView.loadEvents(new int[]{17005}, null);
+        finishWorkers();
+
+        assertEquals(1, listener.imported.size());
+        assertTrue(mPickerView.getEventSource() instanceof EventIndex);
+    }
+
+    /**
+     * 等后台任务结束，再执行它们交回主线程的结果
+     */
+    private void finishWorkers() throws InterruptedException {
+        for (Thread worker : mWorkers) {
+            worker.join();
+        }
+        mWorkers.clear();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+    }
+
+    private static class RecordingListener implements DayPickerView.OnIcsImportListener {
+        final List<IcsCalendar> imported = new ArrayList<>();
+        final List<IOException> failures = new ArrayList<>();
+
+        @Override
+        public void onIcsImported(IcsCalendar calendar) {
+            imported.add(calendar);
+        }
+
+        @Override
+        public void onIcsImportFailed(IOException e) {
+            failures.add(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.app.Activity;
+import android.widget.FrameLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/2
+ * @description 在后台线程推送每天的数据，日历还没有显示或者已经移出窗口时，推送的数据在显示后的第一帧写入，之后的推送继续生效
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DayValueUpdaterTest {
+
+    private static final int EPOCH_DAY = 17000;
+
+    @Test
+    public void backgroundPushWhileDetachedIsAppliedAfterAttach() throws InterruptedException {
+        final DayPickerView pickerView = new DayPickerView(RuntimeEnvironment.application);
+        pushOnBackgroundThread(pickerView, 100);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        final Activity activity = Robolectric.setupActivity(Activity.class);
+        final FrameLayout container = new FrameLayout(activity);
+        activity.setContentView(container);
+        container.addView(pickerView);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(100, pickerView.getDayValues().get(EPOCH_DAY));
+
+        pushOnBackgroundThread(pickerView, 200);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(200, pickerView.getDayValues().get(EPOCH_DAY));
+
+        //移出窗口期间的推送在重新显示后写入
+        container.removeView(pickerView);
+        pushOnBackgroundThread(pickerView, 300);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        container.addView(pickerView);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(300, pickerView.getDayValues().get(EPOCH_DAY));
+    }
+
+    private static void pushOnBackgroundThread(final DayPickerView pickerView, final int value) throws InterruptedException {
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pickerView.pushDayValue(EPOCH_DAY, value);
+            }
+        });
+        thread.start();
+        thread.join();
+    }
+}
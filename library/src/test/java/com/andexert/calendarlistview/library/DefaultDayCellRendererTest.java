@@ -0,0 +1,126 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowCanvas;
+
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/5
+ * @description 默认格子绘制按颜色分组，颜色超过初始容量（例如外层按价格给每天不同颜色）时每个格子仍然都要绘制
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class DefaultDayCellRendererTest {
+
+    private static final int DAYS = 31;
+
+    private MonthRenderContext mRenderContext;
+    private DayCell[] mCells;
+    private Canvas mCanvas;
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        mRenderContext = new MonthRenderContext(context, context.obtainStyledAttributes(R.styleable.DayPickerView),
+                CalendarContext.create(TimeZone.getTimeZone("GMT+8"), Locale.CHINA, Calendar.MONDAY));
+        mCells = mRenderContext.paints.dayCells;
+        for (int i = 0; i < DAYS; i++) {
+            final DayCell cell = mCells[i];
+            cell.day = i + 1;
+            cell.textColor = 0xff000000 | (i * 0x010203);                                   //每天一种颜色
+            cell.secondaryColor = cell.textColor;
+            cell.left = i * 40;
+            cell.right = cell.left + 40;
+            cell.centerX = cell.left + 20;
+        }
+        mCanvas = new Canvas(Bitmap.createBitmap(DAYS * 40, 100, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void drawsEveryDayNumberWithManyColors() {
+        mRenderContext.defaultDayCellRenderer.drawPrimaryText(mCanvas, mCells, DAYS);
+
+        final Set<String> drawn = drawnTexts();
+        for (int day = 1; day <= DAYS; day++) {
+            assertTrue("day " + day, drawn.contains(String.valueOf(day)));
+        }
+    }
+
+    @Test
+    public void drawsEveryLabelWithManyColors() {
+        for (int i = 0; i < DAYS; i++) {
+            mCells[i].label = "L" + i;
+        }
+        mRenderContext.defaultDayCellRenderer.drawPrimaryText(mCanvas, mCells, DAYS);
+
+        final Set<String> drawn = drawnTexts();
+        for (int i = 0; i < DAYS; i++) {
+            assertTrue("label " + i, drawn.contains("L" + i));
+        }
+    }
+
+    @Test
+    public void drawsEverySecondaryLabelWithManyColors() {
+        for (int i = 0; i < DAYS; i++) {
+            mCells[i].secondaryLabel = "S" + i;
+        }
+        mRenderContext.defaultDayCellRenderer.drawSecondary(mCanvas, mCells, DAYS);
+
+        final Set<String> drawn = drawnTexts();
+        assertEquals(DAYS, drawn.size());
+        for (int i = 0; i < DAYS; i++) {
+            assertTrue("secondary " + i, drawn.contains("S" + i));
+        }
+    }
+
+    private Set<String> drawnTexts() {
+        final ShadowCanvas shadowCanvas = shadowOf(mCanvas);
+        final Set<String> texts = new HashSet<>();
+        for (int i = 0; i < shadowCanvas.getTextHistoryCount(); i++) {
+            texts.add(shadowCanvas.getDrawnTextEvent(i).text);
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,296 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.support.v7.widget.LinearLayoutManager;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Calendar;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/5
+ * @description 固定大小的DayPickerView按固定步长scrollBy、点击和选择范围，把每个场景的PickerStats计数写到build/reports/picker-scenarios/scenarios.txt，
+ *              格式固定，可以在不同版本之间diff。场景从固定的月份开始，每一步之后手动布局和绘制一帧，计数和设备、当前日期都无关。
+ *              每秒绑定次数和分配的字节数和机器、JVM有关，单独写到timing.txt，不参与两次运行结果的比较
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class PickerScenarioTest {
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 800;
+    private static final int SCROLL_STEP = HEIGHT / 4;                                      //每一帧滑动的距离
+    private static final int START_YEAR = 2060;                                             //离当前日期足够远，所有日期都可以点击
+    private static final int MAX_YEAR = 2080;
+    private static final int MONTHS_TO_SCROLL = 10 * 12;
+    private static final int MAX_STEPS = 2000;                                              //到不了目标月份时最多滑动的次数
+    private static final int TAP_COUNT = 30;
+    private static final int RANGE_COUNT = 15;
+    private static final int MAX_HOLDERS = 12;                                              //一屏约4个月，加上缓存，10年的滑动也不需要更多
+    private static final String REPORT_DIR = "build/reports/picker-scenarios";             //相对于模块目录
+
+    private DayPickerView mPickerView;
+    private PickerStats mStats;
+    private Canvas mCanvas;
+    private int mStartPosition;
+    private long mScenarioStartNanos;
+    private long mScenarioStartAllocated;
+
+    @Test
+    public void scenariosAreDeterministic() throws IOException {
+        final StringBuilder timing = new StringBuilder();
+        final String report = runScenarios(timing);
+        writeReport("scenarios.txt", report);
+        writeReport("timing.txt", timing.toString());
+        assertEquals(report, runScenarios(new StringBuilder()));
+    }
+
+    @Test
+    public void scrollingRecyclesHolders() {
+        setUpPicker();
+        final int forwardSteps = scrollForward();
+        assertTrue("steps=" + forwardSteps, forwardSteps < MAX_STEPS);
+        assertTrue(getFirstVisiblePosition() >= mStartPosition + MONTHS_TO_SCROLL);
+        assertTrue(mStats.toString(), mStats.getBinds() >= MONTHS_TO_SCROLL);
+        assertTrue(mStats.toString(), mStats.getCreates() <= MAX_HOLDERS);
+        assertEquals(0, mStats.getNotifies());
+
+        mStats.reset();
+        final int backSteps = scrollBack();
+        assertTrue("steps=" + backSteps, backSteps < MAX_STEPS);
+        assertEquals(mStartPosition, getFirstVisiblePosition());
+        assertTrue(mStats.toString(), mStats.getCreates() <= MAX_HOLDERS);
+        assertEquals(0, mStats.getNotifies());
+    }
+
+    @Test
+    public void tapsOnlyNotifyTappedMonth() {
+        setUpPicker();
+        tapDays();
+        //所有点击都在同一个月，每次只通知这一个月
+        assertTrue(mStats.toString(), mStats.getNotifies() > 0 && mStats.getNotifies() <= TAP_COUNT);
+        assertEquals(mStats.getNotifies(), mStats.getNotifiedItems());
+    }
+
+    /**
+     * @param timing    每个场景的耗时和分配，和返回的计数分开
+     * @return  每个场景一行计数
+     */
+    private String runScenarios(StringBuilder timing) {
+        setUpPicker();
+        final StringBuilder report = new StringBuilder();
+        report.append("# DayPickerView scenarios, ").append(WIDTH).append('x').append(HEIGHT)
+                .append(" scroll_step=").append(SCROLL_STEP).append('\n');
+        timing.append("# DayPickerView scenario timing, ").append(System.getProperty("java.vm.name"))
+                .append(' ').append(System.getProperty("java.version")).append('\n');
+        startScenario();
+        appendLines(report, timing, "scroll_forward_10y", scrollForward());
+        startScenario();
+        appendLines(report, timing, "scroll_back_10y", scrollBack());
+        startScenario();
+        appendLines(report, timing, "taps", tapDays());
+        startScenario();
+        appendLines(report, timing, "range_selection", selectRanges());
+        return report.toString();
+    }
+
+    private void startScenario() {
+        mStats.reset();
+        mScenarioStartAllocated = getAllocatedBytes();
+        mScenarioStartNanos = System.nanoTime();
+    }
+
+    private void appendLines(StringBuilder report, StringBuilder timing, String scenario, int steps) {
+        final long nanos = Math.max(1, System.nanoTime() - mScenarioStartNanos);
+        final long allocated = getAllocatedBytes();
+        report.append(String.format(Locale.US, "%-18s %s steps=%d\n", scenario, mStats, steps));
+        timing.append(String.format(Locale.US, "%-18s binds_per_sec=%.1f alloc_bytes=%d duration_ms=%d\n", scenario,
+                mStats.getBinds() * 1e9 / nanos, allocated < 0 ? -1 : allocated - mScenarioStartAllocated, nanos / 1000000));
+    }
+
+    /**
+     * 当前线程累计分配的字节数，JVM不支持时返回-1
+     */
+    private static long getAllocatedBytes() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static void writeReport(String name, String content) throws IOException {
+        final File dir = new File(REPORT_DIR);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir.getAbsolutePath());
+        }
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(new File(dir, name)), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 新的DayPickerView停在START_YEAR年1月，布局和绘制第一帧之后才开始计数
+     */
+    private void setUpPicker() {
+        mPickerView = new DayPickerView(RuntimeEnvironment.application);
+        mPickerView.setItemAnimator(null);                                                  //点击引起的变化直接重新绑定，不依赖动画的时间
+        mPickerView.setController(new DatePickerController() {
+            @Override
+            public int getMaxYear() {
+                return MAX_YEAR;
+            }
+
+            @Override
+            public void onDayOfMonthSelected(int year, int month, int day) {
+            }
+
+            @Override
+            public void onDateRangeSelected(SimpleMonthAdapter.SelectedDays<SimpleMonthAdapter.CalendarDay> selectedDays) {
+            }
+        });
+        mCanvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        mPickerView.scrollToMonth(START_YEAR, Calendar.JANUARY);
+        frame();
+        mStartPosition = getFirstVisiblePosition();
+        mStats = new PickerStats();
+        mPickerView.setStats(mStats);
+    }
+
+    private int scrollForward() {
+        final int target = mStartPosition + MONTHS_TO_SCROLL;
+        int steps = 0;
+        while (getFirstVisiblePosition() < target && steps < MAX_STEPS) {
+            mPickerView.scrollBy(0, SCROLL_STEP);
+            frame();
+            steps++;
+        }
+        return steps;
+    }
+
+    private int scrollBack() {
+        int steps = 0;
+        while (getFirstVisiblePosition() > mStartPosition && steps < MAX_STEPS) {
+            mPickerView.scrollBy(0, -SCROLL_STEP);
+            frame();
+            steps++;
+        }
+        //最后一步可能停在月份中间，对齐到月份顶部
+        mPickerView.scrollToMonth(START_YEAR, Calendar.JANUARY);
+        frame();
+        return steps;
+    }
+
+    private int tapDays() {
+        for (int i = 0; i < TAP_COUNT; i++) {
+            tapDay(i % 7, i / 7 % 5);
+            frame();
+        }
+        return TAP_COUNT;
+    }
+
+    /**
+     * 开始日期在当前月，滑动一个月后点击结束日期
+     */
+    private int selectRanges() {
+        for (int i = 0; i < RANGE_COUNT * 2; i++) {
+            tapDay(i % 7, 1 + i % 3);
+            if (i % 2 == 0) {
+                final View child = getCenterChild();
+                mPickerView.scrollBy(0, child == null ? 0 : child.getHeight());
+            }
+            frame();
+        }
+        return RANGE_COUNT * 2;
+    }
+
+    /**
+     * 一帧：执行主线程的消息，需要时重新测量布局，然后绘制
+     */
+    private void frame() {
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        if (mPickerView.isLayoutRequested()) {
+            mPickerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+            mPickerView.layout(0, 0, WIDTH, HEIGHT);
+        }
+        mPickerView.draw(mCanvas);
+    }
+
+    private int getFirstVisiblePosition() {
+        return ((LinearLayoutManager) mPickerView.getLayoutManager()).findFirstVisibleItemPosition();
+    }
+
+    private View getCenterChild() {
+        return mPickerView.findChildViewUnder(WIDTH / 2f, HEIGHT / 2f);
+    }
+
+    /**
+     * 点击屏幕中间的月份控件中第row行、第column列的位置
+     */
+    private void tapDay(int column, int row) {
+        final View child = getCenterChild();
+        if (child == null) {
+            return;
+        }
+        final float x = child.getLeft() + child.getWidth() * (column * 2 + 1) / 14f;
+        final float y = child.getTop() + child.getHeight() * (0.35f + 0.1f * row);
+        final long now = SystemClock.uptimeMillis();
+        final MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, x, y, 0);
+        mPickerView.dispatchTouchEvent(down);
+        down.recycle();
+        final MotionEvent up = MotionEvent.obtain(now, now + 10, MotionEvent.ACTION_UP, x, y, 0);
+        mPickerView.dispatchTouchEvent(up);
+        up.recycle();
+    }
+}
@@ -0,0 +1,125 @@
+/***********************************************************************************
+ * The MIT License (MIT)
+
+ * Copyright (c) 2014 Robin Chutaux
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ ***********************************************************************************/
+package com.andexert.calendarlistview.library;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+
+import com.andexert.calendarlistview.core.DayLabelRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author WeiDeng
+ * @date 16/7/5
+ * @description 在同一个MonthRenderContext下创建N个SimpleMonthView并绑定月份，比较创建前后的堆大小，得到每个Holder占用的字节数。
+ *              画笔、主题和格子都在共享的绘制状态里，每个Holder只保留自己的月份数据。
+ *              GC之后的堆大小和JVM有关，只有设置了footprint.maxBytesPerHolder时才检查上限（共享绘制状态之前约4.8KB，之后小于2KB），
+ *              例如 ./gradlew :library:testDebugUnitTest -PfootprintMaxBytes=2048
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class SimpleMonthViewFootprintTest {
+
+    private static final int HOLDERS = 500;
+    private static final int MONTHS = 24;                                                   //绑定的月份循环，共享的网格和标签缓存先预热
+    private static final String MAX_BYTES_PROPERTY = "footprint.maxBytesPerHolder";         //没有设置时不检查上限
+
+    @Test
+    public void holdersOnlyRetainTheirMonthState() {
+        final Context context = RuntimeEnvironment.application;
+        final TypedArray typedArray = context.obtainStyledAttributes(R.styleable.DayPickerView);
+        final MonthRenderContext rc = new MonthRenderContext(context, typedArray,
+                CalendarContext.create(TimeZone.getTimeZone("GMT+8"), Locale.CHINA, Calendar.MONDAY));
+        rc.labelRegistry = new DayLabelRegistry();
+
+        //第一个Holder加载类、填充共享的缓存，不计入
+        final SimpleMonthView warmUp = new SimpleMonthView(context, rc);
+        for (int i = 0; i < MONTHS; i++) {
+            bind(warmUp, rc, i);
+        }
+
+        final SimpleMonthView[] holders = new SimpleMonthView[HOLDERS];
+        final long before = usedHeap();
+        for (int i = 0; i < HOLDERS; i++) {
+            holders[i] = new SimpleMonthView(context, rc);
+            bind(holders[i], rc, i % MONTHS);
+        }
+        final long after = usedHeap();
+
+        final long perHolder = (after - before) / HOLDERS;
+        assertEquals(HOLDERS, countBound(holders));
+        final long maxBytes = Long.getLong(MAX_BYTES_PROPERTY, 0L);
+        if (maxBytes > 0) {
+            assertTrue("retained " + perHolder + " bytes per holder, limit " + maxBytes, perHolder < maxBytes);
+        }
+    }
+
+    private static void bind(SimpleMonthView view, MonthRenderContext rc, int monthOffset) {
+        final int monthIndex = 2016 * 12 + monthOffset;
+        view.setMonth(monthIndex / 12, monthIndex % 12, rc.calendarContext.weekStart, SelectionDelta.NO_DAY, SelectionDelta.NO_DAY);
+    }
+
+    /**
+     * 测量结束后仍然使用所有Holder，保证测量期间它们都可达
+     */
+    private static int countBound(SimpleMonthView[] holders) {
+        int count = 0;
+        for (SimpleMonthView holder : holders) {
+            if (holder != null && holder.getMonthHeight() > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 多次GC直到已用堆不再下降
+     */
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            System.runFinalization();
+            final long current = runtime.totalMemory() - runtime.freeMemory();
+            if (current >= used) {
+                return used;
+            }
+            used = current;
+        }
+        return used;
+    }
+}
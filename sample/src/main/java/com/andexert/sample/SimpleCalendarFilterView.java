@@ -7,6 +7,9 @@ import android.view.View;
 import android.widget.RelativeLayout;
 import android.widget.TextView;
 
+import com.andexert.calendarlistview.core.HolidayIndex;
+import com.andexert.calendarlistview.core.RangeEvaluator;
+import com.andexert.calendarlistview.core.RangeStatistics;
 import com.andexert.calendarlistview.library.CalendarUtils;
 import com.andexert.calendarlistview.library.DatePickerController;
 import com.andexert.calendarlistview.library.DayPickerView;
@@ -14,6 +17,7 @@ import com.andexert.calendarlistview.library.SimpleMonthAdapter.CalendarDay;
 import com.andexert.calendarlistview.library.SimpleMonthAdapter.SelectedDays;
 
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -30,6 +34,8 @@ public class SimpleCalendarFilterView extends RelativeLayout implements DatePick
     private TextView mHowManyDaysTv;
     private SimpleDateFormat dateFormat = new SimpleDateFormat("MM月dd日");
     private static LinkedHashMap<String, String> vacationMap;
+    private RangeStatistics mWeekendStatistics;                                             //周末间夜数，选择时O(1)查询
+    private RangeStatistics mHolidayStatistics;                                             //节假日间夜数
 
     public SimpleCalendarFilterView(Context context) {
         this(context, null);
@@ -62,6 +68,11 @@ public class SimpleCalendarFilterView extends RelativeLayout implements DatePick
      */
     public void setHoliday(Map<String, String> holidayMap) {
         mPickerView.setHoliday(holidayMap);
+        mHolidayStatistics = RangeStatistics.holidays(getFirstYear(), getMaxYear(), new HolidayIndex(holidayMap));
+    }
+
+    private int getFirstYear() {
+        return Calendar.getInstance().get(Calendar.YEAR);
     }
 
     @Override
@@ -79,20 +90,33 @@ public class SimpleCalendarFilterView extends RelativeLayout implements DatePick
         CalendarDay lastDay = selectedDays.getLast();
         int compareDate = CalendarUtils.compareDate(firstDay.getDate(), lastDay.getDate());
 
-        int days = 0;
         String firstDateStr;
         String lastDateStr;
+        int checkIn;
+        int checkOut;
         if(compareDate > 0) {
             firstDateStr = dateFormat.format(firstDay.getDate());
             lastDateStr = dateFormat.format(lastDay.getDate());
-            days = firstDay.computeDays(lastDay);
+            checkIn = firstDay.getEpochDay();
+            checkOut = lastDay.getEpochDay();
         } else {
             firstDateStr = dateFormat.format(lastDay.getDate());
             lastDateStr = dateFormat.format(firstDay.getDate());
-            days = lastDay.computeDays(firstDay);
+            checkIn = lastDay.getEpochDay();
+            checkOut = firstDay.getEpochDay();
+        }
+        if (mWeekendStatistics == null) {
+            mWeekendStatistics = RangeStatistics.weekends(getFirstYear(), getMaxYear(), RangeEvaluator.DEFAULT_WEEKEND_NIGHTS);
+        }
+        int days = RangeEvaluator.getNights(checkIn, checkOut);
+        StringBuilder summary = new StringBuilder();
+        summary.append("共").append(days + 1).append("天").append(days).append("晚");
+        summary.append("，周末").append(mWeekendStatistics.count(checkIn, checkOut)).append("晚");
+        if (mHolidayStatistics != null) {
+            summary.append("，节假日").append(mHolidayStatistics.count(checkIn, checkOut)).append("晚");
         }
         mDateTv.setText(String.valueOf(firstDateStr + " - " + lastDateStr));
-        mHowManyDaysTv.setText(String.valueOf("共" + (days + 1) + "天" + days+ "晚"));
+        mHowManyDaysTv.setText(summary.toString());
         mHowManyDaysTv.setVisibility(View.VISIBLE);
     }
 